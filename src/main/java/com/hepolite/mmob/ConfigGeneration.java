@@ -0,0 +1,307 @@
+package com.hepolite.mmob;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Level;
+
+import com.hepolite.mmob.handlers.RoleHandler;
+import com.hepolite.mmob.mobs.MobRole;
+import com.hepolite.mmob.mobs.RoleTemplate;
+import com.hepolite.mmob.settings.Settings;
+import com.hepolite.mmob.settings.SettingsAbilities;
+import com.hepolite.mmob.settings.SettingsDungeons;
+import com.hepolite.mmob.settings.SettingsItemEffects;
+import com.hepolite.mmob.settings.SettingsLoot;
+import com.hepolite.mmob.settings.SettingsRoles;
+
+/**
+ * A configuration generation holds every config file of the plugin apart from the main config, along with the roles compiled from them. Loading a generation parses all the files and compiles all the
+ * roles in parallel, and may happen away from the main thread. The generation is then put to use in one step, such that the rest of the plugin never sees a configuration that is half loaded. A
+ * generation never changes after it has been put to use
+ */
+public final class ConfigGeneration
+{
+	// Control variables
+	private static volatile ConfigGeneration current = new ConfigGeneration();
+
+	private final Map<String, Settings> roles;
+	private final Map<String, Settings> passives;
+	private final Map<String, Settings> actives;
+	private final Map<String, Settings> itemEffects;
+	private final Map<String, Settings> loot;
+	private final Map<String, Settings> dungeons;
+
+	private final Set<String> enabledPassives = new HashSet<String>();
+	private final Set<String> enabledActives = new HashSet<String>();
+	private final HashMap<String, MobRole> mobRoles = new HashMap<String, MobRole>();
+	private final HashMap<String, RoleTemplate> templates = new HashMap<String, RoleTemplate>();	// Filled in before the generation is put to use
+
+	/* Initialization */
+	private ConfigGeneration()
+	{
+		this(new HashMap<String, Settings>(), new HashMap<String, Settings>(), new HashMap<String, Settings>(), new HashMap<String, Settings>(), new HashMap<String, Settings>(), new HashMap<String, Settings>());
+	}
+
+	/* Initialization */
+	private ConfigGeneration(Map<String, Settings> roles, Map<String, Settings> passives, Map<String, Settings> actives, Map<String, Settings> itemEffects, Map<String, Settings> loot, Map<String, Settings> dungeons)
+	{
+		this.roles = Collections.unmodifiableMap(roles);
+		this.passives = Collections.unmodifiableMap(passives);
+		this.actives = Collections.unmodifiableMap(actives);
+		this.itemEffects = Collections.unmodifiableMap(itemEffects);
+		this.loot = Collections.unmodifiableMap(loot);
+		this.dungeons = Collections.unmodifiableMap(dungeons);
+
+		for (Map.Entry<String, Settings> entry : passives.entrySet())
+		{
+			if (entry.getValue().getBoolean("enable"))
+				enabledPassives.add(entry.getKey());
+		}
+		for (Map.Entry<String, Settings> entry : actives.entrySet())
+		{
+			if (entry.getValue().getBoolean("enable"))
+				enabledActives.add(entry.getKey());
+		}
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the generation that is in use */
+	public static ConfigGeneration getCurrent()
+	{
+		return current;
+	}
+
+	/** Puts the given generation to use; must be called from the main thread */
+	public static void install(ConfigGeneration generation)
+	{
+		current = generation;
+	}
+
+	/** Loads up a new generation from disk, using the given general settings. Returns null if something went wrong, in which case the generation in use should be kept */
+	public static ConfigGeneration load(final GeneralSettings pluginSettings)
+	{
+		ForkJoinPool pool = new ForkJoinPool();
+		try
+		{
+			// Every folder writes its default files before its files are parsed; the folders are handled at the same time, and so are the files within each folder
+			ForkJoinTask<HashMap<String, Settings>> abilityTask = pool.submit(new FolderLoader("Abilities", new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					SettingsAbilities.addDefaults();
+				}
+			}));
+			ForkJoinTask<HashMap<String, Settings>> roleTask = pool.submit(new FolderLoader("Roles", new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					SettingsRoles.addDefaults();
+				}
+			}));
+			ForkJoinTask<HashMap<String, Settings>> itemEffectTask = pool.submit(new FolderLoader("Item Effects", new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					SettingsItemEffects.addDefaults();
+				}
+			}));
+			ForkJoinTask<HashMap<String, Settings>> lootTask = pool.submit(new FolderLoader("Loot", new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					SettingsLoot.addDefaults();
+				}
+			}));
+			ForkJoinTask<HashMap<String, Settings>> dungeonTask = pool.submit(new FolderLoader("Dungeons", new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					SettingsDungeons.addDefaults();
+				}
+			}));
+
+			// Ability files are named after the type and the name of the ability
+			HashMap<String, Settings> passives = new HashMap<String, Settings>();
+			HashMap<String, Settings> actives = new HashMap<String, Settings>();
+			for (Map.Entry<String, Settings> entry : abilityTask.join().entrySet())
+			{
+				String[] parts = entry.getKey().split(" ");
+				if (parts.length != 2)
+					Log.log("The file '" + entry.getKey() + "' is invalid!", Level.WARNING);
+				else if (parts[0].equalsIgnoreCase("Passive"))
+					passives.put(parts[1], entry.getValue());
+				else if (parts[0].equalsIgnoreCase("Active"))
+					actives.put(parts[1], entry.getValue());
+			}
+			final ConfigGeneration generation = new ConfigGeneration(roleTask.join(), passives, actives, itemEffectTask.join(), lootTask.join(), dungeonTask.join());
+
+			// Compile the roles; the templates only read from the generation, so they can all be compiled at the same time
+			HashMap<String, ForkJoinTask<RoleTemplate>> templateTasks = new HashMap<String, ForkJoinTask<RoleTemplate>>();
+			for (final String name : generation.roles.keySet())
+			{
+				templateTasks.put(name, pool.submit(new Callable<RoleTemplate>()
+				{
+					@Override
+					public RoleTemplate call()
+					{
+						return RoleHandler.compileRole(generation, name, pluginSettings);
+					}
+				}));
+			}
+			for (Map.Entry<String, ForkJoinTask<RoleTemplate>> entry : templateTasks.entrySet())
+			{
+				RoleTemplate template = entry.getValue().join();
+				if (template == null)
+					continue;
+				generation.templates.put(entry.getKey(), template);
+				generation.mobRoles.put(entry.getKey(), new MobRole(entry.getKey()));
+			}
+			return generation;
+		}
+		catch (RuntimeException exception)
+		{
+			Log.log("Failed to load the configuration files; the old configuration is kept!", Level.WARNING, exception);
+			return null;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Parses every file in one folder, after writing the default files of the folder. The files are mapped by their name, without the extension */
+	private static final class FolderLoader implements Callable<HashMap<String, Settings>>
+	{
+		private final String folder;
+		private final Runnable defaults;
+
+		/* Initialization */
+		private FolderLoader(String folder, Runnable defaults)
+		{
+			this.folder = folder;
+			this.defaults = defaults;
+		}
+
+		@Override
+		public HashMap<String, Settings> call()
+		{
+			defaults.run();
+
+			File directory = new File(MMobPlugin.getInstance().getDataFolder() + "/" + folder);
+			File[] files = directory.listFiles();
+			List<ForkJoinTask<Settings>> tasks = new ArrayList<ForkJoinTask<Settings>>();
+			for (final File file : files == null ? new File[0] : files)
+			{
+				tasks.add(ForkJoinTask.adapt(new Callable<Settings>()
+				{
+					@Override
+					public Settings call()
+					{
+						Settings settings = new Settings(folder, file.getName());
+						settings.prepare();
+						return settings;
+					}
+				}));
+			}
+			ForkJoinTask.invokeAll(tasks);
+
+			HashMap<String, Settings> settings = new HashMap<String, Settings>();
+			for (int i = 0; i < tasks.size(); i++)
+			{
+				settings.put(files[i].getName().split("\\.")[0], tasks.get(i).join());
+				if (MMobSettings.isDebugmode)
+					Log.log("Discovered '" + files[i].getName() + "' in '" + folder + "'!");
+			}
+			return settings;
+		}
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the names of all roles */
+	public Set<String> getRoleNames()
+	{
+		return roles.keySet();
+	}
+
+	/** Returns the config of the given role, or null if there is no such role */
+	public Settings getRoleConfig(String role)
+	{
+		return roles.get(role);
+	}
+
+	/** Returns the role with the given name, or null if there is no such role or it failed to compile */
+	public MobRole getRole(String role)
+	{
+		return mobRoles.get(role);
+	}
+
+	/** Returns the compiled template of the given role, or null if there is no such role or it failed to compile */
+	public RoleTemplate getTemplate(String role)
+	{
+		return templates.get(role);
+	}
+
+	/** Returns the config of the given passive ability, or null if there is no such ability */
+	public Settings getPassiveConfig(String ability)
+	{
+		return passives.get(ability);
+	}
+
+	/** Returns the config of the given active ability, or null if there is no such ability */
+	public Settings getActiveConfig(String ability)
+	{
+		return actives.get(ability);
+	}
+
+	/** Returns true if the given passive ability is enabled in its config */
+	public boolean isPassiveEnabled(String ability)
+	{
+		return enabledPassives.contains(ability);
+	}
+
+	/** Returns true if the given active ability is enabled in its config */
+	public boolean isActiveEnabled(String ability)
+	{
+		return enabledActives.contains(ability);
+	}
+
+	/** Returns the config of the given item effect, or null if there is no such item effect */
+	public Settings getItemEffectConfig(String itemEffect)
+	{
+		return itemEffects.get(itemEffect);
+	}
+
+	/** Returns the config of the given loot category, or null if there is no such category */
+	public Settings getLootConfig(String category)
+	{
+		return loot.get(category);
+	}
+
+	/** Returns the configs of all dungeons that were found in the dungeon directory */
+	public Map<String, Settings> getDungeonConfigs()
+	{
+		return dungeons;
+	}
+}
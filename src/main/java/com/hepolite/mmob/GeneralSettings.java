@@ -0,0 +1,83 @@
+package com.hepolite.mmob;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The general settings are a compiled copy of the General section of the config file. The values are read once when the config is loaded, such that code that runs every tick or on every hit can
+ * read plain fields instead of looking up the values by name. The settings never change after they are created; a new copy is made whenever the config changes
+ */
+public final class GeneralSettings
+{
+	// Boss bar
+	public final int mobHealthbarDistance;
+	public final int mobHealthbarUpdateTime;
+
+	// Mobs
+	public final float maxLevel;
+	public final float levelSearchDistance;
+	public final float minSpawnDistance;
+	public final float healthScale;
+	public final float damageScale;
+	public final float armorScale;
+	public final float targetAquireDistance;
+	public final float targetLoseDistance;
+	public final float activationRange;
+
+	// Scheduler
+	public final long tickBudget;
+	public final int plannerThreads;
+	private final Map<String, Long> worldTickBudgets;
+
+	// Attacks
+	public final float treatAttackAsRangedDistance;
+	public final float treatAttackAsMagicDistance;
+	public final boolean treatSkillsAsMagic;
+	public final float attackCooldown;
+
+	// Defence
+	public final float armorEfficiency;
+	public final float firePotionEnchantLevelEquivalent;
+	public final float resistancePotionEnchantLevelEquivalent;
+
+	/* Initialization */
+	public GeneralSettings(MMobSettings settings)
+	{
+		mobHealthbarDistance = settings.getInteger("General.Bossbar.mobHealthbarDistance");
+		mobHealthbarUpdateTime = settings.getInteger("General.Bossbar.mobHealthbarUpdateTime");
+
+		maxLevel = settings.getFloat("General.Mobs.maxLevel");
+		levelSearchDistance = settings.getFloat("General.Mobs.levelSearchDistance");
+		minSpawnDistance = settings.getFloat("General.Mobs.minSpawnDistance");
+		healthScale = settings.getFloat("General.Mobs.healthScale");
+		damageScale = settings.getFloat("General.Mobs.damageScale");
+		armorScale = settings.getFloat("General.Mobs.armorScale");
+		targetAquireDistance = settings.getFloat("General.Mobs.targetAquireDistance");
+		targetLoseDistance = settings.getFloat("General.Mobs.targetLoseDistance");
+		activationRange = settings.getFloat("General.Mobs.activationRange");
+
+		tickBudget = settings.getLong("General.Scheduler.tickBudget");
+		plannerThreads = settings.getInteger("General.Scheduler.plannerThreads");
+		Map<String, Long> budgets = new HashMap<String, Long>();
+		for (String world : settings.getKeys("General.Scheduler.worldTickBudgets"))
+			budgets.put(world, settings.getLong("General.Scheduler.worldTickBudgets." + world));
+		worldTickBudgets = Collections.unmodifiableMap(budgets);
+
+		treatAttackAsRangedDistance = settings.getFloat("General.Attacks.treatAttackAsRangedDistance");
+		treatAttackAsMagicDistance = settings.getFloat("General.Attacks.treatAttackAsMagicDistance");
+		treatSkillsAsMagic = settings.getBoolean("General.Attacks.treatSkillsAsMagic");
+		attackCooldown = settings.getFloat("General.Attacks.attackCooldown");
+
+		armorEfficiency = settings.getFloat("General.Defence.armorEfficiency");
+		firePotionEnchantLevelEquivalent = settings.getFloat("General.Defence.firePotionEnchantLevelEquivalent");
+		resistancePotionEnchantLevelEquivalent = settings.getFloat("General.Defence.resistancePotionEnchantLevelEquivalent");
+	}
+
+	/** Returns the time, in nanoseconds, that may be spent on ticking mobs in the given world each tick. Worlds without a budget of their own use the common budget */
+	public long getTickBudget(String worldName)
+	{
+		Long budget = worldTickBudgets.get(worldName);
+		return budget == null ? tickBudget : budget;
+	}
+}
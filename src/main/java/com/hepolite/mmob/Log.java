@@ -29,4 +29,11 @@ public class Log
 		if (Log.logger != null)
 			Log.logger.log(level, message);
 	}
+
+	/** Logs a message to the console, along with the stack trace of the given exception */
+	public static void log(String message, Level level, Throwable throwable)
+	{
+		if (Log.logger != null)
+			Log.logger.log(level, message, throwable);
+	}
 }
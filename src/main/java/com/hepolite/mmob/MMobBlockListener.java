@@ -0,0 +1,160 @@
+package com.hepolite.mmob;
+
+import java.util.List;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockGrowEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockSpreadEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import com.hepolite.mmob.utility.SolidBlockCache;
+
+/**
+ * The block listener lets the block caches know whenever a block in the world changes
+ */
+public class MMobBlockListener implements Listener
+{
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockBreak(BlockBreakEvent event)
+	{
+		invalidate(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockPlace(BlockPlaceEvent event)
+	{
+		invalidate(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockBurn(BlockBurnEvent event)
+	{
+		invalidate(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockFade(BlockFadeEvent event)
+	{
+		invalidate(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockForm(BlockFormEvent event)
+	{
+		invalidate(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockSpread(BlockSpreadEvent event)
+	{
+		invalidate(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockGrow(BlockGrowEvent event)
+	{
+		invalidate(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onLeavesDecay(LeavesDecayEvent event)
+	{
+		invalidate(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onEntityChangeBlock(EntityChangeBlockEvent event)
+	{
+		invalidate(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onPistonExtend(BlockPistonExtendEvent event)
+	{
+		invalidateMoved(event.getBlock(), event.getBlocks(), event.getDirection());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onPistonRetract(BlockPistonRetractEvent event)
+	{
+		invalidateMoved(event.getBlock(), event.getBlocks(), event.getDirection());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onEntityExplode(EntityExplodeEvent event)
+	{
+		for (Block block : event.blockList())
+			invalidate(block);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockExplode(BlockExplodeEvent event)
+	{
+		for (Block block : event.blockList())
+			invalidate(block);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onStructureGrow(StructureGrowEvent event)
+	{
+		for (BlockState state : event.getBlocks())
+			invalidate(state.getWorld(), state.getX(), state.getY(), state.getZ());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onChunkUnload(ChunkUnloadEvent event)
+	{
+		SolidBlockCache.invalidateChunk(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onWorldUnload(WorldUnloadEvent event)
+	{
+		SolidBlockCache.invalidateWorld(event.getWorld());
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Lets the caches know that the given block has changed */
+	private static void invalidate(Block block)
+	{
+		invalidate(block.getWorld(), block.getX(), block.getY(), block.getZ());
+	}
+
+	/** Lets the caches know that the block at the given position has changed */
+	private static void invalidate(World world, int x, int y, int z)
+	{
+		SolidBlockCache.invalidate(world, x, y, z);
+	}
+
+	/** Lets the cache know that the given blocks are moved by the given piston in the given direction */
+	private static void invalidateMoved(Block piston, List<Block> blocks, BlockFace direction)
+	{
+		invalidate(piston);
+		invalidate(piston.getRelative(direction));
+		for (Block block : blocks)
+		{
+			invalidate(block);
+			invalidate(block.getRelative(direction));
+		}
+	}
+}
@@ -1,9 +1,9 @@
 package com.hepolite.mmob;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Random;
 
+import org.bukkit.Location;
 import org.bukkit.entity.Arrow;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
@@ -20,9 +20,13 @@ import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.EntityRegainHealthEvent;
 import org.bukkit.event.entity.EntityShootBowEvent;
+import org.bukkit.event.entity.EntityTeleportEvent;
 import org.bukkit.event.entity.ExplosionPrimeEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.metadata.MetadataValue;
 import org.bukkit.util.Vector;
@@ -31,6 +35,9 @@ import com.hepolite.mmob.handlers.ItemEffectHandler;
 import com.hepolite.mmob.handlers.MobHandler;
 import com.hepolite.mmob.handlers.ProjectileHandler;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
+import com.hepolite.mmob.utility.EntityIndex;
+import com.hepolite.mmob.utility.Profiler;
 
 public class MMobListener implements Listener
 {
@@ -49,48 +56,51 @@ public class MMobListener implements Listener
 	/** Core logic, update each tick */
 	public void onTick()
 	{
+		long startTime = Profiler.start();
 		ItemEffectHandler.onTick();
+		Profiler.stop("ItemEffectHandler.onTick", startTime);
+
+		startTime = Profiler.start();
 		ProjectileHandler.onTick();
+		Profiler.stop("ProjectileHandler.onTick", startTime);
 	}
 
 	/** Handle the spawning of malevolent mobs */
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onMobSpawn(CreatureSpawnEvent event)
 	{
+		// Range queries later in the tick should be able to find the new creature
+		EntityIndex.onEntitySpawn(event.getEntity(), event.getLocation());
+
 		// If not allowed to spawn malevolent mobs, or if they are denied, don't spawn them
 		if (denySpawns)
 			return;
-		if (!commandSpawn && !MMobPlugin.getSettings().getBoolean("Spawns.allow"))
+		LivingEntity entity = event.getEntity();
+		if (commandSpawn)
+		{
+			MobHandler.makeMobMalevolent(entity);
 			return;
+		}
 
-		// Figure out the type of the entity, and block the spawn if not allowed to spawn it
-		String type = Common.getEntityType(event.getEntity());
-		if (!commandSpawn && !MMobPlugin.getSettings().getBoolean("Spawns." + type + ".allow"))
+		// Most creatures are turned down by the roll alone; the chance is zero for types that aren't allowed to spawn
+		SpawnRules rules = MMobPlugin.getSettings().getSpawnRules();
+		if (random.nextFloat() >= rules.getRule(entity).chance)
 			return;
 
-		// If (un)lucky enough, make the mob malevolent
-		float chance = MMobPlugin.getSettings().getFloat("Spawns.spawnChance");
-		if (MMobPlugin.getSettings().hasProperty("Spawns." + type + ".chanceMultiplier"))
-			chance *= MMobPlugin.getSettings().getFloat("Spawns." + type + ".chanceMultiplier");
-		if (commandSpawn || random.nextFloat() < chance)
+		// Check that the world is one of the allowed worlds
+		if (rules.isWorldBlocked(entity.getWorld()))
+			return;
+
+		// Prevent spawns that are to occur too close to players; this won't prevent commands from spawning them in, though!
+		if (!MMobSettings.isDebugmode)
 		{
-			// Check that the world is one of the allowed worlds
-			List<String> blockedWorlds = MMobPlugin.getSettings().getStringList("Spawns.blockedWorlds");
-			String currentWorld = event.getEntity().getWorld().getName();
-			if (!commandSpawn && blockedWorlds.contains(currentWorld))
+			Location location = event.getLocation();
+			if (Common.countLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), MMobPlugin.getSettings().getGeneral().minSpawnDistance, EntityFilter.PLAYERS) > 0)
 				return;
-
-			// Prevent spawns that are to occur too close to players; this won't prevent commands from spawning them in, though!
-			if (!commandSpawn && !MMobSettings.isDebugmode)
-			{
-				List<Player> players = Common.getPlayersInRange(event.getLocation(), MMobPlugin.getSettings().getFloat("General.Mobs.minSpawnDistance"));
-				if (players.size() > 0)
-					return;
-			}
-
-			// Finalize the mob
-			MobHandler.makeMobMalevolent(event.getEntity());
 		}
+
+		// Finalize the mob
+		MobHandler.makeMobMalevolent(entity);
 	}
 
 	/** Handle the events where the malevolent mobs die */
@@ -212,6 +222,37 @@ public class MMobListener implements Listener
 		}
 	}
 
+	/** Lets range queries find entities at the place they were teleported to */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onEntityTeleport(EntityTeleportEvent event)
+	{
+		if (event.getEntity() instanceof LivingEntity)
+			EntityIndex.onEntityTeleport(event.getFrom(), event.getTo());
+	}
+
+	/** Lets range queries find players at the place they were teleported to */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onPlayerTeleport(PlayerTeleportEvent event)
+	{
+		EntityIndex.onEntityTeleport(event.getFrom(), event.getTo());
+	}
+
+	/** Lets range queries find players in the world they moved to */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerChangedWorld(PlayerChangedWorldEvent event)
+	{
+		EntityIndex.invalidate(event.getFrom());
+		EntityIndex.invalidate(event.getPlayer().getWorld());
+	}
+
+	/** Forgets about the mobs in worlds that are unloaded */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onWorldUnload(WorldUnloadEvent event)
+	{
+		MobHandler.onWorldUnload(event.getWorld());
+		EntityIndex.onWorldUnload(event.getWorld());
+	}
+
 	// ///////////////////////////////////////////////////////////////////////
 	// SETTING/GETTING DATA // SETTING/GETTING DATA // SETTING/GETTING DATA //
 	// ///////////////////////////////////////////////////////////////////////
@@ -30,12 +30,17 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import com.hepolite.mmob.abilities.AuraEngine;
 import com.hepolite.mmob.handlers.CommandHandler;
 import com.hepolite.mmob.handlers.DungeonHandler;
 import com.hepolite.mmob.handlers.MobHandler;
 import com.hepolite.mmob.handlers.ProjectileHandler;
 import com.hepolite.mmob.utility.BlockManager;
+import com.hepolite.mmob.utility.DamageQueue;
+import com.hepolite.mmob.utility.EntityIndex;
 import com.hepolite.mmob.utility.NBTAPI;
+import com.hepolite.mmob.utility.Profiler;
+import com.hepolite.mmob.utility.SolidBlockCache;
 
 public class MMobPlugin extends JavaPlugin
 {
@@ -67,6 +72,7 @@ public class MMobPlugin extends JavaPlugin
 
 		// Register listener
 		getServer().getPluginManager().registerEvents(listener, this);
+		getServer().getPluginManager().registerEvents(new MMobBlockListener(), this);
 
 		// Set up a task that runs once every tick
 		Runnable task = new Runnable()
@@ -74,10 +80,29 @@ public class MMobPlugin extends JavaPlugin
 			@Override
 			public void run()
 			{
+				EntityIndex.onTick();
+				SolidBlockCache.onTick();
 				listener.onTick();
+
+				long startTime = Profiler.start();
 				MobHandler.onTick();
+				Profiler.stop("MobHandler.onTick", startTime);
+
+				startTime = Profiler.start();
+				AuraEngine.onTick();
+				Profiler.stop("AuraEngine.onTick", startTime);
+
+				startTime = Profiler.start();
+				DamageQueue.onTick();
+				Profiler.stop("DamageQueue.onTick", startTime);
+
+				startTime = Profiler.start();
 				DungeonHandler.onTick();
+				Profiler.stop("DungeonHandler.onTick", startTime);
+
+				startTime = Profiler.start();
 				BlockManager.onTick();
+				Profiler.stop("BlockManager.onTick", startTime);
 			}
 		};
 		onTickTask = getServer().getScheduler().scheduleSyncRepeatingTask(this, task, 0, 1);
@@ -89,6 +114,7 @@ public class MMobPlugin extends JavaPlugin
 		settings.save();
 
 		getServer().getScheduler().cancelTasks(this);
+		MobHandler.onDisable();
 
 		settings = null;
 		listener = null;
@@ -107,6 +133,10 @@ public class MMobPlugin extends JavaPlugin
 		settings.save();
 		settings.reload();
 		MobHandler.onRestart();
+		EntityIndex.clear();
+		AuraEngine.clear();
+		DamageQueue.clear();
+		SolidBlockCache.clear();
 		ProjectileHandler.onRestart();
 	}
 
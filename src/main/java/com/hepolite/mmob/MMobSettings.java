@@ -1,27 +1,29 @@
 package com.hepolite.mmob;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.logging.Level;
 
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
 
 import com.hepolite.mmob.handlers.DungeonHandler;
 import com.hepolite.mmob.handlers.ItemEffectHandler;
 import com.hepolite.mmob.handlers.LootDropHandler;
-import com.hepolite.mmob.handlers.RoleHandler;
-import com.hepolite.mmob.settings.SettingsAbilities;
 import com.hepolite.mmob.settings.SettingsDungeons;
-import com.hepolite.mmob.settings.SettingsItemEffects;
-import com.hepolite.mmob.settings.SettingsLoot;
-import com.hepolite.mmob.settings.SettingsRoles;
+import com.hepolite.mmob.utility.Profiler;
 
 public class MMobSettings
 {
 	// Control variables
 	protected FileConfiguration config;
+	private volatile GeneralSettings general = null;	// Replaced as a whole whenever the config changes
+	private volatile SpawnRules spawnRules = null;		// Replaced as a whole whenever the config changes
+	private boolean isReloading = false;
 
 	public static boolean isDebugmode = false;
 
@@ -42,6 +44,12 @@ public class MMobSettings
 		reload();
 	}
 
+	/* Initialization; only used to read a main config that isn't in use yet */
+	private MMobSettings(FileConfiguration config)
+	{
+		this.config = config;
+	}
+
 	// ///////////////////////////////////////////////////////////////////////////////////////
 	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
 	// ///////////////////////////////////////////////////////////////////////////////////////
@@ -61,6 +69,14 @@ public class MMobSettings
 		addDefault("General.Mobs.armorScale", 1.0);
 		addDefault("General.Mobs.targetAquireDistance", 25.0);
 		addDefault("General.Mobs.targetLoseDistance", 75.0);
+		addDefault("General.Mobs.activationRange", 96.0);
+
+		addDefault("General.Scheduler.tickBudget", 2500000);
+		addDefault("General.Scheduler.plannerThreads", 1);
+		addDefault("General.Scheduler.worldTickBudgets.ExampleWorldName", 1000000);
+
+		addDefault("General.Profiler.enabled", false);
+		addDefault("General.Profiler.sampleRate", 16);
 
 		addDefault("General.Attacks.treatAttackAsRangedDistance", 15.0);
 		addDefault("General.Attacks.treatAttackAsMagicDistance", 5.0);
@@ -111,32 +127,107 @@ public class MMobSettings
 	public void add(String propertyName, Object value)
 	{
 		config.set(propertyName, value);
+		if (propertyName.startsWith("General."))
+			general = new GeneralSettings(this);
+		else if (propertyName.startsWith("Spawns."))
+			spawnRules = new SpawnRules(this);
 	}
 
 	/** Removes the given property from the config */
 	public void remove(String propertyName)
 	{
 		config.set(propertyName, null);
+		if (propertyName.startsWith("General."))
+			general = new GeneralSettings(this);
+		else if (propertyName.startsWith("Spawns."))
+			spawnRules = new SpawnRules(this);
 	}
 
-	/** Reloads the configuration file */
+	/** Reloads the configuration file, along with all the other config files. If something went wrong, the configuration in use is kept */
 	public void reload()
 	{
-		MMobPlugin.getInstance().reloadConfig();
-		config = MMobPlugin.getInstance().getConfig();
+		FileConfiguration mainConfig = loadMainConfig();
+		GeneralSettings general = new GeneralSettings(new MMobSettings(mainConfig));
+
+		ConfigGeneration generation = ConfigGeneration.load(general);
+		if (generation != null)
+			install(mainConfig, general, generation);
+		else if (this.general == null)
+			install(mainConfig, general, ConfigGeneration.getCurrent());	// Nothing is in use yet, so the main config has to be used on its own
+	}
+
+	/**
+	 * Reloads the configuration file, parsing all the config files away from the main thread. The new configuration is put to use in one step on the main thread once everything has been loaded, after
+	 * which the given task is run on the main thread. If something went wrong, the configuration in use is kept. Returns false if a reload is already in progress
+	 */
+	public boolean reloadAsync(final Runnable onDone)
+	{
+		if (isReloading)
+			return false;
+		isReloading = true;
+
+		final MMobPlugin plugin = MMobPlugin.getInstance();
+		plugin.getServer().getScheduler().runTaskAsynchronously(plugin, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				// The reload must always be finished on the main thread, even if loading failed in a way that wasn't caught
+				FileConfiguration loadedConfig = null;
+				GeneralSettings loadedGeneral = null;
+				ConfigGeneration loaded = null;
+				try
+				{
+					loadedConfig = loadMainConfig();
+					loadedGeneral = new GeneralSettings(new MMobSettings(loadedConfig));
+					loaded = ConfigGeneration.load(loadedGeneral);
+				}
+				finally
+				{
+					final FileConfiguration mainConfig = loadedConfig;
+					final GeneralSettings general = loadedGeneral;
+					final ConfigGeneration generation = loaded;
+					if (plugin.isEnabled())
+					{
+						plugin.getServer().getScheduler().runTask(plugin, new Runnable()
+						{
+							@Override
+							public void run()
+							{
+								isReloading = false;
+								if (generation != null && MMobPlugin.getSettings() == MMobSettings.this)
+									install(mainConfig, general, generation);
+								if (onDone != null)
+									onDone.run();
+							}
+						});
+					}
+				}
+			}
+		});
+		return true;
+	}
+
+	/** Reads the main configuration file from disk, without putting it to use. May be called away from the main thread */
+	private static FileConfiguration loadMainConfig()
+	{
+		return YamlConfiguration.loadConfiguration(new File(MMobPlugin.getInstance().getDataFolder(), "config.yml"));
+	}
 
-		// Get general settings
+	/** Puts the given main config, the general settings compiled from it and the given configuration generation to use in one step, and lets the sub-systems know about the changes */
+	private void install(FileConfiguration mainConfig, GeneralSettings general, ConfigGeneration generation)
+	{
+		config = mainConfig;
+		this.general = general;
+		spawnRules = new SpawnRules(this);
 		isDebugmode = getBoolean("General.debugmode");
+		Profiler.setEnabled(getBoolean("General.Profiler.enabled"));
+		Profiler.setSampleRate(getInteger("General.Profiler.sampleRate"));
 
-		// Load up sub-systems
-		SettingsAbilities.initialize();
-		SettingsRoles.initialize();
-		SettingsItemEffects.initialize();
-		SettingsLoot.initialize();
-		SettingsDungeons.initialize();
+		ConfigGeneration.install(generation);
+		SettingsDungeons.install(generation.getDungeonConfigs());
 
 		// Notify others of the changes
-		RoleHandler.loadRolesFromConfig();
 		ItemEffectHandler.loadItemEffectsFromConfig();
 		LootDropHandler.loadFromConfig();
 		DungeonHandler.loadFromConfig();
@@ -150,7 +241,26 @@ public class MMobSettings
 		// Save sub-systems to the config
 		DungeonHandler.saveToConfig();
 
-		MMobPlugin.getInstance().saveConfig();
+		try
+		{
+			config.save(new File(MMobPlugin.getInstance().getDataFolder(), "config.yml"));
+		}
+		catch (IOException exception)
+		{
+			Log.log("Failed to save configuration file 'config.yml'!", Level.WARNING, exception);
+		}
+	}
+
+	/** Returns the compiled general settings. Code that runs often should read the values from here rather than looking them up by name */
+	public GeneralSettings getGeneral()
+	{
+		return general;
+	}
+
+	/** Returns the compiled spawn rules */
+	public SpawnRules getSpawnRules()
+	{
+		return spawnRules;
 	}
 
 	public boolean hasProperty(String propertyName)
@@ -189,6 +299,11 @@ public class MMobSettings
 		return defaultValue;
 	}
 
+	public long getLong(String propertyName)
+	{
+		return config.getLong(propertyName);
+	}
+
 	public float getFloat(String propertyName)
 	{
 		return (float) config.getDouble(propertyName);
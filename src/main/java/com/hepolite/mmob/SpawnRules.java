@@ -0,0 +1,113 @@
+package com.hepolite.mmob;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Creeper;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Wolf;
+
+import com.hepolite.mmob.utility.Common;
+
+/**
+ * The spawn rules are a compiled copy of the Spawns section of the config file. Every creature that spawns on the server passes through the spawn listener, so the rules are looked up by the type of the
+ * creature rather than by name, and the chance of each type already includes the global spawn chance. Types that may not spawn naturally have a chance of zero. The rules never change after they are
+ * created; a new copy is made whenever the config changes
+ */
+public final class SpawnRules
+{
+	private final static int SUPERCHARGED_CREEPER = EntityType.values().length;
+	private final static int ANGRY_WOLF = SUPERCHARGED_CREEPER + 1;
+
+	/** The rule for one type of creature */
+	public static final class SpawnRule
+	{
+		public final boolean allow;
+		public final float chance;			// Zero if the type may not spawn naturally
+		public final List<String> roles;
+
+		/* Initialization */
+		private SpawnRule(boolean allow, float chance, List<String> roles)
+		{
+			this.allow = allow;
+			this.chance = chance;
+			this.roles = roles;
+		}
+	}
+
+	// Control variables
+	private final SpawnRule[] rules = new SpawnRule[ANGRY_WOLF + 1];
+	private final Set<String> blockedWorldNames;
+	private final Map<UUID, Boolean> blockedWorlds;		// The worlds that were loaded when the rules were created
+
+	/* Initialization */
+	public SpawnRules(MMobSettings settings)
+	{
+		blockedWorldNames = Collections.unmodifiableSet(new HashSet<String>(settings.getStringList("Spawns.blockedWorlds")));
+		HashMap<UUID, Boolean> worlds = new HashMap<UUID, Boolean>();
+		for (World world : Bukkit.getWorlds())
+			worlds.put(world.getUID(), blockedWorldNames.contains(world.getName()));
+		blockedWorlds = Collections.unmodifiableMap(worlds);
+
+		float spawnChance = settings.getBoolean("Spawns.allow") ? settings.getFloat("Spawns.spawnChance") : 0.0f;
+		for (EntityType type : EntityType.values())
+			rules[type.ordinal()] = compile(settings, Common.toTitleCase(type.toString().replaceAll("_", " ")), spawnChance);
+		rules[SUPERCHARGED_CREEPER] = compile(settings, "Supercharged Creeper", spawnChance);
+		rules[ANGRY_WOLF] = compile(settings, "Angry Wolf", spawnChance);
+	}
+
+	/** Returns the rule for the given type of creature */
+	private static SpawnRule compile(MMobSettings settings, String type, float spawnChance)
+	{
+		boolean allow = settings.getBoolean("Spawns." + type + ".allow");
+		float chance = allow ? spawnChance : 0.0f;
+		if (allow && settings.hasProperty("Spawns." + type + ".chanceMultiplier"))
+			chance *= settings.getFloat("Spawns." + type + ".chanceMultiplier");
+		return new SpawnRule(allow, chance, Collections.unmodifiableList(settings.getStringList("Spawns." + type + ".roles")));
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the rule for the given creature */
+	public SpawnRule getRule(LivingEntity entity)
+	{
+		switch (entity.getType())
+		{
+		case CREEPER:
+			if (entity instanceof Creeper && ((Creeper) entity).isPowered())
+				return rules[SUPERCHARGED_CREEPER];
+			break;
+		case WOLF:
+			if (entity instanceof Wolf && ((Wolf) entity).isAngry())
+				return rules[ANGRY_WOLF];
+			break;
+		default:
+			break;
+		}
+		return rules[entity.getType().ordinal()];
+	}
+
+	/** Returns the roles the given creature may get */
+	public List<String> getRoles(LivingEntity entity)
+	{
+		return getRule(entity).roles;
+	}
+
+	/** Returns true if malevolent mobs may not spawn naturally in the given world */
+	public boolean isWorldBlocked(World world)
+	{
+		// Worlds that were loaded after the rules were created are looked up by name
+		Boolean isBlocked = blockedWorlds.get(world.getUID());
+		return isBlocked == null ? blockedWorldNames.contains(world.getName()) : isBlocked;
+	}
+}
@@ -1,14 +1,15 @@
 package com.hepolite.mmob.abilities;
 
+import java.util.HashMap;
 import java.util.Random;
 
+import org.bukkit.Location;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityRegainHealthEvent;
 import org.bukkit.event.entity.ExplosionPrimeEvent;
 
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 
 public abstract class Ability
 {
@@ -20,8 +21,12 @@ public abstract class Ability
 
 	protected static Random random = new Random();
 
+	/** Remembers which event hooks each type of ability overrides, such that the lookup only has to be done once per type */
+	private final static HashMap<Class<?>, HashMap<String, Boolean>> overriddenHooks = new HashMap<Class<?>, HashMap<String, Boolean>>();
+
 	// Control variables
 	protected MalevolentMob mob = null;
+	protected final Location scratchLocation = new Location(null, 0.0, 0.0, 0.0);	// Used whenever a position is only needed for a moment
 
 	private String name = "unnamed ability";
 	protected float scale = 0.0f;
@@ -37,7 +42,7 @@ public abstract class Ability
 	}
 
 	/** Loads up the passive from the given configuration path */
-	public abstract void loadFromConfig(Settings settings, Settings alternative);
+	public abstract void loadFromConfig(AbilityParameters parameters);
 
 	// ////////////////////////////////////////////////////////////////////////////////////
 
@@ -56,6 +61,11 @@ public abstract class Ability
 	{
 	}
 
+	/** Called when the mob wakes up after being dormant for the given number of ticks. Timers should be moved forward as if the time passed, without applying the effects that were skipped */
+	public void advanceTimers(int ticks)
+	{
+	}
+
 	/** Called when the mob just attacked */
 	public void onAttack()
 	{
@@ -94,4 +104,36 @@ public abstract class Ability
 	{
 		return priority;
 	}
+
+	/** Returns how many ticks there should be between each call to onTick. Abilities that only do something every now and then can return a larger value, to avoid being visited each tick */
+	public int getTickInterval()
+	{
+		return 1;
+	}
+
+	/** Returns true if the ability overrides the given event hook, which takes an event of the given type. Abilities that don't override a hook have no reason to be called when the event happens */
+	public boolean overridesHook(String hook, Class<?> eventType)
+	{
+		HashMap<String, Boolean> hooks = overriddenHooks.get(getClass());
+		if (hooks == null)
+		{
+			hooks = new HashMap<String, Boolean>();
+			overriddenHooks.put(getClass(), hooks);
+		}
+
+		Boolean overrides = hooks.get(hook);
+		if (overrides == null)
+		{
+			try
+			{
+				overrides = getClass().getMethod(hook, eventType).getDeclaringClass() != Ability.class;
+			}
+			catch (NoSuchMethodException e)
+			{
+				overrides = false;
+			}
+			hooks.put(hook, overrides);
+		}
+		return overrides;
+	}
 }
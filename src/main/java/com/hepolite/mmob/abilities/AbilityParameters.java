@@ -0,0 +1,143 @@
+package com.hepolite.mmob.abilities;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import com.hepolite.mmob.settings.ScaledValue;
+import com.hepolite.mmob.settings.SettingsView;
+
+/**
+ * The parameters of one ability of one role. The part of the role config that belongs to the ability is merged with the config file of the ability when the config is loaded, with the role config
+ * taking priority, such that every property only has to be looked up in one place. Scaled values are stored as a base and a scale, so working out a value for a mob only takes a multiplication by its
+ * level. The parameters never change after they are created
+ */
+public final class AbilityParameters
+{
+	/** The value of one property, read in every way an ability may ask for it */
+	private static final class Value
+	{
+		private final boolean booleanValue;
+		private final int integerValue;
+		private final float floatValue;
+		private final String stringValue;
+		private final List<String> stringListValue;
+
+		/* Initialization */
+		private Value(SettingsView view, String property)
+		{
+			booleanValue = view.getBoolean(property);
+			integerValue = view.getInteger(property);
+			floatValue = view.getFloat(property);
+			stringValue = view.getString(property);
+			stringListValue = Collections.unmodifiableList(view.getStringList(property));
+		}
+	}
+
+	/** The base and the scale of a scaled value, as found in the config */
+	private static final class ScaledEntry
+	{
+		private boolean hasBase = false;
+		private float base = 0.0f;
+		private float scale = 0.0f;
+	}
+
+	// Control variables
+	private final HashMap<String, Value> values = new HashMap<String, Value>();
+	private final HashMap<String, ScaledEntry> scaledValues = new HashMap<String, ScaledEntry>();
+
+	/* Initialization */
+	public AbilityParameters(SettingsView view)
+	{
+		for (String property : view.getKeys())
+		{
+			Value value = new Value(view, property);
+			values.put(property, value);
+
+			if (property.startsWith("base") && property.length() > 4)
+			{
+				ScaledEntry entry = getScaledEntry(property.substring(4));
+				entry.hasBase = true;
+				entry.base = value.floatValue;
+			}
+			else if (property.startsWith("scale") && property.length() > 5)
+				getScaledEntry(property.substring(5)).scale = value.floatValue;
+		}
+	}
+
+	/** Returns the scaled value with the given name, creating it if needed */
+	private ScaledEntry getScaledEntry(String name)
+	{
+		ScaledEntry entry = scaledValues.get(name);
+		if (entry == null)
+		{
+			entry = new ScaledEntry();
+			scaledValues.put(name, entry);
+		}
+		return entry;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////////////
+	// GET DATA // GET DATA // GET DATA // GET DATA // GET DATA // GET DATA // GET DATA // GET DATA //
+	// ///////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** Checks if the given property exists */
+	public boolean hasProperty(String propertyName)
+	{
+		return values.containsKey(propertyName);
+	}
+
+	public boolean getBoolean(String propertyName)
+	{
+		Value value = values.get(propertyName);
+		return value == null ? false : value.booleanValue;
+	}
+
+	public int getInteger(String propertyName)
+	{
+		return getInteger(propertyName, 0);
+	}
+
+	public int getInteger(String propertyName, int defaultValue)
+	{
+		Value value = values.get(propertyName);
+		return value == null ? defaultValue : value.integerValue;
+	}
+
+	public float getFloat(String propertyName)
+	{
+		Value value = values.get(propertyName);
+		return value == null ? 0.0f : value.floatValue;
+	}
+
+	public String getString(String propertyName)
+	{
+		Value value = values.get(propertyName);
+		return value == null ? "" : value.stringValue;
+	}
+
+	/** Returns the list with the given name; the list may not be changed */
+	public List<String> getStringList(String propertyName)
+	{
+		Value value = values.get(propertyName);
+		return value == null ? Collections.<String> emptyList() : value.stringListValue;
+	}
+
+	/** Returns a value that is scaled, follows standard name convention (value = baseField + scale * scaleField). The default value is used when there is no base field */
+	public float getScaledValue(String propertyName, float scale, float defaultValue)
+	{
+		ScaledEntry entry = scaledValues.get(propertyName);
+		if (entry == null)
+			return defaultValue;
+		return (entry.hasBase ? entry.base : defaultValue) + scale * entry.scale;
+	}
+
+	/** Returns a handle to a scaled value, follows standard name convention (value = baseField + scale * scaleField). The default value is used when there is no base field */
+	public ScaledValue getScaledValueHandle(String propertyName, float defaultValue)
+	{
+		ScaledEntry entry = scaledValues.get(propertyName);
+		if (entry == null)
+			return new ScaledValue(defaultValue, 0.0f);
+		return new ScaledValue(entry.hasBase ? entry.base : defaultValue, entry.scale);
+	}
+}
@@ -5,7 +5,6 @@ import java.util.List;
 import org.bukkit.entity.LivingEntity;
 
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 
 public abstract class Active extends Ability
 {
@@ -20,9 +19,9 @@ public abstract class Active extends Ability
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		cooldown = (int) (20.0f * settings.getScaledValue(alternative, "Cooldown", scale, 0.0f));
+		cooldown = (int) (20.0f * parameters.getScaledValue("Cooldown", scale, 0.0f));
 		timerCooldown = cooldown;
 	}
 
@@ -35,16 +34,17 @@ public abstract class Active extends Ability
 		{
 			LivingEntity malevolentMob = mob.getEntity();
 
-			// Find a valid target to attack
+			// Find a valid target to attack; the distances have already been measured by the target planner
 			List<LivingEntity> targets = mob.getTargets();
-			for (LivingEntity target : targets)
+			float healthFactor = (float) (malevolentMob.getHealth() / malevolentMob.getMaxHealth());
+			for (int i = 0; i < targets.size(); i++)
 			{
-				if (target.getWorld() != mob.getEntity().getWorld())
+				LivingEntity target = targets.get(i);
+				float distance = mob.getTargetDistance(i);
+				if (Float.isInfinite(distance) || target.getWorld() != malevolentMob.getWorld())
 					continue;
 
 				// Attempt to cast the ability on the target
-				float healthFactor = (float) (malevolentMob.getHealth() / malevolentMob.getMaxHealth());
-				float distance = (float) target.getLocation().distance(malevolentMob.getLocation());
 				if (canCast(healthFactor, distance, target))
 				{
 					timerCooldown = 0;
@@ -60,6 +60,13 @@ public abstract class Active extends Ability
 		}
 	}
 
+	@Override
+	public void advanceTimers(int ticks)
+	{
+		if (timerCooldown < cooldown)
+			timerCooldown = Math.min(cooldown, timerCooldown + ticks);
+	}
+
 	// /////////////////////////////////////////////////////////////////////////////////////////
 
 	/** Conditions required for the active ability to be casted */
@@ -4,7 +4,6 @@ import org.bukkit.Location;
 import org.bukkit.entity.LivingEntity;
 
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 
 /**
  * The active area ability allows an active to affect a specified area
@@ -24,11 +23,11 @@ public abstract class ActiveArea extends Active
 
 	/** Loads up some settings from the configuration file */
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		delay = (int) settings.getScaledValue(alternative, "Delay", scale, 0.0f);
+		delay = (int) parameters.getScaledValue("Delay", scale, 0.0f);
 	}
 
 	@Override
@@ -46,6 +45,14 @@ public abstract class ActiveArea extends Active
 		}
 	}
 
+	@Override
+	public void advanceTimers(int ticks)
+	{
+		super.advanceTimers(ticks);
+		if (delayTimer != -1)
+			delayTimer = Math.min(delay, delayTimer + ticks);
+	}
+
 	@Override
 	public void cast(LivingEntity target)
 	{
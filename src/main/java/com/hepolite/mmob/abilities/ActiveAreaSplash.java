@@ -1,14 +1,12 @@
 package com.hepolite.mmob.abilities;
 
-import java.util.List;
-
 import org.bukkit.Location;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
 
 /**
  * Causes all entities within the area of effect to be affected by the effects of the active, after the delay has passed
@@ -19,6 +17,16 @@ public abstract class ActiveAreaSplash extends ActiveArea
 	private float range = 0.0f;
 	private boolean affectPlayersOnly = true;
 
+	private final Visitor<LivingEntity> splashVisitor = new Visitor<LivingEntity>()
+	{
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			if (entity != mob.getEntity())
+				applyEffect(entity);
+		}
+	};
+
 	/** Initialization */
 	protected ActiveAreaSplash(MalevolentMob mob, String name, Priority priority, float scale)
 	{
@@ -27,26 +35,19 @@ public abstract class ActiveAreaSplash extends ActiveArea
 
 	/** Loads up some settings from the configuration file */
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		range = settings.getScaledValue(alternative, "Range", scale, 0.0f);
-		affectPlayersOnly = settings.getBoolean(alternative, "affectPlayersOnly");
+		range = parameters.getScaledValue("Range", scale, 0.0f);
+		affectPlayersOnly = parameters.getBoolean("affectPlayersOnly");
 	}
 
 	@Override
 	public void applyEffect(Location location)
 	{
 		// Find all entities nearby and hit them, don't hit the caster
-		List<LivingEntity> entities = Common.getEntitiesInRange(location, range);
-		for (LivingEntity entity : entities)
-		{
-			if (entity == mob.getEntity())
-				continue;
-			if (!affectPlayersOnly || entity instanceof Player)
-				applyEffect(entity);
-		}
+		Common.forEachLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), range, EntityFilter.of(affectPlayersOnly), splashVisitor);
 		displayAttack(location, range);
 	}
 	
@@ -1,13 +1,12 @@
 package com.hepolite.mmob.abilities;
 
-import java.util.List;
-
+import org.bukkit.Location;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
 
 /**
  * The splash target will allow an active to perform some logic on all entities within range of the given target
@@ -22,6 +21,16 @@ public abstract class ActiveTargetSplash extends Active
 	protected int delay = 0;
 	private LivingEntity target = null;
 
+	private final Visitor<LivingEntity> splashVisitor = new Visitor<LivingEntity>()
+	{
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			if (entity != mob.getEntity())
+				applyEffect(entity);
+		}
+	};
+
 	/** Initialization */
 	protected ActiveTargetSplash(MalevolentMob mob, String name, Priority priority, float scale)
 	{
@@ -30,14 +39,14 @@ public abstract class ActiveTargetSplash extends Active
 
 	/** Loads up some settings from the configuration file */
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		range = settings.getScaledValue(alternative, "Range", scale, 0.0f);
-		delay = (int) settings.getScaledValue(alternative, "Delay", scale, 0.0f);
+		range = parameters.getScaledValue("Range", scale, 0.0f);
+		delay = (int) parameters.getScaledValue("Delay", scale, 0.0f);
 
-		affectPlayersOnly = settings.getBoolean(alternative, "affectPlayersOnly");
+		affectPlayersOnly = parameters.getBoolean("affectPlayersOnly");
 	}
 
 	@Override
@@ -53,18 +62,20 @@ public abstract class ActiveTargetSplash extends Active
 			delayTimer = -1;
 
 			// Find all entities nearby and hit them, don't hit the caster
-			List<LivingEntity> entities = Common.getEntitiesInRange(target.getLocation(), range);
-			for (LivingEntity entity : entities)
-			{
-				if (entity == mob.getEntity())
-					continue;
-				if (!affectPlayersOnly || entity instanceof Player)
-					applyEffect(entity);
-			}
+			Location location = target.getLocation(scratchLocation);
+			Common.forEachLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), range, EntityFilter.of(affectPlayersOnly), splashVisitor);
 			displayAttack(target, range);
 		}
 	}
 
+	@Override
+	public void advanceTimers(int ticks)
+	{
+		super.advanceTimers(ticks);
+		if (delayTimer != -1)
+			delayTimer = Math.min(delay, delayTimer + ticks);
+	}
+
 	@Override
 	public void cast(LivingEntity target)
 	{
@@ -1,7 +1,6 @@
 package com.hepolite.mmob.abilities;
 
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 
 /**
  * The ticking active applies an effect every specific tick
@@ -23,13 +22,13 @@ public abstract class ActiveTick extends Active
 
 	/** Loads up some settings from the configuration file */
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		repeats = (int) settings.getInteger(alternative, "repeats", -1);
-		startupDelay = (int) settings.getScaledValue(alternative, "StartupDelay", scale, 0.0f);
-		repeatDelay = (int) settings.getScaledValue(alternative, "RepeatDelay", scale, 0.0f);
+		repeats = (int) parameters.getInteger("repeats", -1);
+		startupDelay = (int) parameters.getScaledValue("StartupDelay", scale, 0.0f);
+		repeatDelay = (int) parameters.getScaledValue("RepeatDelay", scale, 0.0f);
 	}
 
 	@Override
@@ -51,6 +50,15 @@ public abstract class ActiveTick extends Active
 		}
 	}
 
+	@Override
+	public void advanceTimers(int ticks)
+	{
+		super.advanceTimers(ticks);
+
+		timerStartup = Math.min(startupDelay, timerStartup + ticks);
+		timerRepeat = Math.min(repeatDelay, timerRepeat + ticks);
+	}
+
 	// ///////////////////////////////////////////////////////////////////////////////////////
 
 	/** Every time the effect of the aura is applied to a target, this method is called */
@@ -0,0 +1,223 @@
+package com.hepolite.mmob.abilities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.LivingEntity;
+
+import com.hepolite.mmob.utility.EntityFilter;
+import com.hepolite.mmob.utility.EntityIndex;
+import com.hepolite.mmob.utility.LongHashMap;
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
+
+/**
+ * The aura engine applies the pulses of all auras at the end of the tick. Auras that pulse close to each other are grouped together, and each group looks up the entities around it only once; every
+ * entity that is found is then checked against every aura in the group. A pack of mobs with auras therefore costs one range query rather than one for each aura. The query of a group only covers the
+ * sphere around the centre of its pulses that just holds the range of every pulse, and a group with a single pulse looks up exactly what the pulse would have on its own. The auras of a mob are
+ * already spread out over different ticks by the mob they belong to, so the engine only has to gather up the pulses of the current tick
+ */
+public class AuraEngine
+{
+	private final static int CLUSTER_SHIFT = 5;		// Groups are 32 blocks across
+
+	// Control variables
+	private final static List<Pulse> pulses = new ArrayList<Pulse>();	// Grows as needed; the objects are reused every tick
+	private static int pulseCount = 0;
+
+	private final static HashMap<UUID, LongHashMap<Cluster>> clusters = new HashMap<UUID, LongHashMap<Cluster>>();
+	private final static List<Cluster> usedClusters = new ArrayList<Cluster>();
+	private final static List<Cluster> freeClusters = new ArrayList<Cluster>();
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Applies every pulse of the current tick */
+	public static void onTick()
+	{
+		if (pulseCount == 0)
+			return;
+
+		// Sort the pulses into groups
+		for (int i = 0; i < pulseCount; i++)
+			getCluster(pulses.get(i)).add(pulses.get(i));
+
+		// Look for entities around each group, and let every aura in the group have a go at them
+		for (int i = 0; i < usedClusters.size(); i++)
+			usedClusters.get(i).apply();
+
+		// Clean up for the next tick
+		for (int i = 0; i < pulseCount; i++)
+			pulses.get(i).clear();
+		pulseCount = 0;
+		for (int i = 0; i < usedClusters.size(); i++)
+		{
+			Cluster cluster = usedClusters.get(i);
+			cluster.clear();
+			freeClusters.add(cluster);
+		}
+		usedClusters.clear();
+		for (LongHashMap<Cluster> worldClusters : clusters.values())
+			worldClusters.clear();
+	}
+
+	/** Lets the given aura affect every entity that passes the filter and is within the given range of the given position, at the end of the tick */
+	public static void pulse(PassiveAura aura, Location location, double range, EntityFilter filter)
+	{
+		if (pulseCount == pulses.size())
+			pulses.add(new Pulse());
+		Pulse pulse = pulses.get(pulseCount++);
+		pulse.aura = aura;
+		pulse.world = location.getWorld();
+		pulse.x = location.getX();
+		pulse.y = location.getY();
+		pulse.z = location.getZ();
+		pulse.range = range;
+		pulse.filter = filter;
+	}
+
+	/** Forgets about all pulses and groups */
+	public static void clear()
+	{
+		for (int i = 0; i < pulseCount; i++)
+			pulses.get(i).clear();
+		pulseCount = 0;
+		for (int i = 0; i < usedClusters.size(); i++)
+		{
+			Cluster cluster = usedClusters.get(i);
+			cluster.clear();
+			freeClusters.add(cluster);
+		}
+		usedClusters.clear();
+		clusters.clear();
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the group the given pulse belongs in */
+	private static Cluster getCluster(Pulse pulse)
+	{
+		LongHashMap<Cluster> worldClusters = clusters.get(pulse.world.getUID());
+		if (worldClusters == null)
+		{
+			worldClusters = new LongHashMap<Cluster>();
+			clusters.put(pulse.world.getUID(), worldClusters);
+		}
+
+		int cellX = (int) Math.floor(pulse.x) >> CLUSTER_SHIFT;
+		int cellY = (int) Math.floor(pulse.y) >> CLUSTER_SHIFT;
+		int cellZ = (int) Math.floor(pulse.z) >> CLUSTER_SHIFT;
+		long key = ((long) (cellX & 0x1FFFFF) << 42) | ((long) (cellY & 0x1FFFFF) << 21) | (cellZ & 0x1FFFFF);
+		Cluster cluster = worldClusters.get(key);
+		if (cluster == null)
+		{
+			cluster = freeClusters.isEmpty() ? new Cluster() : freeClusters.remove(freeClusters.size() - 1);
+			cluster.begin(pulse.world);
+			worldClusters.put(key, cluster);
+			usedClusters.add(cluster);
+		}
+		return cluster;
+	}
+
+	/** A single pulse of an aura */
+	private static final class Pulse
+	{
+		private PassiveAura aura = null;
+		private World world = null;
+		private double x, y, z;
+		private double range;
+		private EntityFilter filter = EntityFilter.ALL;
+
+		/** Releases the aura and the world once the tick is over */
+		private void clear()
+		{
+			aura = null;
+			world = null;
+		}
+	}
+
+	/** The pulses that are close to each other, along with what they need to look for */
+	private static final class Cluster implements Visitor<LivingEntity>
+	{
+		private final List<Pulse> pulses = new ArrayList<Pulse>();
+		private final Location scratchLocation = new Location(null, 0.0, 0.0, 0.0);
+		private World world = null;
+		private double sumX, sumY, sumZ;
+		private EntityFilter filter = null;		// The filter all pulses have in common, or ALL if they differ
+
+		/** Prepares the group for the given world */
+		private void begin(World world)
+		{
+			this.world = world;
+			sumX = sumY = sumZ = 0.0;
+			filter = null;
+		}
+
+		/** Adds the pulse to the group */
+		private void add(Pulse pulse)
+		{
+			pulses.add(pulse);
+			sumX += pulse.x;
+			sumY += pulse.y;
+			sumZ += pulse.z;
+			filter = (filter == null || filter == pulse.filter) ? pulse.filter : EntityFilter.ALL;
+		}
+
+		/** Looks up the entities around the group once, and applies all pulses to them */
+		private void apply()
+		{
+			if (pulses.size() == 1)
+			{
+				Pulse pulse = pulses.get(0);
+				if (pulse.range > 0.0)
+					EntityIndex.forEachInRange(world, pulse.x, pulse.y, pulse.z, pulse.range, pulse.filter, this);
+				return;
+			}
+
+			// The sphere around the centre of the pulses that reaches as far as every one of them
+			double centerX = sumX / pulses.size(), centerY = sumY / pulses.size(), centerZ = sumZ / pulses.size();
+			double radius = 0.0;
+			for (int i = 0; i < pulses.size(); i++)
+			{
+				Pulse pulse = pulses.get(i);
+				if (pulse.range <= 0.0)
+					continue;
+				double dx = pulse.x - centerX;
+				double dy = pulse.y - centerY;
+				double dz = pulse.z - centerZ;
+				radius = Math.max(radius, Math.sqrt(dx * dx + dy * dy + dz * dz) + pulse.range);
+			}
+			if (radius > 0.0)
+				EntityIndex.forEachInRange(world, centerX, centerY, centerZ, radius, filter, this);
+		}
+
+		/** Releases the pulses once the tick is over */
+		private void clear()
+		{
+			pulses.clear();
+			world = null;
+		}
+
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			Location location = entity.getLocation(scratchLocation);
+			for (int i = 0; i < pulses.size(); i++)
+			{
+				Pulse pulse = pulses.get(i);
+				if (!pulse.filter.accepts(entity))
+					continue;
+
+				double dx = location.getX() - pulse.x;
+				double dy = location.getY() - pulse.y;
+				double dz = location.getZ() - pulse.z;
+				if (dx * dx + dy * dy + dz * dz < pulse.range * pulse.range)
+					pulse.aura.applyAuraEffect(entity);
+			}
+		}
+	}
+}
@@ -1,17 +1,13 @@
 package com.hepolite.mmob.abilities;
 
-import java.util.List;
-
 import org.bukkit.Location;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
-import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
 
 /**
- * An aura will affect all entities within the range once every second. The effects will be determined by the children of the aura class
+ * An aura will affect all entities within the range once every second. The effects will be determined by the children of the aura class, and are applied by the aura engine at the end of the tick
  */
 public abstract class PassiveAura extends Passive
 {
@@ -19,7 +15,6 @@ public abstract class PassiveAura extends Passive
 	protected float range = 0.0f;
 	protected boolean affectPlayersOnly = true;
 
-	private int tickTimer = 0;
 	protected int updateTime = 20;
 
 	/** Initialization */
@@ -30,32 +25,28 @@ public abstract class PassiveAura extends Passive
 
 	/** Loads up some settings from the configuration file */
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		range = settings.getScaledValue(alternative, "Range", scale, 0.0f);
+		range = parameters.getScaledValue("Range", scale, 0.0f);
 
-		affectPlayersOnly = settings.getBoolean(alternative, "affectPlayersOnly");
+		affectPlayersOnly = parameters.getBoolean("affectPlayersOnly");
 	}
 
 	@Override
-	public void onTick()
+	public int getTickInterval()
 	{
-		// Apply the effects only every second
-		if (++tickTimer >= updateTime)
-		{
-			tickTimer = 0;
+		// The aura is only applied once every update time
+		return Math.max(1, updateTime);
+	}
 
-			// Apply the effect to every entity in range
-			List<LivingEntity> entities = Common.getEntitiesInRange(mob.getEntity().getLocation(), range);
-			for (LivingEntity entity : entities)
-			{
-				if (!affectPlayersOnly || (entity instanceof Player))
-					applyAuraEffect(entity);
-			}
+	@Override
+	public void onTick()
+	{
+		// Apply the effect to every entity in range; this happens at the end of the tick, along with all other auras
+		AuraEngine.pulse(this, mob.getEntity().getLocation(scratchLocation), range, EntityFilter.of(affectPlayersOnly));
 
-			// Display things
-			displayAura(mob.getEntity().getEyeLocation(), range);
-		}
+		// Display things
+		displayAura(mob.getEntity().getEyeLocation(), range);
 	}
 
 	// ///////////////////////////////////////////////////////////////////////////////////////
@@ -8,10 +8,10 @@ import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveAreaSplash;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
-import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.DamageQueue;
 import com.hepolite.mmob.utility.FireworksEffect;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
@@ -30,12 +30,12 @@ public class ActiveBlazingPillar extends ActiveAreaSplash
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		strength = settings.getScaledValue(alternative, "Strength", scale, 0.0f);
-		duration = (int) settings.getScaledValue(alternative, "Duration", scale, 0.0f);
+		strength = parameters.getScaledValue("Strength", scale, 0.0f);
+		duration = (int) parameters.getScaledValue("Duration", scale, 0.0f);
 	}
 
 	@Override
@@ -47,7 +47,7 @@ public class ActiveBlazingPillar extends ActiveAreaSplash
 	@Override
 	public void applyEffect(LivingEntity target)
 	{
-		Common.doDamage(strength, target, mob.getEntity(), DamageCause.FIRE);
+		DamageQueue.doDamage(strength, target, mob.getEntity(), DamageCause.FIRE);
 		target.setFireTicks(duration);
 	}
 
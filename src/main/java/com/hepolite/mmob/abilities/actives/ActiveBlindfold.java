@@ -8,9 +8,9 @@ import org.bukkit.entity.LivingEntity;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveAreaSplash;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.FireworksEffect;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
@@ -25,11 +25,11 @@ public class ActiveBlindfold extends ActiveAreaSplash
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		duration = (int) settings.getScaledValue(alternative, "Duration", scale, 0.0f);
+		duration = (int) parameters.getScaledValue("Duration", scale, 0.0f);
 	}
 
 	@Override
@@ -1,15 +1,14 @@
 package com.hepolite.mmob.abilities.actives;
 
-import java.util.List;
-
+import org.bukkit.Location;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Monster;
 import org.bukkit.event.entity.EntityDamageEvent;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Active;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
 
 /**
  * The decoy ability will spawn a series of decoys that are all similar to the true mob, except they die on taking any damage
@@ -28,14 +27,14 @@ public class ActiveDecoy extends Active
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		count = (int) settings.getScaledValue(alternative, "Count", scale, 0.0f);
+		count = (int) parameters.getScaledValue("Count", scale, 0.0f);
 
-		maxSearchDistance = settings.getFloat(alternative, "searchRadius");
-		maxEntityCount = settings.getInteger(alternative, "maxEntityCount");
+		maxSearchDistance = parameters.getFloat("searchRadius");
+		maxEntityCount = parameters.getInteger("maxEntityCount");
 	}
 
 	// TODO: Override onDie and kill all decoys there
@@ -47,6 +46,13 @@ public class ActiveDecoy extends Active
 		timeSinceLastAttack++;
 	}
 
+	@Override
+	public void advanceTimers(int ticks)
+	{
+		super.advanceTimers(ticks);
+		timeSinceLastAttack += ticks;
+	}
+
 	@Override
 	public boolean canCast(float healthFactor, float distanceToTarget, LivingEntity target)
 	{
@@ -64,8 +70,8 @@ public class ActiveDecoy extends Active
 	public void cast(LivingEntity target)
 	{
 		// Make sure that there's not too many mobs nearby
-		List<Monster> nearbyMonsters = Common.getMonstersInRange(mob.getEntity().getLocation(), maxSearchDistance);
-		if (nearbyMonsters.size() >= maxEntityCount)
+		Location location = mob.getEntity().getLocation(scratchLocation);
+		if (Common.countLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), maxSearchDistance, EntityFilter.MONSTERS) >= maxEntityCount)
 			return;
 
 		// Spawn the decoys
@@ -2,11 +2,11 @@ package com.hepolite.mmob.abilities.actives;
 
 import org.bukkit.entity.LivingEntity;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveProjectile;
 import com.hepolite.mmob.mobs.MalevolentMob;
 import com.hepolite.mmob.projectiles.Projectile;
 import com.hepolite.mmob.projectiles.ProjectileFireball;
-import com.hepolite.mmob.settings.Settings;
 
 /**
  * The fireball sends away a projectile that will home in on the target it has specified
@@ -26,16 +26,16 @@ public class ActiveFireball extends ActiveProjectile
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
-
-		projectileSpeed = settings.getScaledValue(alternative, "Speed", scale, 0.0f);
-		projectileTurnFactor = settings.getScaledValue(alternative, "TurnFactor", scale, 0.0f);
-		projectileStrength = settings.getScaledValue(alternative, "Strength", scale, 0.0f);
-		projectileDuration = (int) settings.getScaledValue(alternative, "Duration", scale, 0.0f);
-		projectileRange = settings.getScaledValue(alternative, "Range", scale, 0.0f);
-		affectPlayersOnly = settings.getBoolean(alternative, "affectPlayersOnly");
+		super.loadFromConfig(parameters);
+
+		projectileSpeed = parameters.getScaledValue("Speed", scale, 0.0f);
+		projectileTurnFactor = parameters.getScaledValue("TurnFactor", scale, 0.0f);
+		projectileStrength = parameters.getScaledValue("Strength", scale, 0.0f);
+		projectileDuration = (int) parameters.getScaledValue("Duration", scale, 0.0f);
+		projectileRange = parameters.getScaledValue("Range", scale, 0.0f);
+		affectPlayersOnly = parameters.getBoolean("affectPlayersOnly");
 	}
 
 	@Override
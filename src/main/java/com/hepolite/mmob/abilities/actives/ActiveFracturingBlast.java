@@ -2,11 +2,11 @@ package com.hepolite.mmob.abilities.actives;
 
 import org.bukkit.entity.LivingEntity;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveProjectile;
 import com.hepolite.mmob.mobs.MalevolentMob;
 import com.hepolite.mmob.projectiles.Projectile;
 import com.hepolite.mmob.projectiles.ProjectileBoltFracturingBlast;
-import com.hepolite.mmob.settings.Settings;
 
 public class ActiveFracturingBlast extends ActiveProjectile
 {
@@ -21,14 +21,14 @@ public class ActiveFracturingBlast extends ActiveProjectile
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		projectileSpeed = settings.getScaledValue(alternative, "Speed", scale, 0.0f);
-		projectileStrength = (int) settings.getScaledValue(alternative, "Strength", scale, 0.0f);
-		projectileRange = settings.getScaledValue(alternative, "Range", scale, 0.0f);
-		affectPlayersOnly = settings.getBoolean(alternative, "affectPlayersOnly");
+		projectileSpeed = parameters.getScaledValue("Speed", scale, 0.0f);
+		projectileStrength = (int) parameters.getScaledValue("Strength", scale, 0.0f);
+		projectileRange = parameters.getScaledValue("Range", scale, 0.0f);
+		affectPlayersOnly = parameters.getBoolean("affectPlayersOnly");
 	}
 
 	@Override
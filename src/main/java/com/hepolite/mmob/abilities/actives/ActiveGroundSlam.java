@@ -1,18 +1,18 @@
 package com.hepolite.mmob.abilities.actives;
 
-import java.util.List;
-
 import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 import org.bukkit.util.Vector;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Active;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.DamageQueue;
+import com.hepolite.mmob.utility.EntityFilter;
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
 
 /**
  * The ground slam active will cause the mob to jump towards its enemies; when landing, it will knock the enemies up into the air and deal damage
@@ -28,22 +28,40 @@ public class ActiveGroundSlam extends Active
 	private float maxRange = 0.0f;
 	private boolean affectPlayersOnly = true;
 
+	private final Visitor<LivingEntity> slamVisitor = new Visitor<LivingEntity>()
+	{
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			if (!entity.isOnGround())
+				return;
+
+			float multiplier = 1.0f;
+			float distance = (float) Math.sqrt(distanceSquared);
+			if (distance > minRange)
+				multiplier = (maxRange - distance) / (maxRange - minRange);
+
+			entity.setVelocity(entity.getVelocity().add(new Vector(0.0, knockupStrength * multiplier, 0.0)));
+			DamageQueue.doDamage(strength * multiplier, entity, mob.getEntity(), DamageCause.ENTITY_ATTACK);
+		}
+	};
+
 	public ActiveGroundSlam(MalevolentMob mob, float scale)
 	{
 		super(mob, "Ground Slam", Priority.NORMAL, scale);
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		strength = settings.getScaledValue(alternative, "Strength", scale, 0.0f);
-		knockupStrength = settings.getScaledValue(alternative, "Knockup", scale, 0.0f);
-		maxRange = settings.getScaledValue(alternative, "Range", scale, 0.0f);
+		strength = parameters.getScaledValue("Strength", scale, 0.0f);
+		knockupStrength = parameters.getScaledValue("Knockup", scale, 0.0f);
+		maxRange = parameters.getScaledValue("Range", scale, 0.0f);
 		minRange = 0.5f * maxRange;
 
-		affectPlayersOnly = settings.getBoolean(alternative, "affectPlayersOnly");
+		affectPlayersOnly = parameters.getBoolean("affectPlayersOnly");
 	}
 
 	@Override
@@ -92,23 +110,8 @@ public class ActiveGroundSlam extends Active
 				mob.getEntity().getWorld().playSound(mob.getEntity().getLocation(), Sound.ENTITY_FIREWORK_LARGE_BLAST, 1.0f, 0.0f);
 
 				// Knock up all entities in range, that are standing on the ground
-				List<LivingEntity> entities = Common.getEntitiesInRange(mob.getEntity().getLocation(), maxRange);
-				for (LivingEntity entity : entities)
-				{
-					if (!entity.isOnGround())
-						continue;
-
-					float multiplier = 1.0f;
-					float distance = (float) mob.getEntity().getLocation().distance(entity.getLocation());
-					if (distance > minRange)
-						multiplier = (maxRange - distance) / (maxRange - minRange);
-
-					if (!affectPlayersOnly || entity instanceof Player)
-					{
-						entity.setVelocity(entity.getVelocity().add(new Vector(0.0, knockupStrength * multiplier, 0.0)));
-						Common.doDamage(strength * multiplier, entity, mob.getEntity(), DamageCause.ENTITY_ATTACK);
-					}
-				}
+				Location location = mob.getEntity().getLocation(scratchLocation);
+				Common.forEachLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), maxRange, EntityFilter.of(affectPlayersOnly), slamVisitor);
 			}
 			inAirTimer = -1;
 			onGround = true;
@@ -1,18 +1,16 @@
 package com.hepolite.mmob.abilities.actives;
 
-import java.util.List;
-
 import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Monster;
-import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerTeleportEvent.TeleportCause;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Active;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
+import com.hepolite.mmob.utility.EntityIndex;
 
 /**
  * The kidnap ability allows the mob to teleport away with the target, taking it somewhere else
@@ -28,12 +26,12 @@ public class ActiveKidnap extends Active
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		minDistance = settings.getScaledValue(alternative, "MinDistance", scale, 0.0f);
-		maxDistance = settings.getScaledValue(alternative, "MaxDistance", scale, 0.0f);
+		minDistance = parameters.getScaledValue("MinDistance", scale, 0.0f);
+		maxDistance = parameters.getScaledValue("MaxDistance", scale, 0.0f);
 	}
 
 	@Override
@@ -43,12 +41,13 @@ public class ActiveKidnap extends Active
 			return false;
 
 		// Figure out what the conditions are around the point of interest, run away with a player if applicable
-		List<Player> playersNearby = Common.getPlayersInRange(mob.getEntity().getLocation(), 25.0f);
-		List<Monster> entitiesNearby = Common.getMonstersInRange(mob.getEntity().getLocation(), 25.0f);
+		Location location = mob.getEntity().getLocation(scratchLocation);
+		int playersNearby = Common.countLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), 25.0, EntityFilter.PLAYERS);
+		int entitiesNearby = Common.countLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), 25.0, EntityFilter.MONSTERS);
 
-		if (entitiesNearby.size() == 0 || playersNearby.size() >= 3)
+		if (entitiesNearby == 0 || playersNearby >= 3)
 			return true;
-		return ((float) playersNearby.size() / (float) entitiesNearby.size() > 0.6f);
+		return ((float) playersNearby / (float) entitiesNearby > 0.6f);
 	}
 
 	@Override
@@ -60,7 +59,9 @@ public class ActiveKidnap extends Active
 		Location location = mob.getEntity().getLocation().add(distance * Math.sin(direction), 0.0, distance * Math.cos(direction));
 		location = Common.getSafeLocation(location);
 		target.getWorld().playSound(target.getLocation(), Sound.ENTITY_ENDERMEN_TELEPORT, 1.0f, 0.0f);
+		Location targetLocation = target.getLocation();
 		target.teleport(location, TeleportCause.PLUGIN);
+		EntityIndex.onEntityTeleport(targetLocation, location);
 		target.getWorld().playSound(location, Sound.ENTITY_ENDERMEN_TELEPORT, 1.0f, 0.0f);
 
 		// Find a position that is safe and teleport the self there
@@ -68,8 +69,10 @@ public class ActiveKidnap extends Active
 		direction = random.nextDouble() * 2.0 * Math.PI;
 		location = location.add(distance * Math.sin(direction), 0.0, distance * Math.cos(direction));
 		location = Common.getSafeLocation(location);
-		target.getWorld().playSound(mob.getEntity().getLocation(), Sound.ENTITY_ENDERMEN_TELEPORT, 1.0f, 0.0f);
+		Location mobLocation = mob.getEntity().getLocation();
+		target.getWorld().playSound(mobLocation, Sound.ENTITY_ENDERMEN_TELEPORT, 1.0f, 0.0f);
 		mob.getEntity().teleport(location, TeleportCause.PLUGIN);
+		EntityIndex.onEntityTeleport(mobLocation, location);
 		target.getWorld().playSound(location, Sound.ENTITY_ENDERMEN_TELEPORT, 1.0f, 0.0f);
 	}
 }
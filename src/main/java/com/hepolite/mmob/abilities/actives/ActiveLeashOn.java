@@ -3,9 +3,9 @@ package com.hepolite.mmob.abilities.actives;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Active;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 
 /**
  * The leash on active allows the mob to attach itself to the target entity; it will only let go when dead, or the entity has landed on the ground
@@ -26,13 +26,13 @@ public class ActiveLeashOn extends Active
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		range = settings.getScaledValue(alternative, "Range", scale, 0.0f);
+		range = parameters.getScaledValue("Range", scale, 0.0f);
 		range = Math.min(10.0f, range);
-		duration = (int) settings.getScaledValue(alternative, "Duration", scale, 0.0f);
+		duration = (int) parameters.getScaledValue("Duration", scale, 0.0f);
 	}
 
 	@Override
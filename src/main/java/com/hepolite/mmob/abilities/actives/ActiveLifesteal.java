@@ -5,9 +5,9 @@ import org.bukkit.entity.LivingEntity;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 import org.bukkit.event.entity.EntityRegainHealthEvent.RegainReason;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Active;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
@@ -30,16 +30,16 @@ public class ActiveLifesteal extends Active
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		strength = settings.getScaledValue(alternative, "Strength", scale, 0.0f);
-		range = settings.getScaledValue(alternative, "Range", scale, 0.0f);
-		requiredHealthFactor = settings.getScaledValue(alternative, "RequiredHealthFactor", scale, 0.0f);
-		damageToHealthFactor = settings.getScaledValue(alternative, "DamageToHealthFactor", scale, 0.0f);
+		strength = parameters.getScaledValue("Strength", scale, 0.0f);
+		range = parameters.getScaledValue("Range", scale, 0.0f);
+		requiredHealthFactor = parameters.getScaledValue("RequiredHealthFactor", scale, 0.0f);
+		damageToHealthFactor = parameters.getScaledValue("DamageToHealthFactor", scale, 0.0f);
 
-		damageType = settings.getString(alternative, "damageType");
+		damageType = parameters.getString("damageType");
 	}
 
 	@Override
@@ -4,9 +4,9 @@ import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveArea;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
@@ -26,14 +26,14 @@ public class ActiveMagicBlast extends ActiveArea
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		strength = settings.getScaledValue(alternative, "Strength", scale, 0.0f);
-		range = settings.getScaledValue(alternative, "Range", scale, 0.0f);
+		strength = parameters.getScaledValue("Strength", scale, 0.0f);
+		range = parameters.getScaledValue("Range", scale, 0.0f);
 
-		affectPlayersOnly = settings.getBoolean(alternative, "affectPlayersOnly");
+		affectPlayersOnly = parameters.getBoolean("affectPlayersOnly");
 	}
 
 	@Override
@@ -8,9 +8,9 @@ import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveTick;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
@@ -34,12 +34,12 @@ public class ActiveMagicMirror extends ActiveTick
 	}
 	
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 		
-		strength = (int) settings.getScaledValue(alternative, "Strength", scale, 0.0f);
-		shieldCooldown = (int) settings.getScaledValue(alternative, "ShieldCooldown", scale, 0.0f);
+		strength = (int) parameters.getScaledValue("Strength", scale, 0.0f);
+		shieldCooldown = (int) parameters.getScaledValue("ShieldCooldown", scale, 0.0f);
 		cooldownTimer = shieldCooldown;
 	}
 
@@ -76,6 +76,13 @@ public class ActiveMagicMirror extends ActiveTick
 		}
 	}
 	
+	@Override
+	public void advanceTimers(int ticks)
+	{
+		super.advanceTimers(ticks);
+		cooldownTimer = Math.max(0, cooldownTimer - ticks);
+	}
+	
 	@Override
 	public void onAttacked(EntityDamageEvent event)
 	{
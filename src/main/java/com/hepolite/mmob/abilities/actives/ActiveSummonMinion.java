@@ -6,9 +6,9 @@ import org.bukkit.Location;
 import org.bukkit.entity.LivingEntity;
 
 import com.hepolite.mmob.MMobListener;
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveTick;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
@@ -30,13 +30,13 @@ public class ActiveSummonMinion extends ActiveTick
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 		repeats = 1;
 
-		count = (int) settings.getScaledValue(alternative, "Count", scale, 0.0f);
-		entityTypes = settings.getStringList(alternative, "types");
+		count = (int) parameters.getScaledValue("Count", scale, 0.0f);
+		entityTypes = parameters.getStringList("types");
 
 		locations = new Location[count];
 	}
@@ -10,10 +10,11 @@ import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 import org.bukkit.event.player.PlayerTeleportEvent.TeleportCause;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Active;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityIndex;
 
 /**
  * The teleport ability will teleport the malevolent mob to some location, or teleport other hostile entities around
@@ -36,14 +37,14 @@ public class ActiveTeleport extends Active
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		minDistance = settings.getScaledValue(alternative, "MinDistance", scale, 0.0f);
-		maxDistance = settings.getScaledValue(alternative, "MaxDistance", scale, 0.0f);
+		minDistance = parameters.getScaledValue("MinDistance", scale, 0.0f);
+		maxDistance = parameters.getScaledValue("MaxDistance", scale, 0.0f);
 
-		maxSearchDistance = settings.getFloat(alternative, "searchRadius");
+		maxSearchDistance = parameters.getFloat("searchRadius");
 	}
 
 	@Override
@@ -94,6 +95,7 @@ public class ActiveTeleport extends Active
 			targetLocation.getWorld().playSound(targetLocation, Sound.ENTITY_ENDERMEN_TELEPORT, 1.0f, 0.0f);
 			mobLocation.getWorld().playSound(mobLocation, Sound.ENTITY_ENDERMEN_TELEPORT, 1.0f, 0.0f);
 			mob.getEntity().teleport(targetLocation, TeleportCause.PLUGIN);
+			EntityIndex.onEntityTeleport(mobLocation, targetLocation);
 		}
 	}
 
@@ -104,6 +106,13 @@ public class ActiveTeleport extends Active
 		timeWithoutRequestingSafeTeleport++;
 	}
 
+	@Override
+	public void advanceTimers(int ticks)
+	{
+		super.advanceTimers(ticks);
+		timeWithoutRequestingSafeTeleport += ticks;
+	}
+
 	@Override
 	public void onAttacked(EntityDamageEvent event)
 	{
@@ -3,11 +3,11 @@ package com.hepolite.mmob.abilities.actives;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveProjectile;
 import com.hepolite.mmob.mobs.MalevolentMob;
 import com.hepolite.mmob.projectiles.Projectile;
 import com.hepolite.mmob.projectiles.ProjectileBoltToxic;
-import com.hepolite.mmob.settings.Settings;
 
 /**
  * The toxic spit involves several blobs of toxic being spit towards the target, dealing poison damage
@@ -29,18 +29,18 @@ public class ActiveToxicSpit extends ActiveProjectile
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		projectileSpeed = settings.getScaledValue(alternative, "Speed", scale, 0.0f);
-		projectileStrength = (int) settings.getScaledValue(alternative, "Strength", scale, 0.0f);
-		projectileDuration = (int) settings.getScaledValue(alternative, "Duration", scale, 0.0f);
-		projectileRange = settings.getScaledValue(alternative, "Range", scale, 0.0f);
-		projectileInaccuracy = settings.getScaledValue(alternative, "Inaccuracy", scale, 0.0f);
-		affectPlayersOnly = settings.getBoolean(alternative, "affectPlayersOnly");
+		projectileSpeed = parameters.getScaledValue("Speed", scale, 0.0f);
+		projectileStrength = (int) parameters.getScaledValue("Strength", scale, 0.0f);
+		projectileDuration = (int) parameters.getScaledValue("Duration", scale, 0.0f);
+		projectileRange = parameters.getScaledValue("Range", scale, 0.0f);
+		projectileInaccuracy = parameters.getScaledValue("Inaccuracy", scale, 0.0f);
+		affectPlayersOnly = parameters.getBoolean("affectPlayersOnly");
 
-		count = (int) settings.getScaledValue(alternative, "Count", scale, 0.0f);
+		count = (int) parameters.getScaledValue("Count", scale, 0.0f);
 	}
 
 	@Override
@@ -3,11 +3,11 @@ package com.hepolite.mmob.abilities.actives;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveProjectile;
 import com.hepolite.mmob.mobs.MalevolentMob;
 import com.hepolite.mmob.projectiles.Projectile;
 import com.hepolite.mmob.projectiles.ProjectileArrow;
-import com.hepolite.mmob.settings.Settings;
 
 /**
  * The volley involves several arrows being fired towards the target
@@ -26,15 +26,15 @@ public class ActiveVolley extends ActiveProjectile
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		projectileSpeed = settings.getScaledValue(alternative, "Speed", scale, 0.0f);
-		projectileInaccuracy = settings.getScaledValue(alternative, "Inaccuracy", scale, 0.0f);
+		projectileSpeed = parameters.getScaledValue("Speed", scale, 0.0f);
+		projectileInaccuracy = parameters.getScaledValue("Inaccuracy", scale, 0.0f);
 
-		count = (int) settings.getScaledValue(alternative, "Count", scale, 0.0f);
-		affectedByGravity = settings.getBoolean(alternative, "affectedByGravity");
+		count = (int) parameters.getScaledValue("Count", scale, 0.0f);
+		affectedByGravity = parameters.getBoolean("affectedByGravity");
 	}
 
 	@Override
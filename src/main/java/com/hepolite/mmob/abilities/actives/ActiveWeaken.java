@@ -10,9 +10,9 @@ import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
 import com.hepolite.mmob.Log;
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Active;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 
 public class ActiveWeaken extends Active
 {
@@ -26,14 +26,14 @@ public class ActiveWeaken extends Active
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		effectsToApply = (int) settings.getScaledValue(alternative, "Count", scale, 0.0f);
+		effectsToApply = (int) parameters.getScaledValue("Count", scale, 0.0f);
 
 		// Read up all the potion effects
-		List<String> effects = settings.getStringList(alternative, "effects");
+		List<String> effects = parameters.getStringList("effects");
 		for (String effect : effects)
 		{
 			String[] components = effect.split("=");
@@ -3,13 +3,13 @@ package com.hepolite.mmob.abilities.actives;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Sound;
-import org.bukkit.block.Block;
 import org.bukkit.entity.LivingEntity;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveArea;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.BlockManager;
+import com.hepolite.mmob.utility.SurfaceCache;
 
 public class ActiveWebbing extends ActiveArea
 {
@@ -24,15 +24,15 @@ public class ActiveWebbing extends ActiveArea
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 		delay = 0;
 
-		range = (int) settings.getScaledValue(alternative, "Range", scale, 0.0f);
-		count = (int) settings.getScaledValue(alternative, "Count", scale, 0.0f);
-		radius = (int) settings.getScaledValue(alternative, "Radius", scale, 0.0f);
-		duration = (int) settings.getScaledValue(alternative, "Duration", scale, 0.0f);
+		range = (int) parameters.getScaledValue("Range", scale, 0.0f);
+		count = (int) parameters.getScaledValue("Count", scale, 0.0f);
+		radius = (int) parameters.getScaledValue("Radius", scale, 0.0f);
+		duration = (int) parameters.getScaledValue("Duration", scale, 0.0f);
 	}
 
 	@Override
@@ -62,51 +62,8 @@ public class ActiveWebbing extends ActiveArea
 				{
 					if (x * x + z * z + random.nextInt(3) < radius * radius)
 					{
-						// Find the ground, if possible
-						boolean foundGround = false;
-						int y = location.getBlockY();
-						for (int j = 0; i >= -radius; j--)
-						{
-							Block block = location.getWorld().getBlockAt(location.getBlockX() + x, y + j, location.getBlockZ() + z);
-							if (block.getType().isSolid())
-							{
-								y += j + 1;
-								foundGround = true;
-								break;
-							}
-						}
-						// If the ground wasn't found, try to find the ceiling
-						if (!foundGround)
-						{
-							for (int j = 1; i <= radius; j++)
-							{
-								Block block = location.getWorld().getBlockAt(location.getBlockX() + x, y + j, location.getBlockZ() + z);
-								if (block.getType().isSolid())
-								{
-									y += j - 1;
-									break;
-								}
-							}
-						}
-
-						// If inside something, find an open spot
-						for (int j = 0; i <= radius; j++)
-						{
-							// Find something above
-							Block block = location.getWorld().getBlockAt(location.getBlockX() + x, y + j, location.getBlockZ() + z);
-							if (!block.getType().isSolid())
-							{
-								y += j;
-								break;
-							}
-							// Find something below
-							block = location.getWorld().getBlockAt(location.getBlockX() + x, y - j, location.getBlockZ() + z);
-							if (!block.getType().isSolid())
-							{
-								y -= j;
-								break;
-							}
-						}
+						// Attach the web to the ground or the ceiling
+						int y = SurfaceCache.getAttachmentHeight(location.getWorld(), location.getBlockX() + x, location.getBlockY(), location.getBlockZ() + z, radius);
 
 						// Change the block if it is relevant
 						if (random.nextFloat() < 0.75f)
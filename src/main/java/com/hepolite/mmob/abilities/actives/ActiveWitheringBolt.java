@@ -4,11 +4,11 @@ import org.bukkit.Color;
 import org.bukkit.FireworkEffect.Builder;
 import org.bukkit.entity.LivingEntity;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.ActiveProjectile;
 import com.hepolite.mmob.mobs.MalevolentMob;
 import com.hepolite.mmob.projectiles.Projectile;
 import com.hepolite.mmob.projectiles.ProjectileBoltWither;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.FireworksEffect;
 
 /**
@@ -28,15 +28,15 @@ public class ActiveWitheringBolt extends ActiveProjectile
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		projectileSpeed = settings.getScaledValue(alternative, "Speed", scale, 0.0f);
-		projectileStrength = (int) settings.getScaledValue(alternative, "Strength", scale, 0.0f);
-		projectileDuration = (int) settings.getScaledValue(alternative, "Duration", scale, 0.0f);
-		projectileRange = settings.getScaledValue(alternative, "Range", scale, 0.0f);
-		affectPlayersOnly = settings.getBoolean(alternative, "affectPlayersOnly");
+		projectileSpeed = parameters.getScaledValue("Speed", scale, 0.0f);
+		projectileStrength = (int) parameters.getScaledValue("Strength", scale, 0.0f);
+		projectileDuration = (int) parameters.getScaledValue("Duration", scale, 0.0f);
+		projectileRange = parameters.getScaledValue("Range", scale, 0.0f);
+		affectPlayersOnly = parameters.getBoolean("affectPlayersOnly");
 	}
 
 	@Override
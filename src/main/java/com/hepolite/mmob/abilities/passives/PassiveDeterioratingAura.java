@@ -9,10 +9,10 @@ import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.PassiveAura;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
-import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.DamageQueue;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
 
@@ -31,9 +31,9 @@ public class PassiveDeterioratingAura extends PassiveAura
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 		affectPlayersOnly = true;
 	}
 
@@ -61,9 +61,12 @@ public class PassiveDeterioratingAura extends PassiveAura
 			double oldHealth = playerHealthMap.get(player);
 			if (entity.getHealth() > oldHealth && entity.getHealth() <= oldHealth + 1.0)
 			{
-				// Take health from the player and heal self
+				// Take health from the player and heal self; the damage is dealt at the end of the tick, so the health of the player is looked at again the next time
 				double healedAmount = entity.getHealth() - oldHealth;
-				Common.doDamage(healedAmount, entity, mob.getEntity(), DamageCause.MAGIC);
+				DamageQueue.doDamage(healedAmount, entity, mob.getEntity(), DamageCause.MAGIC);
+				playerHealthMap.remove(player);
+				playersInRange.add(player);
+				return;
 			}
 		}
 
@@ -3,9 +3,9 @@ package com.hepolite.mmob.abilities.passives;
 import org.bukkit.Sound;
 import org.bukkit.event.entity.EntityDamageEvent;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.PassiveTick;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
 
 /**
@@ -23,13 +23,13 @@ public class PassiveExoskeleton extends PassiveTick
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 		repeats = -1;
 		
-		regeneration = settings.getScaledValue(alternative, "Regeneration", scale, 0.0f);
-		maxStrength = settings.getScaledValue(alternative, "Strength", scale, 0.0f);
+		regeneration = parameters.getScaledValue("Regeneration", scale, 0.0f);
+		maxStrength = parameters.getScaledValue("Strength", scale, 0.0f);
 		strength = maxStrength;
 	}
 
@@ -6,10 +6,10 @@ import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.PassiveAura;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
-import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.DamageQueue;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
 
@@ -30,14 +30,14 @@ public class PassiveFreezingAura extends PassiveAura
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		ticksToDamage = (int) settings.getScaledValue(alternative, "Delay", scale, 0.0f);
-		damage = settings.getScaledValue(alternative, "Damage", scale, 1.0f);
+		ticksToDamage = (int) parameters.getScaledValue("Delay", scale, 0.0f);
+		damage = parameters.getScaledValue("Damage", scale, 1.0f);
 
-		float strength = settings.getScaledValue(alternative, "Strength", scale, 1.0f);
+		float strength = parameters.getScaledValue("Strength", scale, 1.0f);
 		effect = new PotionEffect(PotionEffectType.SLOW, 50, (int) strength - 1);
 	}
 
@@ -46,7 +46,7 @@ public class PassiveFreezingAura extends PassiveAura
 	{
 		entity.addPotionEffect(effect);
 		if (currentTick >= ticksToDamage)
-			Common.doDamage(damage, entity, mob.getEntity(), DamageCause.MAGIC);
+			DamageQueue.doDamage(damage, entity, mob.getEntity(), DamageCause.MAGIC);
 	}
 
 	@Override
@@ -4,9 +4,9 @@ import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.event.entity.EntityDamageEvent;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Passive;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
 
@@ -24,9 +24,9 @@ public class PassiveGuardianAngel extends Passive
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		lives = (int) settings.getScaledValue(alternative, "Lives", scale, 1.0f);
+		lives = (int) parameters.getScaledValue("Lives", scale, 1.0f);
 	}
 
 	@Override
@@ -1,15 +1,18 @@
 package com.hepolite.mmob.abilities.passives;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import org.bukkit.entity.Monster;
+import org.bukkit.Location;
+import org.bukkit.entity.LivingEntity;
 import org.bukkit.event.entity.EntityRegainHealthEvent;
 import org.bukkit.event.entity.EntityRegainHealthEvent.RegainReason;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Passive;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
 
 /**
  * The healer passive means that any health regeneration that would have taken place is passed on to damaged mobs in the vicinity
@@ -21,17 +24,19 @@ public class PassiveHealer extends Passive
 	private float healRate = 0.0f;
 	private float healthMultiplier = 0.0f;
 
+	private final List<LivingEntity> monsters = new ArrayList<LivingEntity>();	// Reused every time the healing is passed on
+
 	public PassiveHealer(MalevolentMob mob, float scale)
 	{
 		super(mob, "Healer", Priority.HIGH, scale);
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		range = settings.getScaledValue(alternative, "Range", scale, 0.0f);
-		healRate = settings.getScaledValue(alternative, "HealRate", scale, 0.0f);
-		healthMultiplier = settings.getScaledValue(alternative, "HealthMultiplier", scale, 0.0f);
+		range = parameters.getScaledValue("Range", scale, 0.0f);
+		healRate = parameters.getScaledValue("HealRate", scale, 0.0f);
+		healthMultiplier = parameters.getScaledValue("HealthMultiplier", scale, 0.0f);
 	}
 
 	@Override
@@ -54,9 +59,12 @@ public class PassiveHealer extends Passive
 		healAmount *= healthMultiplier;
 		if (healAmount > 0.0)
 		{
-			List<Monster> monsters = Common.getMonstersInRange(mob.getEntity().getLocation(), range);
-			for (Monster monster : monsters)
+			Location location = mob.getEntity().getLocation(scratchLocation);
+			monsters.clear();
+			Common.collectLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), range, EntityFilter.MONSTERS, monsters);
+			for (int i = 0; i < monsters.size(); i++)
 			{
+				LivingEntity monster = monsters.get(i);
 				if (monster == mob.getEntity() || monster.isDead() || !monster.isValid())
 					continue;
 				if (monster.getHealth() < monster.getMaxHealth())
@@ -69,6 +77,7 @@ public class PassiveHealer extends Passive
 						break;
 				}
 			}
+			monsters.clear();
 		}
 	}
 }
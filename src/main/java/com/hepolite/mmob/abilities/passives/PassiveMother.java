@@ -1,15 +1,13 @@
 package com.hepolite.mmob.abilities.passives;
 
-import java.util.List;
-
-import org.bukkit.entity.Monster;
-import org.bukkit.entity.Player;
+import org.bukkit.Location;
 
 import com.hepolite.mmob.MMobListener;
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.PassiveTick;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
 
@@ -30,26 +28,25 @@ public class PassiveMother extends PassiveTick
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		minGroupSize = settings.getInteger(alternative, "minGroupSize");
-		maxGroupSize = settings.getInteger(alternative, "maxGroupSize");
+		minGroupSize = parameters.getInteger("minGroupSize");
+		maxGroupSize = parameters.getInteger("maxGroupSize");
 
-		maxSearchDistance = settings.getFloat(alternative, "searchRadius");
-		maxEntityCount = settings.getInteger(alternative, "maxEntityCount");
+		maxSearchDistance = parameters.getFloat("searchRadius");
+		maxEntityCount = parameters.getInteger("maxEntityCount");
 	}
 
 	@Override
 	protected void applyTickEffect()
 	{
 		// Make sure there's players nearby and that there's not too many mobs nearby
-		List<Player> nearbyPlayers = Common.getPlayersInRange(mob.getEntity().getLocation(), maxSearchDistance);
-		if (nearbyPlayers.size() == 0)
+		Location location = mob.getEntity().getLocation(scratchLocation);
+		if (Common.countLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), maxSearchDistance, EntityFilter.PLAYERS) == 0)
 			return;
-		List<Monster> nearbyMonsters = Common.getMonstersInRange(mob.getEntity().getLocation(), maxSearchDistance);
-		if (nearbyMonsters.size() >= maxEntityCount)
+		if (Common.countLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), maxSearchDistance, EntityFilter.MONSTERS) >= maxEntityCount)
 			return;
 
 		// Spawn some children
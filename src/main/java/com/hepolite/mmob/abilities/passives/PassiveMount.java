@@ -7,10 +7,10 @@ import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 
 import com.hepolite.mmob.MMobListener;
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Passive;
 import com.hepolite.mmob.handlers.MobHandler;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
 
 /**
@@ -28,10 +28,10 @@ public class PassiveMount extends Passive
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		type = settings.getString(alternative, "type");
-		role = settings.getString(alternative, "role");
+		type = parameters.getString("type");
+		role = parameters.getString("role");
 	}
 
 	@Override
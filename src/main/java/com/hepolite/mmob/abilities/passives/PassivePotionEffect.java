@@ -6,9 +6,9 @@ import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
 import com.hepolite.mmob.Log;
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.PassiveTick;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 
 /**
  * The potion effect passive allows a potion effect to continuously be applied to the given mob
@@ -23,20 +23,20 @@ public class PassivePotionEffect extends PassiveTick
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
 		// Create a new potion effect
 		PotionEffectType type = null;
 		try
 		{
-			type = PotionEffectType.getByName(settings.getString(alternative, "effect"));
-			effect = new PotionEffect(type, (int) settings.getScaledValue(alternative, "Duration", scale, 0.0f), (int) settings.getScaledValue(alternative, "Strength", scale, 0.0f) - 1);
+			type = PotionEffectType.getByName(parameters.getString("effect"));
+			effect = new PotionEffect(type, (int) parameters.getScaledValue("Duration", scale, 0.0f), (int) parameters.getScaledValue("Strength", scale, 0.0f) - 1);
 		}
 		catch (Exception exception)
 		{
-			Log.log("Attempted to load up invalid potion effect type '" + settings.getString(alternative, "effect") + "'", Level.WARNING);
+			Log.log("Attempted to load up invalid potion effect type '" + parameters.getString("effect") + "'", Level.WARNING);
 			return;
 		}
 	}
@@ -3,9 +3,9 @@ package com.hepolite.mmob.abilities.passives;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.event.entity.EntityDamageEvent;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.PassiveTick;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 
 /**
  * The regeneration effect allows mobs to regenerate health over time, even during combat
@@ -20,11 +20,11 @@ public class PassiveRegeneration extends PassiveTick
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 
-		regeneration = settings.getScaledValue(alternative, "Regeneration", scale, 0.0f);
+		regeneration = parameters.getScaledValue("Regeneration", scale, 0.0f);
 	}
 
 	@Override
@@ -2,9 +2,9 @@ package com.hepolite.mmob.abilities.passives;
 
 import org.bukkit.event.entity.EntityDamageEvent;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Passive;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 
 public class PassiveShielding extends Passive
 {
@@ -16,9 +16,9 @@ public class PassiveShielding extends Passive
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		strength = settings.getScaledValue(alternative, "Strength", scale, 0.0f);
+		strength = parameters.getScaledValue("Strength", scale, 0.0f);
 	}
 
 	@Override
@@ -10,10 +10,11 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 import org.bukkit.event.entity.EntityRegainHealthEvent.RegainReason;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.PassiveAura;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.DamageQueue;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
 
@@ -34,12 +35,12 @@ public class PassiveVampirism extends PassiveAura
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		super.loadFromConfig(settings, alternative);
+		super.loadFromConfig(parameters);
 		affectPlayersOnly = true;
 
-		sensitivity = settings.getScaledValue(alternative, "Sensitivity", scale, 0.0f);
+		sensitivity = parameters.getScaledValue("Sensitivity", scale, 0.0f);
 	}
 
 	@Override
@@ -66,10 +67,13 @@ public class PassiveVampirism extends PassiveAura
 			double oldHealth = playerHealthMap.get(player);
 			if (entity.getHealth() >= oldHealth + sensitivity)
 			{
-				// Take health from the player and heal self
+				// Take health from the player and heal self; the damage is dealt at the end of the tick, so the health of the player is looked at again the next time
 				double healedAmount = entity.getHealth() - oldHealth;
-				Common.doDamage(healedAmount, entity, mob.getEntity(), DamageCause.MAGIC);
+				DamageQueue.doDamage(healedAmount, entity, mob.getEntity(), DamageCause.MAGIC);
 				Common.doHeal(healedAmount, mob.getEntity(), RegainReason.MAGIC);
+				playerHealthMap.remove(player);
+				playersInRange.add(player);
+				return;
 			}
 		}
 
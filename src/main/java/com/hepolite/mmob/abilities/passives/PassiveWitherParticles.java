@@ -4,10 +4,10 @@ import org.bukkit.Location;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
+import com.hepolite.mmob.abilities.AbilityParameters;
 import com.hepolite.mmob.abilities.Passive;
 import com.hepolite.mmob.mobs.MalevolentMob;
 import com.hepolite.mmob.projectiles.ProjectilePotionEffect;
-import com.hepolite.mmob.settings.Settings;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
 
 /**
@@ -32,13 +32,13 @@ public class PassiveWitherParticles extends Passive
 	}
 
 	@Override
-	public void loadFromConfig(Settings settings, Settings alternative)
+	public void loadFromConfig(AbilityParameters parameters)
 	{
-		particleCount = (int) settings.getScaledValue(alternative, "ParticleCount", scale, 1.0f);
-		affectPlayersOnly = settings.getBoolean(alternative, "affectPlayersOnly");
+		particleCount = (int) parameters.getScaledValue("ParticleCount", scale, 1.0f);
+		affectPlayersOnly = parameters.getBoolean("affectPlayersOnly");
 
-		float strength = settings.getScaledValue(alternative, "Strength", scale, 1.0f);
-		int duration = (int) settings.getScaledValue(alternative, "Duration", scale, 0.0f);
+		float strength = parameters.getScaledValue("Strength", scale, 1.0f);
+		int duration = (int) parameters.getScaledValue("Duration", scale, 0.0f);
 		PotionEffect effect = new PotionEffect(PotionEffectType.WITHER, duration, (int) strength - 1);
 
 		// Generate all the particles
@@ -53,7 +53,7 @@ public class PassiveWitherParticles extends Passive
 			particleTargets[i] = mob.getEntity().getEyeLocation();
 			particleYaw[i] = 2.0f * (float) Math.PI * random.nextFloat();
 			particlePitch[i] = 2.0f * (float) Math.PI * random.nextFloat();
-			particleDistance[i] = 1.0f + random.nextFloat() * (settings.getScaledValue(alternative, "Range", scale, 0.0f) - 1.0f);
+			particleDistance[i] = 1.0f + random.nextFloat() * (parameters.getScaledValue("Range", scale, 0.0f) - 1.0f);
 		}
 	}
 
@@ -1,5 +1,9 @@
 package com.hepolite.mmob.handlers;
 
+import java.util.HashMap;
+
+import com.hepolite.mmob.ConfigGeneration;
+import com.hepolite.mmob.abilities.Ability;
 import com.hepolite.mmob.abilities.Active;
 import com.hepolite.mmob.abilities.Passive;
 import com.hepolite.mmob.abilities.actives.ActiveBlazingPillar;
@@ -41,108 +45,385 @@ import com.hepolite.mmob.abilities.passives.PassiveVampirism;
 import com.hepolite.mmob.abilities.passives.PassiveWitherAura;
 import com.hepolite.mmob.abilities.passives.PassiveWitherParticles;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.settings.Settings;
-import com.hepolite.mmob.settings.SettingsAbilities;
 
+/**
+ * The ability handler knows how to create every ability, by name. The names are mapped to factories when the plugin starts, and the abilities that are disabled in their config files are sorted out
+ * by the configuration generation, such that creating an ability is a single lookup
+ */
 public class AbilityHandler
 {
-	/** Returns a new instance of a passive ability, based on name */
-	public static Passive getPassive(MalevolentMob mob, String name)
+	/** Creates new instances of one type of ability */
+	public interface Factory<T extends Ability>
 	{
-		Settings settings = SettingsAbilities.getPassiveConfig(name);
-		if (!settings.getBoolean("enable"))
-			return null;
+		/** Returns a new instance of the ability, belonging to the given mob */
+		public T create(MalevolentMob mob, float scale);
+	}
 
-		Passive passive = null;
-		if (name.equals("Fire_Aura"))
-			passive = new PassiveFireAura(mob, mob.getLevel());
-		else if (name.equals("Wither_Aura"))
-			passive = new PassiveWitherAura(mob, mob.getLevel());
-		else if (name.equals("Poison_Mist"))
-			passive = new PassivePoisonMist(mob, mob.getLevel());
-		else if (name.equals("Exoskeleton"))
-			passive = new PassiveExoskeleton(mob, mob.getLevel());
-		else if (name.equals("Mother"))
-			passive = new PassiveMother(mob, mob.getLevel());
-		else if (name.equals("Guardian_Angel"))
-			passive = new PassiveGuardianAngel(mob, mob.getLevel());
-		else if (name.equals("Regeneration"))
-			passive = new PassiveRegeneration(mob, mob.getLevel());
-		else if (name.equals("Potion_Effect"))
-			passive = new PassivePotionEffect(mob, mob.getLevel());
-		else if (name.equals("Explosion"))
-			passive = new PassiveExplosion(mob, mob.getLevel());
-		else if (name.equals("Vampirism"))
-			passive = new PassiveVampirism(mob, mob.getLevel());
-		else if (name.equals("Deteriorating_Aura"))
-			passive = new PassiveDeterioratingAura(mob, mob.getLevel());
-		else if (name.equals("Wither_Particles"))
-			passive = new PassiveWitherParticles(mob, mob.getLevel());
-		else if (name.equals("Freezing_Aura"))
-			passive = new PassiveFreezingAura(mob, mob.getLevel());
-		else if (name.equals("Mount"))
-			passive = new PassiveMount(mob, mob.getLevel());
-		else if (name.equals("Healer"))
-			passive = new PassiveHealer(mob, mob.getLevel());
-		else if (name.equals("Shielding"))
-			passive = new PassiveShielding(mob, mob.getLevel());
+	// Control variables
+	private final static HashMap<String, Factory<Passive>> passiveFactories = new HashMap<String, Factory<Passive>>();
+	private final static HashMap<String, Factory<Active>> activeFactories = new HashMap<String, Factory<Active>>();
 
-		return passive;
+	/* Initialization */
+	static
+	{
+		registerPassive("Fire_Aura", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveFireAura(mob, scale);
+			}
+		});
+		registerPassive("Wither_Aura", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveWitherAura(mob, scale);
+			}
+		});
+		registerPassive("Poison_Mist", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassivePoisonMist(mob, scale);
+			}
+		});
+		registerPassive("Exoskeleton", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveExoskeleton(mob, scale);
+			}
+		});
+		registerPassive("Mother", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveMother(mob, scale);
+			}
+		});
+		registerPassive("Guardian_Angel", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveGuardianAngel(mob, scale);
+			}
+		});
+		registerPassive("Regeneration", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveRegeneration(mob, scale);
+			}
+		});
+		registerPassive("Potion_Effect", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassivePotionEffect(mob, scale);
+			}
+		});
+		registerPassive("Explosion", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveExplosion(mob, scale);
+			}
+		});
+		registerPassive("Vampirism", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveVampirism(mob, scale);
+			}
+		});
+		registerPassive("Deteriorating_Aura", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveDeterioratingAura(mob, scale);
+			}
+		});
+		registerPassive("Wither_Particles", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveWitherParticles(mob, scale);
+			}
+		});
+		registerPassive("Freezing_Aura", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveFreezingAura(mob, scale);
+			}
+		});
+		registerPassive("Mount", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveMount(mob, scale);
+			}
+		});
+		registerPassive("Healer", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveHealer(mob, scale);
+			}
+		});
+		registerPassive("Shielding", new Factory<Passive>()
+		{
+			@Override
+			public Passive create(MalevolentMob mob, float scale)
+			{
+				return new PassiveShielding(mob, scale);
+			}
+		});
+
+		registerActive("Lifesteal", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveLifesteal(mob, scale);
+			}
+		});
+		registerActive("Blazing_Pillar", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveBlazingPillar(mob, scale);
+			}
+		});
+		registerActive("Fire_Burst", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveFireBurst(mob, scale);
+			}
+		});
+		registerActive("Magic_Mirror", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveMagicMirror(mob, scale);
+			}
+		});
+		registerActive("Magic_Blast", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveMagicBlast(mob, scale);
+			}
+		});
+		registerActive("Virulent_Grasp", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveVirulentGrasp(mob, scale);
+			}
+		});
+		registerActive("Ground_Slam", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveGroundSlam(mob, scale);
+			}
+		});
+		registerActive("Fireball", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveFireball(mob, scale);
+			}
+		});
+		registerActive("Leash_On", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveLeashOn(mob, scale);
+			}
+		});
+		registerActive("Lightning_Strike", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveLightningStrike(mob, scale);
+			}
+		});
+		registerActive("Withering_Bolt", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveWitheringBolt(mob, scale);
+			}
+		});
+		registerActive("Weaken", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveWeaken(mob, scale);
+			}
+		});
+		registerActive("Toxic_Spit", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveToxicSpit(mob, scale);
+			}
+		});
+		registerActive("Summon_Minion", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveSummonMinion(mob, scale);
+			}
+		});
+		registerActive("Fracturing_Blast", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveFracturingBlast(mob, scale);
+			}
+		});
+		registerActive("Kidnap", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveKidnap(mob, scale);
+			}
+		});
+		registerActive("Webbing", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveWebbing(mob, scale);
+			}
+		});
+		registerActive("Decoy", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveDecoy(mob, scale);
+			}
+		});
+		registerActive("Teleport", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveTeleport(mob, scale);
+			}
+		});
+		registerActive("Volley", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveVolley(mob, scale);
+			}
+		});
+		registerActive("Grenade", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveGrenade(mob, scale);
+			}
+		});
+		registerActive("Blindfold", new Factory<Active>()
+		{
+			@Override
+			public Active create(MalevolentMob mob, float scale)
+			{
+				return new ActiveBlindfold(mob, scale);
+			}
+		});
 	}
 
-	/** Returns a new instance of an active ability, based on name */
-	public static Active getActive(MalevolentMob mob, String name)
+	/** Adds the factory of a passive ability to the registry */
+	private static void registerPassive(String name, Factory<Passive> factory)
+	{
+		passiveFactories.put(name, factory);
+	}
+
+	/** Adds the factory of an active ability to the registry */
+	private static void registerActive(String name, Factory<Active> factory)
+	{
+		activeFactories.put(name, factory);
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the factory of the passive ability with the given name, or null if there is no such ability or it is disabled */
+	public static Factory<Passive> getPassiveFactory(String name)
+	{
+		return getPassiveFactory(ConfigGeneration.getCurrent(), name);
+	}
+
+	/** Returns the factory of the passive ability with the given name, or null if there is no such ability or it is disabled in the given configuration generation */
+	public static Factory<Passive> getPassiveFactory(ConfigGeneration generation, String name)
+	{
+		return generation.isPassiveEnabled(name) ? passiveFactories.get(name) : null;
+	}
+
+	/** Returns the factory of the active ability with the given name, or null if there is no such ability or it is disabled */
+	public static Factory<Active> getActiveFactory(String name)
+	{
+		return getActiveFactory(ConfigGeneration.getCurrent(), name);
+	}
+
+	/** Returns the factory of the active ability with the given name, or null if there is no such ability or it is disabled in the given configuration generation */
+	public static Factory<Active> getActiveFactory(ConfigGeneration generation, String name)
 	{
-		Settings settings = SettingsAbilities.getActiveConfig(name);
-		if (!settings.getBoolean("enable"))
-			return null;
+		return generation.isActiveEnabled(name) ? activeFactories.get(name) : null;
+	}
 
-		Active active = null;
-		if (name.equals("Lifesteal"))
-			active = new ActiveLifesteal(mob, mob.getLevel());
-		else if (name.equals("Blazing_Pillar"))
-			active = new ActiveBlazingPillar(mob, mob.getLevel());
-		else if (name.equals("Fire_Burst"))
-			active = new ActiveFireBurst(mob, mob.getLevel());
-		else if (name.equals("Magic_Mirror"))
-			active = new ActiveMagicMirror(mob, mob.getLevel());
-		else if (name.equals("Magic_Blast"))
-			active = new ActiveMagicBlast(mob, mob.getLevel());
-		else if (name.equals("Virulent_Grasp"))
-			active = new ActiveVirulentGrasp(mob, mob.getLevel());
-		else if (name.equals("Ground_Slam"))
-			active = new ActiveGroundSlam(mob, mob.getLevel());
-		else if (name.equals("Fireball"))
-			active = new ActiveFireball(mob, mob.getLevel());
-		else if (name.equals("Leash_On"))
-			active = new ActiveLeashOn(mob, mob.getLevel());
-		else if (name.equals("Lightning_Strike"))
-			active = new ActiveLightningStrike(mob, mob.getLevel());
-		else if (name.equals("Withering_Bolt"))
-			active = new ActiveWitheringBolt(mob, mob.getLevel());
-		else if (name.equals("Weaken"))
-			active = new ActiveWeaken(mob, mob.getLevel());
-		else if (name.equals("Toxic_Spit"))
-			active = new ActiveToxicSpit(mob, mob.getLevel());
-		else if (name.equals("Summon_Minion"))
-			active = new ActiveSummonMinion(mob, mob.getLevel());
-		else if (name.equals("Fracturing_Blast"))
-			active = new ActiveFracturingBlast(mob, mob.getLevel());
-		else if (name.equals("Kidnap"))
-			active = new ActiveKidnap(mob, mob.getLevel());
-		else if (name.equals("Webbing"))
-			active = new ActiveWebbing(mob, mob.getLevel());
-		else if (name.equals("Decoy"))
-			active = new ActiveDecoy(mob, mob.getLevel());
-		else if (name.equals("Teleport"))
-			active = new ActiveTeleport(mob, mob.getLevel());
-		else if (name.equals("Volley"))
-			active = new ActiveVolley(mob, mob.getLevel());
-		else if (name.equals("Grenade"))
-			active = new ActiveGrenade(mob, mob.getLevel());
-		else if (name.equals("Blindfold"))
-			active = new ActiveBlindfold(mob, mob.getLevel());
+	/** Returns a new instance of a passive ability, based on name */
+	public static Passive getPassive(MalevolentMob mob, String name)
+	{
+		Factory<Passive> factory = getPassiveFactory(name);
+		return factory == null ? null : factory.create(mob, mob.getLevel());
+	}
 
-		return active;
+	/** Returns a new instance of an active ability, based on name */
+	public static Active getActive(MalevolentMob mob, String name)
+	{
+		Factory<Active> factory = getActiveFactory(name);
+		return factory == null ? null : factory.create(mob, mob.getLevel());
 	}
 }
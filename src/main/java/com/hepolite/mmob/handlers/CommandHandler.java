@@ -16,6 +16,7 @@ import com.hepolite.mmob.intructions.InstructionDungeon;
 import com.hepolite.mmob.intructions.InstructionHelp;
 import com.hepolite.mmob.intructions.InstructionItemEffect;
 import com.hepolite.mmob.intructions.InstructionMob;
+import com.hepolite.mmob.intructions.InstructionProfile;
 import com.hepolite.mmob.intructions.InstructionReloadConfig;
 import com.hepolite.mmob.intructions.InstructionRepair;
 import com.hepolite.mmob.intructions.InstructionRestart;
@@ -37,6 +38,7 @@ public class CommandHandler
 		registerInstruction(new InstructionRepair());
 		registerInstruction(new InstructionDungeon());
 		registerInstruction(new InstructionMob());
+		registerInstruction(new InstructionProfile());
 	}
 
 	// ///////////////////////////////////////////////////////////////////////////////////////
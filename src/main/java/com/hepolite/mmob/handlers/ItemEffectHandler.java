@@ -66,6 +66,7 @@ import com.hepolite.mmob.settings.SettingsItemEffects;
 import com.hepolite.mmob.utility.NBTAPI;
 import com.hepolite.mmob.utility.NBTAPI.NBTList;
 import com.hepolite.mmob.utility.NBTAPI.NBTTag;
+import com.hepolite.mmob.utility.Profiler;
 import com.sucy.skill.api.skills.Skill;
 
 public class ItemEffectHandler
@@ -180,7 +181,11 @@ public class ItemEffectHandler
 			if (item != null)
 			{
 				for (ItemEffect effect : getItemEffects(item))
+				{
+					long startTime = Profiler.startSample();
 					effect.onTick(player, item);
+					Profiler.stopSample(effect.getClass(), "onTick", startTime);
+				}
 			}
 		}
 
@@ -193,7 +198,11 @@ public class ItemEffectHandler
 				for (ItemEffect effect : getItemEffects(item))
 				{
 					if (!effect.mustBeWorn())
+					{
+						long startTime = Profiler.startSample();
 						effect.onTick(player, item);
+						Profiler.stopSample(effect.getClass(), "onTick", startTime);
+					}
 				}
 			}
 		}
@@ -204,7 +213,11 @@ public class ItemEffectHandler
 	{
 		ItemStack item = event.getItem();
 		for (ItemEffect effect : getItemEffects(item))
+		{
+			long startTime = Profiler.startSample();
 			effect.onLeftClick(event, player, item);
+			Profiler.stopSample(effect.getClass(), "onLeftClick", startTime);
+		}
 	}
 
 	/** Handles the case where a player is right-clicking */
@@ -212,7 +225,11 @@ public class ItemEffectHandler
 	{
 		ItemStack item = event.getItem();
 		for (ItemEffect effect : getItemEffects(item))
+		{
+			long startTime = Profiler.startSample();
 			effect.onRightClick(event, player, item);
+			Profiler.stopSample(effect.getClass(), "onRightClick", startTime);
+		}
 	}
 
 	/** Handles the case where a player is damaged */
@@ -224,7 +241,11 @@ public class ItemEffectHandler
 		for (ItemStack item : items)
 		{
 			for (ItemEffect effect : getItemEffects(item))
+			{
+				long startTime = Profiler.startSample();
 				effect.onAttacked(event, player, item);
+				Profiler.stopSample(effect.getClass(), "onAttacked", startTime);
+			}
 		}
 	}
 
@@ -251,7 +272,11 @@ public class ItemEffectHandler
 
 		// Apply effects based on that item
 		for (ItemEffect effect : getItemEffects(item))
+		{
+			long startTime = Profiler.startSample();
 			effect.onAttacking(event, player, item);
+			Profiler.stopSample(effect.getClass(), "onAttacking", startTime);
+		}
 	}
 
 	/** Handles the case where a player fires an arrow */
@@ -259,7 +284,11 @@ public class ItemEffectHandler
 	{
 		ItemStack item = event.getBow();
 		for (ItemEffect effect : getItemEffects(item))
+		{
+			long startTime = Profiler.startSample();
 			effect.onFireArrow(event, player, item);
+			Profiler.stopSample(effect.getClass(), "onFireArrow", startTime);
+		}
 	}
 
 	/** Handles the case where a player breaks a block */
@@ -267,7 +296,11 @@ public class ItemEffectHandler
 	{
 		ItemStack item = player.getEquipment().getItemInMainHand();
 		for (ItemEffect effect : getItemEffects(item))
+		{
+			long startTime = Profiler.startSample();
 			effect.onBlockBreak(event, player, item);
+			Profiler.stopSample(effect.getClass(), "onBlockBreak", startTime);
+		}
 	}
 
 	// ////////////////////////////////////////////////////////////////////////////////////
@@ -1,21 +1,28 @@
 package com.hepolite.mmob.handlers;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
 import java.util.logging.Level;
 
 import me.confuser.barapi.BarAPI;
 
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 
+import com.hepolite.mmob.GeneralSettings;
 import com.hepolite.mmob.Log;
 import com.hepolite.mmob.MMobPlugin;
 import com.hepolite.mmob.mobs.MalevolentMob;
-import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.mobs.MobActivationTracker;
+import com.hepolite.mmob.mobs.MobWorld;
+import com.hepolite.mmob.mobs.TargetPlanner;
+import com.hepolite.mmob.utility.SpatialGrid;
 
 /**
  * This class takes care of processing the malevolent mobs, keeping track of them and making sure that they are all valid. Invalid mobs will also be removed by this class
@@ -23,10 +30,22 @@ import com.hepolite.mmob.utility.Common;
 public class MobHandler
 {
 	// Control variables
-	private final static HashMap<LivingEntity, MalevolentMob> mobMap = new HashMap<LivingEntity, MalevolentMob>();
-	private final static List<MalevolentMob> mobsToAdd = new LinkedList<MalevolentMob>();
+	private final static HashMap<UUID, MobWorld> worlds = new HashMap<UUID, MobWorld>();
+	private final static List<MobWorld> worldList = new ArrayList<MobWorld>();	// The same worlds as above, in a form that can be iterated without allocating
+	private final static List<MalevolentMob> mobsToRemove = new ArrayList<MalevolentMob>();	// Reused every tick
+	private final static List<MalevolentMob> mobsToPlan = new ArrayList<MalevolentMob>();	// Reused every tick
+	private final static MobActivationTracker activationTracker = new MobActivationTracker();
+	private final static TargetPlanner targetPlanner = new TargetPlanner();
+
+	// The boss bars are shown based on a grid of the mobs in each world, and only sent to the players when something changes
+	private final static HashMap<UUID, SpatialGrid<MalevolentMob>> bossBarGrids = new HashMap<UUID, SpatialGrid<MalevolentMob>>();
+	private final static HashMap<UUID, BossBarState> bossBarStates = new HashMap<UUID, BossBarState>();
+	private final static NearestMobFinder nearestMobFinder = new NearestMobFinder();
+	private final static Location scratchLocation = new Location(null, 0.0, 0.0, 0.0);
+	private static int bossBarUpdateNumber = 0;
 
 	private static int timerUpdateHealthbar = 0;
+	private static int timerUpdateActivation = 0;
 
 	// ///////////////////////////////////////////////////////////////////////////////////////
 	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
@@ -35,82 +54,240 @@ public class MobHandler
 	/** Called each and every tick to carry out core logic */
 	public static void onTick()
 	{
-		// Add new mobs
-		for (MalevolentMob mob : mobsToAdd)
-			mobMap.put(mob.getEntity(), mob);
-		mobsToAdd.clear();
+		GeneralSettings settings = MMobPlugin.getSettings().getGeneral();
+
+		// Find out where the players are, such that mobs far away from everyone can go dormant and worlds without anyone can go idle
+		if (--timerUpdateActivation < 0)
+		{
+			timerUpdateActivation = 20;
+			activationTracker.update(settings.activationRange);
+			updateWorldsWithPlayers();
+		}
 
-		// Update all mobs and remove invalid mobs
-		List<MalevolentMob> mobsToRemove = new LinkedList<MalevolentMob>();
-		for (MalevolentMob mob : mobMap.values())
+		// Update as many mobs in each world as the budget of the world allows and remove invalid mobs
+		for (int i = 0; i < worldList.size(); i++)
 		{
-			if (mob.getEntity().isValid() && mob.getRole() != null)
-				mob.onTick();
-			else
-				mobsToRemove.add(mob);
+			MobWorld world = worldList.get(i);
+			world.onTick(mobsToRemove, settings.getTickBudget(world.getWorldName()));
 		}
-		for (MalevolentMob mob : mobsToRemove)
+		for (int i = 0; i < mobsToRemove.size(); i++)
 		{
-			mobMap.remove(mob.getEntity());
-			if (mob.getRole() == null)
+			if (mobsToRemove.get(i).getRole() == null)
 				Log.log("Detected a mob with no role! Check your config file and make sure it is valid!", Level.WARNING);
 		}
+		mobsToRemove.clear();
+
+		// Figure out what the mobs should be targeting, using the worker threads if there are any
+		for (int i = 0; i < worldList.size(); i++)
+		{
+			if (!worldList.get(i).isIdle())
+				worldList.get(i).collectMobs(mobsToPlan);
+		}
+		targetPlanner.setThreadCount(settings.plannerThreads);
+		targetPlanner.onTick(mobsToPlan, settings.targetAquireDistance, settings.targetLoseDistance);
+		mobsToPlan.clear();
 
 		// Send the player boss bar to each nearby player
-		if (++timerUpdateHealthbar > MMobPlugin.getSettings().getInteger("General.Bossbar.mobHealthbarUpdateTime"))
+		if (++timerUpdateHealthbar > settings.mobHealthbarUpdateTime)
 		{
 			timerUpdateHealthbar = 0;
-			for (Player player : Bukkit.getServer().getOnlinePlayers())
-				updatePlayerBossBar(player);
+			updateBossBars(settings.mobHealthbarDistance);
 		}
 	}
 
 	/** Called everytime the plugin goes through a full restart */
 	public final static void onRestart()
 	{
-		mobMap.clear();
-		mobsToAdd.clear();
+		for (int i = 0; i < worldList.size(); i++)
+			worldList.get(i).clear();
+		worlds.clear();
+		worldList.clear();
+		activationTracker.clear();
+		targetPlanner.clear();
+		bossBarGrids.clear();
+		removeBossBars(null);
+		bossBarStates.clear();
+		timerUpdateActivation = 0;
 	}
 
-	/** Updates the boss health bar for the given player */
-	private static void updatePlayerBossBar(Player player)
+	/** Called when the plugin is disabled, stops all worker threads */
+	public final static void onDisable()
+	{
+		targetPlanner.shutdown();
+	}
+
+	/** Called when a world is unloaded, forgets about everything in that world */
+	public final static void onWorldUnload(World world)
 	{
-		// Dead player must have the boss bar removed to prevent issues
-		if (player.isDead())
+		MobWorld mobWorld = worlds.remove(world.getUID());
+		if (mobWorld != null)
 		{
-			BarAPI.removeBar(player);
-			return;
+			worldList.remove(mobWorld);
+			mobWorld.clear();
 		}
+		activationTracker.removeWorld(world.getUID());
+		bossBarGrids.remove(world.getUID());
+		removeBossBars(world);
+	}
 
-		// Find nearest malevolent mob
-		double shortestDistance = -1.0f;
-		LivingEntity nearestEntity = null;
-		List<LivingEntity> mobs = Common.getMalevolentMobsInRange(player.getLocation(), MMobPlugin.getSettings().getInteger("General.Bossbar.mobHealthbarDistance"));
-		for (LivingEntity mob : mobs)
+	/** Lets every world know whether there are any players in it */
+	private static void updateWorldsWithPlayers()
+	{
+		for (int i = 0; i < worldList.size(); i++)
+			worldList.get(i).setHasPlayers(false);
+		for (Player player : Bukkit.getServer().getOnlinePlayers())
 		{
-			// Ignore certain mobs
-			MalevolentMob mallMob = getMalevolentMob(mob);
-			if (mallMob.isBossBarHidden() || mallMob.isDecoy())
+			MobWorld world = worlds.get(player.getWorld().getUID());
+			if (world != null)
+				world.setHasPlayers(true);
+		}
+	}
+
+	/** Updates the boss health bars of all players */
+	private static void updateBossBars(float range)
+	{
+		// Sort the mobs that may have a boss bar into a grid for each world
+		for (SpatialGrid<MalevolentMob> grid : bossBarGrids.values())
+			grid.clear();
+		for (int i = 0; i < worldList.size(); i++)
+		{
+			MobWorld world = worldList.get(i);
+			if (world.isIdle())
 				continue;
+			for (int j = 0; j < world.getScheduler().size(); j++)
+				addToBossBarGrid(world.getScheduler().get(j));
+		}
 
-			double distance = mob.getLocation().distance(player.getLocation());
-			if (distance < shortestDistance || nearestEntity == null)
+		bossBarUpdateNumber++;
+		for (Player player : Bukkit.getServer().getOnlinePlayers())
+			updatePlayerBossBar(player, range);
+
+		// Forget about the players that have left
+		for (Iterator<BossBarState> it = bossBarStates.values().iterator(); it.hasNext();)
+		{
+			if (it.next().updateNumber != bossBarUpdateNumber)
+				it.remove();
+		}
+	}
+
+	/** Removes the boss bars that show mobs in the given world, or all boss bars if the world is null, such that the states no longer hold on to the mobs */
+	private static void removeBossBars(World world)
+	{
+		for (BossBarState state : bossBarStates.values())
+		{
+			if (!state.isShown || (world != null && state.mob.getEntity().getWorld() != world))
+				continue;
+			if (state.player.isOnline())
+				BarAPI.removeBar(state.player);
+			state.isShown = false;
+			state.mob = null;
+			state.title = null;
+		}
+	}
+
+	/** Adds the mob to the boss bar grid of the world it is in, if the mob should have a boss bar */
+	private static void addToBossBarGrid(MalevolentMob mob)
+	{
+		if (mob.getRole() == null || mob.isBossBarHidden() || mob.isDecoy() || !mob.getEntity().isValid())
+			return;
+
+		Location location = mob.getEntity().getLocation(scratchLocation);
+		SpatialGrid<MalevolentMob> grid = bossBarGrids.get(location.getWorld().getUID());
+		if (grid == null)
+		{
+			grid = new SpatialGrid<MalevolentMob>(5);
+			bossBarGrids.put(location.getWorld().getUID(), grid);
+		}
+		grid.add(mob, location.getX(), location.getY(), location.getZ());
+	}
+
+	/** Updates the boss health bar for the given player */
+	private static void updatePlayerBossBar(Player player, float range)
+	{
+		BossBarState state = bossBarStates.get(player.getUniqueId());
+		if (state == null || state.player != player)
+		{
+			state = new BossBarState(player);
+			bossBarStates.put(player.getUniqueId(), state);
+		}
+		state.updateNumber = bossBarUpdateNumber;
+
+		// Find nearest malevolent mob; dead players must have the boss bar removed to prevent issues
+		MalevolentMob mob = null;
+		if (!player.isDead())
+		{
+			Location location = player.getLocation(scratchLocation);
+			SpatialGrid<MalevolentMob> grid = bossBarGrids.get(location.getWorld().getUID());
+			if (grid != null)
 			{
-				shortestDistance = distance;
-				nearestEntity = mob;
+				grid.forEachInRange(location.getX(), location.getY(), location.getZ(), range, nearestMobFinder);
+				mob = nearestMobFinder.takeNearest();
 			}
 		}
 
-		// If a mob was found, assign a health bar to it; otherwise remove the health bar for the given player
-		MalevolentMob mob = getMalevolentMob(nearestEntity);
+		// If a mob was found, assign a health bar to it; otherwise remove the health bar for the given player. Nothing is sent unless the bar has changed
 		if (mob != null)
 		{
-			String title = ChatColor.translateAlternateColorCodes('&', mob.getRole().mobName + (mob.isInfoHidden() ? "" : String.format(ChatColor.WHITE + " - Level %.0f ", mob.getLevel()) + mob.getRole().getName()));
-			BarAPI.setMessage(player, title, 100.0f * (float) (nearestEntity.getHealth() / nearestEntity.getMaxHealth()));
-			// StatusBarAPI.setStatusBar(player, title, (float) (nearestEntity.getHealth() / nearestEntity.getMaxHealth()));
+			String title = mob.getBossBarTitle();
+			float health = 100.0f * (float) (mob.getEntity().getHealth() / mob.getEntity().getMaxHealth());
+			if (!state.isShown || state.mob != mob || state.title != title || state.health != health)
+			{
+				BarAPI.setMessage(player, title, health);
+				state.isShown = true;
+				state.mob = mob;
+				state.title = title;
+				state.health = health;
+			}
 		}
-		else
+		else if (state.isShown)
+		{
 			BarAPI.removeBar(player);
+			state.isShown = false;
+			state.mob = null;
+			state.title = null;
+		}
+	}
+
+	/** Finds the mob that is closest to the center of a grid query */
+	private static final class NearestMobFinder implements SpatialGrid.Visitor<MalevolentMob>
+	{
+		private MalevolentMob nearest = null;
+		private double nearestDistanceSquared = 0.0;
+
+		@Override
+		public void visit(MalevolentMob mob, double distanceSquared)
+		{
+			if (nearest == null || distanceSquared < nearestDistanceSquared)
+			{
+				nearest = mob;
+				nearestDistanceSquared = distanceSquared;
+			}
+		}
+
+		/** Returns the nearest mob found so far, and prepares for the next query */
+		private MalevolentMob takeNearest()
+		{
+			MalevolentMob mob = nearest;
+			nearest = null;
+			return mob;
+		}
+	}
+
+	/** The boss bar that was last sent to a player */
+	private static final class BossBarState
+	{
+		private final Player player;
+		private int updateNumber = 0;
+
+		private boolean isShown = false;
+		private MalevolentMob mob = null;
+		private String title = null;
+		private float health = 0.0f;
+
+		private BossBarState(Player player)
+		{
+			this.player = player;
+		}
 	}
 
 	// /////////////////////////////////////////////////////////////////////////////////////////
@@ -120,34 +297,16 @@ public class MobHandler
 	/** Returns true if the given entity is associated with a malevolent mob */
 	public static boolean isMobMalevolent(LivingEntity entity)
 	{
-		if (entity == null)
-			return false;
-		if (mobsToAdd.size() != 0)
-		{
-			for (MalevolentMob mob : mobsToAdd)
-			{
-				if (mob.getEntity() == entity)
-					return true;
-			}
-		}
-		return mobMap.containsKey(entity);
+		return getMalevolentMob(entity) != null;
 	}
 
 	/** Returns the malevolent mob associated with the given entity */
 	public static MalevolentMob getMalevolentMob(LivingEntity entity)
 	{
-		if (mobsToAdd.size() != 0)
-		{
-			for (MalevolentMob mob : mobsToAdd)
-			{
-				if (mob.getEntity() == entity)
-					return mob;
-			}
-		}
-
-		if (!isMobMalevolent(entity))
+		if (entity == null)
 			return null;
-		return mobMap.get(entity);
+		MobWorld world = worlds.get(entity.getWorld().getUID());
+		return world == null ? null : world.get(entity);
 	}
 
 	/** Turns the given entity into a new malevolent mob */
@@ -158,15 +317,12 @@ public class MobHandler
 		if (isMobMalevolent(entity))
 			return getMalevolentMob(entity);
 
-		// Figure out the type of the entity
-		String type = Common.getEntityType(entity);
-
 		// Spawn the mob and assign a random role to it
 		MalevolentMob mob = new MalevolentMob(entity);
-		mob.setRandomRole(MMobPlugin.getSettings().getStringList("Spawns." + type + ".roles"));
+		mob.setRandomRole(MMobPlugin.getSettings().getSpawnRules().getRoles(entity));
 
 		// Store the mob
-		mobsToAdd.add(mob);
+		getMobWorld(entity.getWorld()).add(mob);
 		return mob;
 	}
 
@@ -183,7 +339,7 @@ public class MobHandler
 		mob.setRole(role);
 
 		// Store the mob
-		mobsToAdd.add(mob);
+		getMobWorld(entity.getWorld()).add(mob);
 		return mob;
 	}
 
@@ -198,9 +354,37 @@ public class MobHandler
 			mob.removeRole();
 	}
 
-	/** Returns the map of the active malevolent mobs. Do NOT modify the map! */
-	public static HashMap<LivingEntity, MalevolentMob> getMalevolentMobMap()
+	/** Returns the part of the handler that holds the mobs in the given world, creating it if it doesn't exist yet */
+	public static MobWorld getMobWorld(World world)
+	{
+		MobWorld mobWorld = worlds.get(world.getUID());
+		if (mobWorld == null)
+		{
+			mobWorld = new MobWorld(world);
+			worlds.put(world.getUID(), mobWorld);
+			worldList.add(mobWorld);
+		}
+		return mobWorld;
+	}
+
+	/** Returns all worlds that have had malevolent mobs in them */
+	public static List<MobWorld> getMobWorlds()
+	{
+		return new ArrayList<MobWorld>(worldList);
+	}
+
+	/** Returns the tracker that knows which mobs have players nearby */
+	public static MobActivationTracker getActivationTracker()
+	{
+		return activationTracker;
+	}
+
+	/** Returns a list of all the malevolent mobs, including those that haven't been ticked yet */
+	public static List<MalevolentMob> getMalevolentMobs()
 	{
-		return mobMap;
+		List<MalevolentMob> mobs = new ArrayList<MalevolentMob>();
+		for (int i = 0; i < worldList.size(); i++)
+			worldList.get(i).collectMobs(mobs);
+		return mobs;
 	}
 }
@@ -1,61 +1,51 @@
 package com.hepolite.mmob.handlers;
 
-import java.util.HashMap;
-import java.util.Set;
 import java.util.logging.Level;
 
+import com.hepolite.mmob.ConfigGeneration;
+import com.hepolite.mmob.GeneralSettings;
 import com.hepolite.mmob.Log;
 import com.hepolite.mmob.MMobSettings;
 import com.hepolite.mmob.mobs.MobRole;
+import com.hepolite.mmob.mobs.RoleTemplate;
 import com.hepolite.mmob.settings.Settings;
-import com.hepolite.mmob.settings.SettingsRoles;
 
 public class RoleHandler
 {
-	// Control variables
-	private static HashMap<String, MobRole> roleMap = new HashMap<String, MobRole>();
-
 	// ///////////////////////////////////////////////////////////////////////////////////////
 	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
 	// ///////////////////////////////////////////////////////////////////////////////////////
 
-	/** Load up all the roles in the configuration file into the map */
-	public static void loadRolesFromConfig()
-	{
-		roleMap.clear();
-
-		// Find all roles to load up
-		Set<String> roles = SettingsRoles.getRoles();
-		for (String role : roles)
-			loadRoleFromConfig(SettingsRoles.getConfig(role), role);
-	}
-
-	/** Loads up the specified role */
-	private static void loadRoleFromConfig(Settings settings, String name)
+	/** Compiles the specified role from the given configuration generation. Returns null if the role is invalid. May be called from any thread */
+	public static RoleTemplate compileRole(ConfigGeneration generation, String name, GeneralSettings pluginSettings)
 	{
 		// Need a valid role
-		if (!settings.hasProperty("enable"))
+		Settings settings = generation.getRoleConfig(name);
+		if (settings == null || !settings.hasProperty("enable"))
 		{
 			Log.log("Attempted to load up role '" + name + "' which doesn't exist! Did you make sure to add 'enable=true/false' to the mob?", Level.WARNING);
-			return;
+			return null;
 		}
 		if (MMobSettings.isDebugmode)
 			Log.log("Loading up role '" + name + "'...");
 
-		// Create the new role
-		MobRole mobRole = new MobRole(name);
-		roleMap.put(name, mobRole);
+		// Compile everything the mobs with the role need when they spawn
+		return new RoleTemplate(generation, name, settings, pluginSettings);
 	}
 
 	/** Returns a role from the given string, if one exists */
 	public static MobRole getRole(String role)
 	{
 		role = role.replaceAll(" ", "_");
-		if (!roleMap.containsKey(role))
-		{
+		MobRole mobRole = ConfigGeneration.getCurrent().getRole(role);
+		if (mobRole == null)
 			Log.log("Attempted to look up role '" + role + "', which doesn't exist!");
-			return null;
-		}
-		return roleMap.get(role);
+		return mobRole;
+	}
+
+	/** Returns the compiled template of the role with the given name, or null if there is no such role */
+	public static RoleTemplate getTemplate(String role)
+	{
+		return ConfigGeneration.getCurrent().getTemplate(role);
 	}
 }
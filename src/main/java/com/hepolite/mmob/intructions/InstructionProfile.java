@@ -0,0 +1,158 @@
+package com.hepolite.mmob.intructions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import com.hepolite.mmob.Log;
+import com.hepolite.mmob.MMobPlugin;
+import com.hepolite.mmob.handlers.MobHandler;
+import com.hepolite.mmob.mobs.MobTickScheduler;
+import com.hepolite.mmob.mobs.MobWorld;
+import com.hepolite.mmob.utility.Profiler;
+import com.hepolite.mmob.utility.Profiler.Section;
+
+/**
+ * The profile instruction, shows where the plugin spends its time
+ */
+public class InstructionProfile extends Instruction
+{
+	private final static int DEFAULT_ENTRIES = 10;
+
+	public InstructionProfile()
+	{
+		super("Profile", new int[] { 0, 1 });
+	}
+
+	@Override
+	protected void addSyntax(List<String> syntaxes)
+	{
+		syntaxes.add("");
+		syntaxes.add("<entries>");
+		syntaxes.add("on/off");
+		syntaxes.add("reset");
+		syntaxes.add("dump");
+		syntaxes.add("worlds");
+	}
+
+	@Override
+	protected void addDescription(List<String> descriptions)
+	{
+		descriptions.add("Shows the " + DEFAULT_ENTRIES + " parts of the plugin that take the most time");
+		descriptions.add("Shows the given number of parts of the plugin that take the most time");
+		descriptions.add("Starts or stops the profiler");
+		descriptions.add("Forgets about all measurements taken so far");
+		descriptions.add("Writes all measurements to a CSV file in the plugin folder");
+		descriptions.add("Shows how the mobs in each world were ticked during the previous tick");
+	}
+
+	@Override
+	protected String getExplanation()
+	{
+		return "The profiler measures how much time is spent in each phase of the plugin tick, and in the event hooks of each ability and item effect. Event hooks are only measured every now and then, as given by the sample rate in the config. Times are given in microseconds. The memory allocated by each phase of the tick is measured too, when the JVM supports it.";
+	}
+
+	@Override
+	protected boolean onInvoke(CommandSender sender, List<String> arguments)
+	{
+		String field = arguments.size() == 0 ? "" : arguments.get(0).toLowerCase();
+		switch (field)
+		{
+		case "on":
+			Profiler.setEnabled(true);
+			sender.sendMessage(ChatColor.AQUA + "The profiler has been started");
+			break;
+
+		case "off":
+			Profiler.setEnabled(false);
+			sender.sendMessage(ChatColor.AQUA + "The profiler has been stopped");
+			break;
+
+		case "reset":
+			Profiler.reset();
+			sender.sendMessage(ChatColor.AQUA + "All measurements have been reset");
+			break;
+
+		case "dump":
+			try
+			{
+				File file = Profiler.dumpToFile(MMobPlugin.getInstance().getDataFolder());
+				sender.sendMessage(ChatColor.AQUA + "Wrote measurements to " + file.getName());
+			}
+			catch (IOException e)
+			{
+				Log.log("Failed to write profiler measurements to disk!", Level.WARNING);
+				sender.sendMessage(ChatColor.RED + "Failed to write measurements to disk");
+			}
+			break;
+
+		case "worlds":
+			showWorlds(sender);
+			break;
+
+		case "":
+			showSections(sender, DEFAULT_ENTRIES);
+			break;
+
+		default:
+			try
+			{
+				showSections(sender, Integer.parseInt(field));
+			}
+			catch (NumberFormatException e)
+			{
+				sender.sendMessage(ChatColor.RED + "Unknown field " + field);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Sends the given number of the most time-consuming sections to the sender */
+	private void showSections(CommandSender sender, int entries)
+	{
+		if (!Profiler.isEnabled())
+			sender.sendMessage(ChatColor.YELLOW + "The profiler is not running, use 'on' to start it");
+
+		List<Section> sections = Profiler.getSections();
+		if (sections.size() == 0)
+		{
+			sender.sendMessage(ChatColor.AQUA + "No measurements have been taken yet");
+			return;
+		}
+
+		sender.sendMessage(ChatColor.AQUA + "Section: calls, total ms, p50/p99/max us, bytes allocated per call");
+		for (int i = 0; i < Math.min(entries, sections.size()); i++)
+		{
+			Section section = sections.get(i);
+			sender.sendMessage(String.format("%s%s%s: %d, %.1f, %.1f/%.1f/%.1f, %d", ChatColor.WHITE, section.getName(), ChatColor.GRAY, section.getCalls(), section.getTotalTime() / 1000000.0, section.getPercentile(0.5) / 1000.0, section.getPercentile(0.99) / 1000.0, section.getMax() / 1000.0, section.getAllocationPerCall()));
+		}
+	}
+
+	/** Sends the tick statistics of every world to the sender */
+	private void showWorlds(CommandSender sender)
+	{
+		List<MobWorld> worlds = MobHandler.getMobWorlds();
+		if (worlds.size() == 0)
+		{
+			sender.sendMessage(ChatColor.AQUA + "No world has had any malevolent mobs in it yet");
+			return;
+		}
+
+		sender.sendMessage(ChatColor.AQUA + "World: mobs, ticked, deferred, ms spent, ms budget");
+		for (MobWorld world : worlds)
+		{
+			if (world.isIdle())
+			{
+				sender.sendMessage(String.format("%s%s%s: %d, idle", ChatColor.WHITE, world.getWorldName(), ChatColor.GRAY, world.size()));
+				continue;
+			}
+			MobTickScheduler scheduler = world.getScheduler();
+			sender.sendMessage(String.format("%s%s%s: %d, %d, %d, %.2f, %.2f", ChatColor.WHITE, world.getWorldName(), ChatColor.GRAY, world.size(), scheduler.getMobsTicked(), scheduler.getMobsDeferred(), scheduler.getTimeSpent() / 1000000.0, scheduler.getTickBudget() / 1000000.0));
+		}
+	}
+}
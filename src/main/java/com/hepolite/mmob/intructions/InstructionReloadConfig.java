@@ -37,9 +37,16 @@ public class InstructionReloadConfig extends Instruction
 	@Override
 	protected boolean onInvoke(CommandSender sender, List<String> arguments)
 	{
-		sender.sendMessage("fReloading the configuration file...");
-		MMobPlugin.getSettings().reload();
-		sender.sendMessage("fDone reloading the configuration file!");
+		final CommandSender commandSender = sender;
+		boolean isStarted = MMobPlugin.getSettings().reloadAsync(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				commandSender.sendMessage("fDone reloading the configuration file!");
+			}
+		});
+		sender.sendMessage(isStarted ? "fReloading the configuration file..." : "cThe configuration file is already being reloaded!");
 		return false;
 	}
 }
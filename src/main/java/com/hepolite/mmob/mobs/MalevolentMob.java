@@ -1,13 +1,11 @@
 package com.hepolite.mmob.mobs;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Random;
-import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -15,7 +13,6 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Sound;
-import org.bukkit.entity.Creature;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
@@ -24,7 +21,6 @@ import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.EntityRegainHealthEvent;
 import org.bukkit.event.entity.ExplosionPrimeEvent;
-import org.bukkit.inventory.EntityEquipment;
 
 import com.hepolite.mmob.Log;
 import com.hepolite.mmob.MMobListener;
@@ -37,10 +33,9 @@ import com.hepolite.mmob.handlers.AbilityHandler;
 import com.hepolite.mmob.handlers.LootDropHandler;
 import com.hepolite.mmob.handlers.MobHandler;
 import com.hepolite.mmob.handlers.RoleHandler;
-import com.hepolite.mmob.settings.Settings;
-import com.hepolite.mmob.settings.SettingsAbilities;
-import com.hepolite.mmob.settings.SettingsRoles;
+import com.hepolite.mmob.mobs.RoleTemplate.AbilitySpec;
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.Profiler;
 
 public class MalevolentMob
 {
@@ -54,6 +49,12 @@ public class MalevolentMob
 	private LivingEntity entity = null;	// The entity associated with the malevolent mob
 	private int index = -1;				// The unique index of the mob
 	private boolean isInitialized = false;
+	private int ticksAlive = 0;			// The number of times the mob has been ticked
+
+	// Mobs without any players nearby are dormant, and will not do anything until a player shows up
+	private boolean isDormant = false;
+	private int ticksDormant = 0;
+	private int activationCheckTimer = 0;
 
 	private List<MobRole> possibleRoles = new LinkedList<MobRole>();
 	private MobRole role = null;
@@ -61,18 +62,39 @@ public class MalevolentMob
 	private boolean hideInfo = false;
 	private boolean hideBossBar = false;
 
+	// The boss bar title is only rebuilt when something it depends on changes
+	private String bossBarTitle = null;
+	private MobRole bossBarTitleRole = null;
+	private String bossBarTitleName = null;
+	private float bossBarTitleLevel = 0.0f;
+	private boolean bossBarTitleHideInfo = false;
+
 	private List<List<Passive>> passives = new ArrayList<List<Passive>>();
 	private List<List<Active>> actives = new ArrayList<List<Active>>();
 
+	// All abilities in the order they are ticked; passives from low to high priority, actives from high to low priority
+	private Passive[] tickPassives = new Passive[0];
+	private Active[] tickActives = new Active[0];
+	private List<Passive> passiveView = Collections.emptyList();
+	private List<Active> activeView = Collections.emptyList();
+
+	// The abilities that override each event hook, per priority level; passives come before actives within each level
+	private Ability[][] attackedHandlers = new Ability[3][0];
+	private Ability[][] attackingHandlers = new Ability[3][0];
+	private Ability[][] healedHandlers = new Ability[3][0];
+
 	// Handle targeting
 	private boolean isOnPlayerSide = false;
 	private boolean isAIControlled = true;
 
-	private List<LivingEntity> nearbyTargets = new LinkedList<LivingEntity>();
+	private List<LivingEntity> nearbyTargets = new ArrayList<LivingEntity>();
+	private List<LivingEntity> targetView = Collections.unmodifiableList(nearbyTargets);
+	private float[] targetDistances = new float[4];	// The distance to each target, as measured by the target planner
 	private int targetUpdateTimer = 0;
+	private boolean isTargetRefreshRequested = false;
 
 	// Make sure that players can't killsteal the mob by giving experience based on damage dealt in total
-	private HashMap<UUID, Double> damageMap = new HashMap<UUID, Double>();
+	private MobDamageMap damageMap = new MobDamageMap();
 	private int damageMapUpdateTimer = 20;	// Update the map once per second
 
 	/* Initialization */
@@ -80,6 +102,7 @@ public class MalevolentMob
 	{
 		this.entity = entity;
 		this.index = uniqueIndex++;
+		this.activationCheckTimer = index % 20;	// Spread the checks out over several ticks
 
 		// Prepare abilities
 		passives.add(new LinkedList<Passive>());
@@ -98,7 +121,8 @@ public class MalevolentMob
 	public void onSpawn()
 	{
 		isInitialized = true;
-		loadRole(role.getName(), false);
+		loadRole();
+		buildHookTables();
 
 		// Handle abilities
 		for (int i = 0; i < 3; i++)
@@ -132,18 +156,16 @@ public class MalevolentMob
 				LootDropHandler.dropLoot(this);
 
 			// Handle the hand-out of experience for killing the mob
-			double totalDamage = 0.0f;
-			for (double damage : damageMap.values())
-				totalDamage += damage;
+			double totalDamage = damageMap.getTotalDamage();
 
 			// For experience to be handed out, it is required that players dealt a significant amount of damage
-			for (Entry<UUID, Double> entry : damageMap.entrySet())
+			for (int i = 0; i < damageMap.size(); i++)
 			{
-				Player player = Bukkit.getPlayer(entry.getKey());
+				Player player = damageMap.getContributor(i) == null ? null : Bukkit.getPlayer(damageMap.getContributor(i));
 				if (player != null)
 				{
-					player.giveExp((int) ((double) role.vanillaExperience * entry.getValue() / totalDamage));
-					Common.givePlayerSkillAPIExperience(player, Math.round(role.skillAPIExperience * entry.getValue() / totalDamage));
+					player.giveExp((int) ((double) role.vanillaExperience * damageMap.getDamage(i) / totalDamage));
+					Common.givePlayerSkillAPIExperience(player, Math.round(role.skillAPIExperience * damageMap.getDamage(i) / totalDamage));
 				}
 			}
 		}
@@ -159,42 +181,55 @@ public class MalevolentMob
 		if (!isInitialized)
 			onSpawn();
 
+		// Figure out if there is any reason to be active; dormant mobs only keep track of how long they have been dormant
+		if (--activationCheckTimer < 0)
+		{
+			activationCheckTimer = 20;
+			setDormant(!MobHandler.getActivationTracker().isActive(entity));
+		}
+		if (isDormant)
+		{
+			ticksDormant++;
+			return;
+		}
+
 		// Handle sub-systems
 		tracker.onTick();
+		ticksAlive++;
 
 		// Update abilities
-		for (int i = 0; i < 3; i++)
+		for (Passive passive : tickPassives)
 		{
-			for (Passive passive : passives.get(i))
+			if (isAbilityDue(passive))
+			{
+				long startTime = Profiler.startSample();
 				passive.onTick();
+				Profiler.stopSample(passive.getClass(), "onTick", startTime);
+			}
 		}
 
 		boolean castedAnAbility = false;
 		if (isAIControlled)
 		{
-			for (int i = 2; i >= 0; i--)
+			for (Active active : tickActives)
 			{
-				for (Active active : actives.get(i))
+				if (!isAbilityDue(active))
+					continue;
+				long startTime = Profiler.startSample();
+				active.onTick();
+				Profiler.stopSample(active.getClass(), "onTick", startTime);
+				if (active.isCasted())
 				{
-					active.onTick();
-					if (active.isCasted())
-					{
-						castedAnAbility = true;
-						break;
-					}
-				}
-				if (castedAnAbility)
+					castedAnAbility = true;
 					break;
+				}
 			}
 
 			// If an active ability was casted, make sure to delay all other "activateable" abilities
 			if (castedAnAbility)
 			{
-				for (int i = 0; i < 3; i++)
-				{
-					for (Active active : actives.get(i))
-						active.decreaseCooldownTimer(role.attackCooldownTime);
-				}
+				for (Active active : tickActives)
+					active.decreaseCooldownTimer(role.attackCooldownTime);
 			}
 		}
 
@@ -204,50 +239,14 @@ public class MalevolentMob
 			damageMapUpdateTimer = 20;
 
 			// Reduce total damage dealt with some value and remove all players that haven't contributed much or recently
-			List<UUID> entriesToRemove = new LinkedList<UUID>();
-			for (Entry<UUID, Double> entry : damageMap.entrySet())
-			{
-				double value = entry.getValue() - 0.1;
-				if (value > 0.0)
-					entry.setValue(value);
-				else
-					entriesToRemove.add(entry.getKey());
-			}
-			for (UUID uuid : entriesToRemove)
-				damageMap.remove(uuid);
+			damageMap.decay(0.1);
 		}
 
-		// Locate new targets if applicable
+		// Locate new targets if applicable; the target planner takes care of the actual work, and decides when to look again
 		if (--targetUpdateTimer < 0)
 		{
 			targetUpdateTimer = 20;
-
-			// Remove targets that are beyond the reach of the mob, or dead
-			float range = MMobPlugin.getSettings().getFloat("General.Mobs.targetLoseDistance");
-			for (Iterator<LivingEntity> it = nearbyTargets.iterator(); it.hasNext();)
-			{
-				LivingEntity target = it.next();
-				if (!target.isValid() || target.getWorld() != entity.getWorld() || entity.getLocation().distanceSquared(target.getLocation()) >= range * range)
-					it.remove();
-			}
-
-			// Find all nearby players, including the mob target, and add them
-			if (entity instanceof Creature)
-			{
-				LivingEntity target = ((Creature) entity).getTarget();
-				if (target != null && !nearbyTargets.contains(target))
-					nearbyTargets.add(0, target);
-			}
-			List<?> targets = null;
-			if (isOnPlayerSide)
-				targets = Common.getMonstersInRange(entity.getLocation(), MMobPlugin.getSettings().getFloat("General.Mobs.targetAquireDistance"));
-			else
-				targets = Common.getPlayersInRange(entity.getLocation(), MMobPlugin.getSettings().getFloat("General.Mobs.targetAquireDistance"));
-			for (Object entity : targets)
-			{
-				if (entity != this.entity && !nearbyTargets.contains((LivingEntity) entity))
-					nearbyTargets.add((LivingEntity) entity);
-			}
+			isTargetRefreshRequested = true;
 		}
 	}
 
@@ -256,24 +255,31 @@ public class MalevolentMob
 	{
 		double rawDamage = event.getDamage();
 
+		// Something is attacking the mob, so it has no business sleeping
+		setDormant(false);
+
 		// Apply the low-priority abilities
-		for (Passive passive : passives.get(0))
-			passive.onAttacked(event);
-		for (Active active : actives.get(0))
-			active.onAttacked(event);
+		for (Ability ability : attackedHandlers[0])
+		{
+			long startTime = Profiler.startSample();
+			ability.onAttacked(event);
+			Profiler.stopSample(ability.getClass(), "onAttacked", startTime);
+		}
 
 		// Reduce damage
 		applyDamageReductions(event);
 
-		// Apply the rest of the passives
+		// Apply the rest of the abilities
 		for (int i = 1; i < 3; i++)
 		{
 			if (!event.isCancelled())
 			{
-				for (Passive passive : passives.get(i))
-					passive.onAttacked(event);
-				for (Active active : actives.get(i))
-					active.onAttacked(event);
+				for (Ability ability : attackedHandlers[i])
+				{
+					long startTime = Profiler.startSample();
+					ability.onAttacked(event);
+					Profiler.stopSample(ability.getClass(), "onAttacked", startTime);
+				}
 			}
 		}
 
@@ -292,7 +298,7 @@ public class MalevolentMob
 					Entity attacker = Common.getAttacker((EntityDamageByEntityEvent) event);
 					if (attacker instanceof Player)
 						uuid = ((Player) attacker).getUniqueId();
-					damageMap.put(uuid, event.getDamage() + (damageMap.containsKey(uuid) ? damageMap.get(uuid) : 0.0));
+					damageMap.add(uuid, event.getDamage());
 				}
 			}
 		}
@@ -312,10 +318,12 @@ public class MalevolentMob
 		{
 			if (!event.isCancelled())
 			{
-				for (Passive passive : passives.get(i))
-					passive.onAttacking(event);
-				for (Active active : actives.get(i))
-					active.onAttacking(event);
+				for (Ability ability : attackingHandlers[i])
+				{
+					long startTime = Profiler.startSample();
+					ability.onAttacking(event);
+					Profiler.stopSample(ability.getClass(), "onAttacking", startTime);
+				}
 			}
 		}
 
@@ -331,10 +339,12 @@ public class MalevolentMob
 		{
 			if (!event.isCancelled())
 			{
-				for (Passive passive : passives.get(i))
-					passive.onHealed(event);
-				for (Active active : actives.get(i))
-					active.onHealed(event);
+				for (Ability ability : healedHandlers[i])
+				{
+					long startTime = Profiler.startSample();
+					ability.onHealed(event);
+					Profiler.stopSample(ability.getClass(), "onHealed", startTime);
+				}
 			}
 		}
 	}
@@ -349,6 +359,53 @@ public class MalevolentMob
 	// ABILITIES // ABILITIES // ABILITIES // ABILITIES // ABILITIES // ABILITIES //
 	// /////////////////////////////////////////////////////////////////////////////
 
+	/** Returns true if the given ability should be ticked this tick. The index of the mob offsets the tick, such that abilities with long intervals are spread out over different ticks for different mobs */
+	private boolean isAbilityDue(Ability ability)
+	{
+		int interval = ability.getTickInterval();
+		return interval <= 1 || (ticksAlive + index) % interval == 0;
+	}
+
+	/** Sorts out which abilities should be called each tick and for each of the event hooks. Must be called whenever the abilities of the mob change */
+	private void buildHookTables()
+	{
+		List<Passive> passiveList = new ArrayList<Passive>();
+		List<Active> activeList = new ArrayList<Active>();
+		for (int i = 0; i < 3; i++)
+		{
+			passiveList.addAll(passives.get(i));
+			activeList.addAll(actives.get(2 - i));
+		}
+		tickPassives = passiveList.toArray(new Passive[passiveList.size()]);
+		tickActives = activeList.toArray(new Active[activeList.size()]);
+		passiveView = Collections.unmodifiableList(Arrays.asList(tickPassives));
+		activeView = Collections.unmodifiableList(Arrays.asList(tickActives));
+
+		for (int i = 0; i < 3; i++)
+		{
+			attackedHandlers[i] = getHookHandlers(i, "onAttacked", EntityDamageEvent.class);
+			attackingHandlers[i] = getHookHandlers(i, "onAttacking", EntityDamageByEntityEvent.class);
+			healedHandlers[i] = getHookHandlers(i, "onHealed", EntityRegainHealthEvent.class);
+		}
+	}
+
+	/** Returns all abilities of the given priority level that override the given event hook */
+	private Ability[] getHookHandlers(int priority, String hook, Class<?> eventType)
+	{
+		List<Ability> handlers = new ArrayList<Ability>();
+		for (Passive passive : passives.get(priority))
+		{
+			if (passive.overridesHook(hook, eventType))
+				handlers.add(passive);
+		}
+		for (Active active : actives.get(priority))
+		{
+			if (active.overridesHook(hook, eventType))
+				handlers.add(active);
+		}
+		return handlers.toArray(new Ability[handlers.size()]);
+	}
+
 	/** Applies the damage reductions based on the the current stats */
 	private void applyDamageReductions(EntityDamageEvent event)
 	{
@@ -379,7 +436,7 @@ public class MalevolentMob
 		}
 	}
 
-	/** Adds a new passive ability to the mob */
+	/** Adds a new passive ability to the mob; the ability is ticked and receives events from the next tick or event on */
 	public Passive addPassive(String passive)
 	{
 		Passive passiveAbility = AbilityHandler.getPassive(this, passive);
@@ -389,10 +446,11 @@ public class MalevolentMob
 			return null;
 		}
 		passives.get(passiveAbility.getPriority().ordinal()).add(passiveAbility);
+		buildHookTables();
 		return passiveAbility;
 	}
 
-	/** Adds a new active ability to the mob */
+	/** Adds a new active ability to the mob; the ability is ticked and receives events from the next tick or event on */
 	public Active addActive(String active)
 	{
 		Active activeAbility = AbilityHandler.getActive(this, active);
@@ -402,6 +460,7 @@ public class MalevolentMob
 			return null;
 		}
 		actives.get(activeAbility.getPriority().ordinal()).add(activeAbility);
+		buildHookTables();
 		return activeAbility;
 	}
 
@@ -480,8 +539,8 @@ public class MalevolentMob
 			return;
 		}
 
-		Settings settings = SettingsRoles.getConfig(role.getName());
-		if (settings == null || !settings.getBoolean("enable"))
+		RoleTemplate template = RoleHandler.getTemplate(role.getName());
+		if (template == null || !template.isEnabled)
 			return;
 		possibleRoles.add(role);
 	}
@@ -494,7 +553,8 @@ public class MalevolentMob
 			Log.log("Attempted to assign a null role to a malevolent mob!", Level.WARNING);
 			return;
 		}
-		if (!SettingsRoles.getConfig(role.getName()).getBoolean("enable"))
+		RoleTemplate template = RoleHandler.getTemplate(role.getName());
+		if (template == null || !template.isEnabled)
 		{
 			Log.log("Attempted to load role '" + role.getName() + "', which is not enabled!");
 			return;
@@ -504,31 +564,31 @@ public class MalevolentMob
 	}
 
 	/** Loads up the current role and assigns it the the calling mob */
-	private void loadRole(String roleName, boolean isParentRole)
+	private void loadRole()
 	{
 		if (role == null)
 		{
 			Log.log("Attempted to load up a null role for malevolent mob '" + Integer.toString(index) + "'!", Level.WARNING);
 			role = new MobRole("BROKEN_ROLE");
 		}
+		RoleTemplate template = RoleHandler.getTemplate(role.getName());
+		if (template == null)
+		{
+			Log.log("Attempted to load up role '" + role.getName() + "', which hasn't been loaded!", Level.WARNING);
+			return;
+		}
 		if (MMobSettings.isDebugmode)
-			Log.log("Loading up role '" + roleName + "'...");
-
-		MMobSettings pluginSettings = MMobPlugin.getSettings();
-		Settings settings = SettingsRoles.getConfig(roleName);
-
-		// Load parent configurations
-		if (settings.hasProperty("General.parentRole"))
-			loadRole(settings.getString("General.parentRole"), true);
+			Log.log("Loading up role '" + role.getName() + "'...");
 
 		// Load up role header data, such as custom name, level, health and so on.
-		if (settings.hasProperty("General.level"))
-			setLevel(getLevelFromType(settings.getString("General.level")));
+		if (template.levelType != null)
+			setLevel(getLevelFromType(template.levelType));
+		float level = getLevel();
 
-		if (settings.hasProperty("General.customName"))
+		if (template.customName != null)
 		{
-			entity.setCustomName(ChatColor.translateAlternateColorCodes('&', settings.getString("General.customName")));
-			role.mobName = settings.getString("General.customName");
+			entity.setCustomName(template.displayName);
+			role.mobName = template.customName;
 		}
 		else if (entity.getCustomName() == null)
 		{
@@ -537,155 +597,71 @@ public class MalevolentMob
 			role.mobName = entity.getCustomName();
 		}
 
-		if (settings.hasProperty("General.hideInfo"))
-			hideInfo = settings.getBoolean("General.hideInfo");
-		if (settings.hasProperty("General.hideBossBar"))
-			hideBossBar = settings.getBoolean("General.hideBossBar");
-
-		isAIControlled = (settings.hasProperty("General.ai") ? settings.getBoolean("General.ai") : true);
-		isOnPlayerSide = (settings.hasProperty("General.playerSide") ? settings.getBoolean("General.playerSide") : false);
+		hideInfo = template.hideInfo;
+		hideBossBar = template.hideBossBar;
+		isAIControlled = template.isAIControlled;
+		isOnPlayerSide = template.isOnPlayerSide;
 
 		// Load up the health of the mob
-		if (settings.hasProperty("General.baseHealth"))
+		if (template.hasHealth)
 		{
-			float scale = pluginSettings.getFloat("General.Mobs.healthScale");
-			float health = scale * settings.getScaledValue("General.", "Health", getLevel(), (float) entity.getMaxHealth() / (isParentRole ? 1.0f : scale));
-
-			entity.setMaxHealth(health);
+			entity.setMaxHealth(template.health.evaluate(level));
 			entity.setHealth(entity.getMaxHealth());
 		}
 
 		// Load up experience and loot dropped
-		if (settings.hasProperty("Loot.baseVanillaExperience"))
-			role.vanillaExperience = (int) settings.getScaledValue("Loot.", "VanillaExperience", getLevel(), 0.0f);
-		if (settings.hasProperty("Loot.baseSkillAPIExperience"))
-			role.skillAPIExperience = settings.getScaledValue("Loot.", "SkillAPIExperience", getLevel(), 0.0f);
-
-		if (settings.hasProperty("Loot.baseChance"))
-			role.shouldDropLoot = (random.nextFloat() < settings.getScaledValue("Loot.", "Chance", getLevel(), 0.0f));
-		if (settings.hasProperty("Loot.definitionFile"))
-			role.lootDefinitionFile = settings.getString("Loot.definitionFile");
+		role.vanillaExperience = (int) template.vanillaExperience.evaluate(level);
+		role.skillAPIExperience = template.skillAPIExperience.evaluate(level);
+		if (template.hasLootChance)
+			role.shouldDropLoot = (random.nextFloat() < template.lootChance.evaluate(level));
+		role.lootDefinitionFile = template.lootDefinitionFile;
 
 		// Load up the equipment from the mob
-		if (settings.hasProperty("Equipment"))
-		{
-			if (settings.hasProperty("Equipment.allowPickup"))
-				entity.setCanPickupItems(settings.getBoolean("Equipment.allowPickup"));
-
-			EntityEquipment equipment = getEntity().getEquipment();
-
-			String weaponItem = settings.getString("Equipment.weaponItem");
-			String weaponSideItem = settings.getString("Equipment.weaponSideItem");
-			String helmetItem = settings.getString("Equipment.helmetItem");
-			String chestplateItem = settings.getString("Equipment.chestplateItem");
-			String leggingsItem = settings.getString("Equipment.leggingsItem");
-			String bootsItem = settings.getString("Equipment.bootsItem");
-
-			if (!weaponItem.equals(""))
-				equipment.setItemInMainHand(weaponItem.equals("none") ? null : Common.getItemStack(weaponItem));
-			if (!weaponSideItem.equals(""))
-				equipment.setItemInOffHand(weaponSideItem.equals("none") ? null : Common.getItemStack(weaponSideItem));
-			if (!helmetItem.equals(""))
-				equipment.setHelmet(helmetItem.equals("none") ? null : Common.getItemStack(helmetItem));
-			if (!chestplateItem.equals(""))
-				equipment.setChestplate(chestplateItem.equals("none") ? null : Common.getItemStack(chestplateItem));
-			if (!leggingsItem.equals(""))
-				equipment.setLeggings(leggingsItem.equals("none") ? null : Common.getItemStack(leggingsItem));
-			if (!bootsItem.equals(""))
-				equipment.setBoots(bootsItem.equals("none") ? null : Common.getItemStack(bootsItem));
-
-			if (settings.hasProperty("Equipment.weaponDropChance"))
-				equipment.setItemInMainHandDropChance(settings.getFloat("Equipment.weaponDropChance"));
-			if (settings.hasProperty("Equipment.weaponSideDropChance"))
-				equipment.setItemInOffHandDropChance(settings.getFloat("Equipment.weaponSideDropChance"));
-			if (settings.hasProperty("Equipment.helmetDropChance"))
-				equipment.setHelmetDropChance(settings.getFloat("Equipment.helmetDropChance"));
-			if (settings.hasProperty("Equipment.chestplateDropChance"))
-				equipment.setChestplateDropChance(settings.getFloat("Equipment.chestplateDropChance"));
-			if (settings.hasProperty("Equipment.leggingsDropChance"))
-				equipment.setLeggingsDropChance(settings.getFloat("Equipment.leggingsDropChance"));
-			if (settings.hasProperty("Equipment.bootsDropChance"))
-				equipment.setBootsDropChance(settings.getFloat("Equipment.bootsDropChance"));
+		if (template.hasEquipment())
+		{
+			if (template.getAllowPickup() != null)
+				entity.setCanPickupItems(template.getAllowPickup());
+			template.applyEquipment(getEntity().getEquipment());
 		}
 
 		// Load up all the abilities
-		loadRoleAbilities(roleName, "Passives");
-		loadRoleAbilities(roleName, "Actives");
+		for (AbilitySpec spec : template.abilities)
+			loadRoleAbility(spec, level);
 
 		// Load up stats from the role
-		float armorScale = pluginSettings.getFloat("General.Mobs.armorScale");
-		if (settings.hasProperty("Stats.baseMeleeArmor"))
-			role.baseMeleeArmor = armorScale * settings.getFloat("Stats.baseMeleeArmor");
-		if (settings.hasProperty("Stats.scaleMeleeArmor"))
-			role.scaleMeleeArmor = armorScale * settings.getFloat("Stats.scaleMeleeArmor");
-		if (settings.hasProperty("Stats.baseMagicArmor"))
-			role.baseMagicArmor = armorScale * settings.getFloat("Stats.baseMagicArmor");
-		if (settings.hasProperty("Stats.scaleMagicArmor"))
-			role.scaleMagicArmor = armorScale * settings.getFloat("Stats.scaleMagicArmor");
-		if (settings.hasProperty("Stats.baseArrowArmor"))
-			role.baseArrowArmor = armorScale * settings.getFloat("Stats.baseArrowArmor");
-		if (settings.hasProperty("Stats.scaleArrowArmor"))
-			role.scaleArrowArmor = armorScale * settings.getFloat("Stats.scaleArrowArmor");
-		if (settings.hasProperty("Stats.baseRangedArmor"))
-			role.baseRangedArmor = armorScale * settings.getFloat("Stats.baseRangedArmor");
-		if (settings.hasProperty("Stats.scaleRangedArmor"))
-			role.scaleRangedArmor = armorScale * settings.getFloat("Stats.scaleRangedArmor");
-
-		if (settings.hasProperty("Stats.baseAttackCooldown") || settings.hasProperty("Stats.scaleAttackCooldown"))
-			role.attackCooldownTime = settings.getScaledValue("General.", "AttackCooldown", getLevel(), pluginSettings.getFloat("General.Attacks.attackCooldown"));
-	}
-
-	/** Loads up the abilities */
-	private void loadRoleAbilities(String roleName, String abilityGroup)
-	{
-		Settings settings = SettingsRoles.getConfig(roleName);
-		String abilityPath = abilityGroup + ".";
-
-		// Load up all the abilities from the role
-		Set<String> abilities = settings.getKeys(abilityGroup);
-		for (String abilityName : abilities)
-		{
-			// Check if there's more than one of this ability
-			String abilityIndex = "";
-			if (abilityName.contains("-"))
-			{
-				String[] components = abilityName.split("-");
-				abilityName = components[0];
-				abilityIndex = "-" + components[1];
-			}
+		role.baseMeleeArmor = template.baseMeleeArmor;
+		role.scaleMeleeArmor = template.scaleMeleeArmor;
+		role.baseMagicArmor = template.baseMagicArmor;
+		role.scaleMagicArmor = template.scaleMagicArmor;
+		role.baseArrowArmor = template.baseArrowArmor;
+		role.scaleArrowArmor = template.scaleArrowArmor;
+		role.baseRangedArmor = template.baseRangedArmor;
+		role.scaleRangedArmor = template.scaleRangedArmor;
+		role.attackCooldownTime = template.attackCooldown.evaluate(level);
+	}
 
-			// Grab the relevant configuration files
-			Settings baseAbilitySettings = null;
-			if (abilityGroup.equals("Passives"))
-				baseAbilitySettings = SettingsAbilities.getPassiveConfig(abilityName);
-			else if (abilityGroup.equals("Actives"))
-				baseAbilitySettings = SettingsAbilities.getActiveConfig(abilityName);
+	/** Loads up the given ability, if the mob is lucky enough to get it */
+	private void loadRoleAbility(AbilitySpec spec, float level)
+	{
+		if (random.nextFloat() >= spec.getChance(level))
+			return;
 
-			// Grabbing the relevant sub-section of the config file
-			Settings mobPart = settings.getBaseConfig(abilityPath + abilityName + abilityIndex);
+		// Create the ability with the parameters given by the role
+		Ability ability = spec.create(this, level);
+		if (ability instanceof Passive)
+			passives.get(ability.getPriority().ordinal()).add((Passive) ability);
+		else if (ability instanceof Active)
+			actives.get(ability.getPriority().ordinal()).add((Active) ability);
+		else
+			Log.log("Attempted to add invalid " + (spec.isPassive ? "passive" : "active") + " ability '" + spec.name + "' to mob '" + Integer.toString(index) + "'");
 
-			// If there's a chance of the ability being added, take that into consideration
-			float chance = mobPart.getScaledValue(baseAbilitySettings, "Chance", getLevel(), 1.0f);
-			float maxChance = mobPart.getScaledValue(baseAbilitySettings, "MaxChance", getLevel(), 1.0f);
-			if (random.nextFloat() < Math.min(maxChance, chance))
-			{
-				// Load up the ability and get the data about it from the configuration file
-				Ability ability = null;
-				if (abilityGroup.equals("Passives"))
-					ability = addPassive(abilityName);
-				else if (abilityGroup.equals("Actives"))
-					ability = addActive(abilityName);
-				if (ability != null)
-					ability.loadFromConfig(mobPart, baseAbilitySettings);
-
-				if (MMobSettings.isDebugmode)
-				{
-					if (ability != null)
-						Log.log("Added the '" + abilityName + "' (" + abilityGroup + ") ability to mob '" + Integer.toString(index) + "'");
-					else if (settings.getBoolean("General.debugmode"))
-						Log.log("Was unable to add the ability '" + abilityName + "' (" + abilityGroup + ") to mob '" + Integer.toString(index) + "'!", Level.WARNING);
-				}
-			}
+		if (MMobSettings.isDebugmode)
+		{
+			String abilityGroup = spec.isPassive ? "Passives" : "Actives";
+			if (ability != null)
+				Log.log("Added the '" + spec.name + "' (" + abilityGroup + ") ability to mob '" + Integer.toString(index) + "'");
+			else if (spec.isDebugged)
+				Log.log("Was unable to add the ability '" + spec.name + "' (" + abilityGroup + ") to mob '" + Integer.toString(index) + "'!", Level.WARNING);
 		}
 	}
 
@@ -717,6 +693,20 @@ public class MalevolentMob
 		return hideInfo;
 	}
 
+	/** Returns the title that should be displayed in the boss bar of the mob */
+	public String getBossBarTitle()
+	{
+		if (bossBarTitle == null || bossBarTitleRole != role || bossBarTitleName != role.mobName || bossBarTitleLevel != role.level || bossBarTitleHideInfo != hideInfo)
+		{
+			bossBarTitleRole = role;
+			bossBarTitleName = role.mobName;
+			bossBarTitleLevel = role.level;
+			bossBarTitleHideInfo = hideInfo;
+			bossBarTitle = ChatColor.translateAlternateColorCodes('&', role.mobName + (hideInfo ? "" : String.format(ChatColor.WHITE + " - Level %.0f ", role.level) + role.getName()));
+		}
+		return bossBarTitle;
+	}
+
 	/** Returns true if the entire boss bar should be disabled for the mob */
 	public boolean isBossBarHidden()
 	{
@@ -740,7 +730,7 @@ public class MalevolentMob
 	{
 		if (type == null)
 			return 1.0f;
-		float maxLevel = MMobPlugin.getSettings().getFloat("General.Mobs.maxLevel");
+		float maxLevel = MMobPlugin.getSettings().getGeneral().maxLevel;
 
 		// Return a completely random level, from 1 to maxLevel
 		if (type.equals("random"))
@@ -752,7 +742,7 @@ public class MalevolentMob
 			float totalPlayerLevel = 0.0f;
 			int playersCounted = 0;
 
-			List<Player> players = Common.getPlayersInRange(entity.getLocation(), MMobPlugin.getSettings().getFloat("General.Mobs.levelSearchDistance"));
+			List<Player> players = Common.getPlayersInRange(entity.getLocation(), MMobPlugin.getSettings().getGeneral().levelSearchDistance);
 			for (Player player : players)
 			{
 				int playerLevel = Common.getPlayerLevel(player);
@@ -798,34 +788,87 @@ public class MalevolentMob
 		return 1.0f;
 	}
 
-	/** Returns a list of the passives the mob has */
+	/** Returns a read-only list of the passives the mob has, from low to high priority */
 	public List<Passive> getPassives()
 	{
-		List<Passive> passives = new LinkedList<Passive>();
-		for (int i = 0; i < 3; i++)
+		return passiveView;
+	}
+
+	/** Returns a read-only list of the actives the mob has, from high to low priority */
+	public List<Active> getActives()
+	{
+		return activeView;
+	}
+
+	/** Returns a read-only list of targets detected by the mob */
+	public List<LivingEntity> getTargets()
+	{
+		return targetView;
+	}
+
+	/** Returns the distance to the target with the given index, as of the previous tick. Targets in other worlds are infinitely far away */
+	public float getTargetDistance(int index)
+	{
+		return targetDistances[index];
+	}
+
+	/** Replaces the targets of the mob with the first given number of targets planned by the target planner. If the targets were refreshed, the planner also decides when to refresh them again */
+	public void applyTargetPlan(LivingEntity[] targets, float[] distances, int count, int refreshInterval)
+	{
+		if (refreshInterval > 0)
+			targetUpdateTimer = refreshInterval;
+
+		if (targetDistances.length < count)
+			targetDistances = new float[Math.max(count, 2 * targetDistances.length)];
+
+		nearbyTargets.clear();
+		for (int i = 0; i < count; i++)
 		{
-			for (Passive passive : this.passives.get(i))
-				passives.add(passive);
+			targetDistances[nearbyTargets.size()] = distances[i];
+			nearbyTargets.add(targets[i]);
 		}
-		return passives;
 	}
 
-	/** Returns a list of the actives the mob has */
-	public List<Active> getActives()
+	/** Returns true if the mob wants to look for new targets, and clears the request */
+	public boolean takeTargetRefreshRequest()
 	{
-		List<Active> actives = new LinkedList<Active>();
-		for (int i = 0; i < 3; i++)
+		boolean isRequested = isTargetRefreshRequested;
+		isTargetRefreshRequested = false;
+		return isRequested;
+	}
+
+	/** Returns true if the mob has no players nearby, and is currently not doing anything */
+	public boolean isDormant()
+	{
+		return isDormant;
+	}
+
+	/** Puts the mob into or out of dormancy. When the mob wakes up, all timers are moved forward by the time the mob was dormant */
+	private void setDormant(boolean dormant)
+	{
+		if (dormant == isDormant)
+			return;
+		isDormant = dormant;
+
+		if (!dormant && ticksDormant > 0)
 		{
-			for (Active active : this.actives.get(i))
-				actives.add(active);
+			for (Passive passive : tickPassives)
+				passive.advanceTimers(ticksDormant);
+			for (Active active : tickActives)
+				active.advanceTimers(ticksDormant);
+			targetUpdateTimer = 0;
 		}
-		return actives;
+		ticksDormant = 0;
 	}
 
-	/** Returns a list of targets detected by the mob */
-	public List<LivingEntity> getTargets()
+	/** Puts the mob into dormancy as if it had been dormant for the given number of ticks; used when nothing has been ticked in the world of the mob for a while */
+	public void addIdleTicks(int ticks)
 	{
-		return nearbyTargets;
+		if (!isInitialized || ticks <= 0)
+			return;
+		setDormant(true);
+		ticksDormant += ticks;
+		activationCheckTimer = 0;
 	}
 
 	/** Returns true if the mob is a decoy */
@@ -0,0 +1,96 @@
+package com.hepolite.mmob.mobs;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import com.hepolite.mmob.utility.LongHashSet;
+
+/**
+ * The activation tracker keeps track of which chunks have players nearby. Malevolent mobs outside of these chunks have nobody to fight and may go dormant until a player comes close enough again
+ */
+public class MobActivationTracker
+{
+	// Control variables
+	private final HashMap<UUID, LongHashSet> activeChunks = new HashMap<UUID, LongHashSet>();
+	private final Location scratchLocation = new Location(null, 0.0, 0.0, 0.0);
+	private boolean isEnabled = false;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Marks all chunks within the activation range of any player as active. An activation range of 0 or less disables the tracker, which makes every location active */
+	public void update(float activationRange)
+	{
+		for (LongHashSet chunks : activeChunks.values())
+			chunks.clear();
+
+		isEnabled = activationRange > 0.0f;
+		if (!isEnabled)
+			return;
+
+		int chunkRange = (int) Math.ceil(activationRange / 16.0f);
+		for (Player player : Bukkit.getOnlinePlayers())
+		{
+			if (player.getGameMode() == GameMode.SPECTATOR)
+				continue;
+
+			Location location = player.getLocation(scratchLocation);
+			LongHashSet chunks = activeChunks.get(location.getWorld().getUID());
+			if (chunks == null)
+			{
+				chunks = new LongHashSet();
+				activeChunks.put(location.getWorld().getUID(), chunks);
+			}
+
+			int chunkX = location.getBlockX() >> 4;
+			int chunkZ = location.getBlockZ() >> 4;
+			for (int x = -chunkRange; x <= chunkRange; x++)
+			{
+				for (int z = -chunkRange; z <= chunkRange; z++)
+				{
+					if (x * x + z * z <= (chunkRange + 1) * (chunkRange + 1))
+						chunks.add(getChunkKey(chunkX + x, chunkZ + z));
+				}
+			}
+		}
+	}
+
+	/** Returns true if there is a player within the activation range of the chunk the entity is in */
+	public boolean isActive(LivingEntity entity)
+	{
+		if (!isEnabled)
+			return true;
+
+		Location location = entity.getLocation(scratchLocation);
+		LongHashSet chunks = activeChunks.get(location.getWorld().getUID());
+		return chunks != null && chunks.contains(getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+	}
+
+	/** Forgets about the active chunks in the given world */
+	public void removeWorld(UUID worldId)
+	{
+		activeChunks.remove(worldId);
+	}
+
+	/** Forgets about all active chunks */
+	public void clear()
+	{
+		activeChunks.clear();
+		isEnabled = false;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Packs the chunk coordinates into one number */
+	private static long getChunkKey(int chunkX, int chunkZ)
+	{
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+}
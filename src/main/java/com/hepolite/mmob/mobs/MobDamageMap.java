@@ -0,0 +1,89 @@
+package com.hepolite.mmob.mobs;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * The damage map keeps track of how much damage each player has dealt to a malevolent mob. Damage from other sources is stored under a null id. The entries are kept in plain arrays, as a mob is rarely
+ * fought by more than a handful of players at once
+ */
+public class MobDamageMap
+{
+	// Control variables
+	private UUID[] contributors = new UUID[4];
+	private double[] damage = new double[4];
+	private int size = 0;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Adds the given amount of damage to the contribution of the given player */
+	public void add(UUID contributor, double amount)
+	{
+		for (int i = 0; i < size; i++)
+		{
+			if (contributor == null ? contributors[i] == null : contributor.equals(contributors[i]))
+			{
+				damage[i] += amount;
+				return;
+			}
+		}
+
+		if (size == contributors.length)
+		{
+			contributors = Arrays.copyOf(contributors, 2 * size);
+			damage = Arrays.copyOf(damage, 2 * size);
+		}
+		contributors[size] = contributor;
+		damage[size] = amount;
+		size++;
+	}
+
+	/** Reduces the contribution of everyone by the given amount, forgetting about those that end up with nothing */
+	public void decay(double amount)
+	{
+		for (int i = size - 1; i >= 0; i--)
+		{
+			damage[i] -= amount;
+			if (damage[i] <= 0.0)
+			{
+				size--;
+				contributors[i] = contributors[size];
+				damage[i] = damage[size];
+				contributors[size] = null;
+			}
+		}
+	}
+
+	/** Returns the total damage contributed by everyone */
+	public double getTotalDamage()
+	{
+		double total = 0.0;
+		for (int i = 0; i < size; i++)
+			total += damage[i];
+		return total;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the number of contributors */
+	public int size()
+	{
+		return size;
+	}
+
+	/** Returns the id of the contributor at the given index; may be null for damage that wasn't dealt by players */
+	public UUID getContributor(int index)
+	{
+		return contributors[index];
+	}
+
+	/** Returns the damage dealt by the contributor at the given index */
+	public double getDamage(int index)
+	{
+		return damage[index];
+	}
+}
@@ -0,0 +1,169 @@
+package com.hepolite.mmob.mobs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.entity.Entity;
+
+/**
+ * The mob registry maps entity ids to malevolent mobs. The ids are stored in an open-addressing table of primitives, such that looking up an entity that isn't malevolent is a single probe in the common
+ * case, without allocating anything
+ */
+public class MobRegistry
+{
+	private final static int INITIAL_CAPACITY = 256;
+
+	// Control variables
+	private int[] keys = new int[INITIAL_CAPACITY];
+	private MalevolentMob[] values = new MalevolentMob[INITIAL_CAPACITY];
+	private int mask = INITIAL_CAPACITY - 1;
+	private int size = 0;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Stores the given mob in the registry, under the id of the entity it is associated with */
+	public void add(MalevolentMob mob)
+	{
+		if ((size + 1) * 2 > values.length)
+			resize(2 * values.length);
+
+		int id = mob.getEntity().getEntityId();
+		int slot = getSlot(id);
+		while (values[slot] != null)
+		{
+			if (keys[slot] == id)
+			{
+				values[slot] = mob;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = id;
+		values[slot] = mob;
+		size++;
+	}
+
+	/** Removes the given mob from the registry, if it is registered */
+	public void remove(MalevolentMob mob)
+	{
+		int id = mob.getEntity().getEntityId();
+		int slot = getSlot(id);
+		while (values[slot] != null)
+		{
+			if (keys[slot] == id)
+			{
+				if (values[slot] == mob)
+					removeSlot(slot);
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/** Returns the mob associated with the given entity, or null if there is no such mob */
+	public MalevolentMob get(Entity entity)
+	{
+		if (entity == null)
+			return null;
+
+		int id = entity.getEntityId();
+		int slot = getSlot(id);
+		while (values[slot] != null)
+		{
+			if (keys[slot] == id)
+				return values[slot];
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	/** Returns true if the given entity is associated with a mob in the registry */
+	public boolean contains(Entity entity)
+	{
+		return get(entity) != null;
+	}
+
+	/** Removes all mobs from the registry */
+	public void clear()
+	{
+		keys = new int[INITIAL_CAPACITY];
+		values = new MalevolentMob[INITIAL_CAPACITY];
+		mask = INITIAL_CAPACITY - 1;
+		size = 0;
+	}
+
+	/** Returns the number of mobs in the registry */
+	public int size()
+	{
+		return size;
+	}
+
+	/** Returns a list of all the mobs in the registry */
+	public List<MalevolentMob> getMobs()
+	{
+		List<MalevolentMob> mobs = new ArrayList<MalevolentMob>(size);
+		for (MalevolentMob mob : values)
+		{
+			if (mob != null)
+				mobs.add(mob);
+		}
+		return mobs;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the preferred slot for the given id */
+	private int getSlot(int id)
+	{
+		int hash = id * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	/** Empties the given slot, shifting the following entries back such that no lookups are broken by the gap */
+	private void removeSlot(int slot)
+	{
+		values[slot] = null;
+		size--;
+
+		int current = slot;
+		while (true)
+		{
+			current = (current + 1) & mask;
+			if (values[current] == null)
+				return;
+
+			// Entries that would still be found from their preferred slot stay where they are
+			int preferred = getSlot(keys[current]);
+			if (slot <= current ? (slot < preferred && preferred <= current) : (slot < preferred || preferred <= current))
+				continue;
+
+			keys[slot] = keys[current];
+			values[slot] = values[current];
+			values[current] = null;
+			slot = current;
+		}
+	}
+
+	/** Moves all entries over to tables of the given capacity */
+	private void resize(int capacity)
+	{
+		int[] oldKeys = keys;
+		MalevolentMob[] oldValues = values;
+
+		keys = new int[capacity];
+		values = new MalevolentMob[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++)
+		{
+			if (oldValues[i] == null)
+				continue;
+			int slot = getSlot(oldKeys[i]);
+			while (values[slot] != null)
+				slot = (slot + 1) & mask;
+			keys[slot] = oldKeys[i];
+			values[slot] = oldValues[i];
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.hepolite.mmob.mobs;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The mob tick scheduler spreads the ticking of the malevolent mobs out over time. Every tick, the mobs are processed in a round-robin fashion until either all mobs have been ticked or the time budget
+ * has been spent; the mobs that didn't fit within the budget are processed first in the following tick. The mobs are kept in a plain array, such that ticking them doesn't allocate anything
+ */
+public class MobTickScheduler
+{
+	// Control variables
+	private MalevolentMob[] mobs = new MalevolentMob[64];
+	private int size = 0;
+	private int cursor = 0;
+
+	private long tickBudget = 0;	// The time, in nanoseconds, that may be spent on ticking mobs each tick. 0 or less means no limit
+
+	// Statistics
+	private int mobsTicked = 0;
+	private int mobsDeferred = 0;
+	private long timeSpent = 0;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Ticks as many mobs as the budget allows, starting with the mobs that were left over from the previous tick. Mobs that are invalid are removed from the scheduler and added to the given list */
+	public void onTick(List<MalevolentMob> removedMobs)
+	{
+		long startTime = System.nanoTime();
+		int mobsToTick = size;
+		boolean removedAnyMobs = false;
+
+		mobsTicked = 0;
+		while (mobsTicked < mobsToTick)
+		{
+			// Always tick at least one mob, to guarantee that everything moves forward eventually
+			if (mobsTicked > 0 && tickBudget > 0 && System.nanoTime() - startTime >= tickBudget)
+				break;
+
+			if (cursor >= size)
+				cursor = 0;
+			MalevolentMob mob = mobs[cursor];
+			if (mob.getEntity().isValid() && mob.getRole() != null)
+				mob.onTick();
+			else
+			{
+				// Leave a hole behind, the holes are filled in once all mobs have been processed
+				mobs[cursor] = null;
+				removedMobs.add(mob);
+				removedAnyMobs = true;
+			}
+			cursor++;
+			mobsTicked++;
+		}
+
+		if (removedAnyMobs)
+			compact();
+		mobsDeferred = mobsToTick - mobsTicked;
+		timeSpent = System.nanoTime() - startTime;
+	}
+
+	/** Adds the mob to the scheduler; the mob will be ticked from the next tick and onwards */
+	public void add(MalevolentMob mob)
+	{
+		if (size == mobs.length)
+			mobs = Arrays.copyOf(mobs, 2 * mobs.length);
+		mobs[size++] = mob;
+	}
+
+	/** Removes all mobs from the scheduler */
+	public void clear()
+	{
+		Arrays.fill(mobs, 0, size, null);
+		size = 0;
+		cursor = 0;
+	}
+
+	/** Moves the remaining mobs together, keeping their order such that the cursor still points at the next mob in line */
+	private void compact()
+	{
+		int newSize = 0;
+		int newCursor = 0;
+		for (int i = 0; i < size; i++)
+		{
+			if (i == cursor)
+				newCursor = newSize;
+			if (mobs[i] != null)
+				mobs[newSize++] = mobs[i];
+		}
+		if (cursor >= size)
+			newCursor = newSize;
+
+		Arrays.fill(mobs, newSize, size, null);
+		size = newSize;
+		cursor = newCursor;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Sets the time, in nanoseconds, that may be spent on ticking mobs each tick. A value of 0 or less removes the limit */
+	public void setTickBudget(long tickBudget)
+	{
+		this.tickBudget = tickBudget;
+	}
+
+	/** Returns the time, in nanoseconds, that may be spent on ticking mobs each tick */
+	public long getTickBudget()
+	{
+		return tickBudget;
+	}
+
+	/** Returns a list of all mobs in the scheduler */
+	public List<MalevolentMob> getMobs()
+	{
+		return Arrays.asList(Arrays.copyOf(mobs, size));
+	}
+
+	/** Returns the mob at the given index */
+	public MalevolentMob get(int index)
+	{
+		return mobs[index];
+	}
+
+	/** Returns the number of mobs in the scheduler */
+	public int size()
+	{
+		return size;
+	}
+
+	/** Returns the number of mobs that were processed during the previous tick */
+	public int getMobsTicked()
+	{
+		return mobsTicked;
+	}
+
+	/** Returns the number of mobs that had to be carried over to the next tick during the previous tick */
+	public int getMobsDeferred()
+	{
+		return mobsDeferred;
+	}
+
+	/** Returns the time, in nanoseconds, that was spent on ticking mobs during the previous tick */
+	public long getTimeSpent()
+	{
+		return timeSpent;
+	}
+}
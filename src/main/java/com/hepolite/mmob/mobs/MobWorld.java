@@ -0,0 +1,138 @@
+package com.hepolite.mmob.mobs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+/**
+ * The mob world holds all malevolent mobs in one world, along with the scheduler that ticks them. Each world has its own registry, tick budget and statistics, such that the worlds don't affect each
+ * other. Worlds without any players are idle; nothing is ticked in them, and the mobs catch up as if they had been dormant once a player shows up. Entities that change worlds are respawned as new
+ * entities by the server, so a mob never has to move from one world to another
+ */
+public class MobWorld
+{
+	// Control variables
+	private final UUID worldId;
+	private final String worldName;
+
+	private final MobRegistry registry = new MobRegistry();
+	private final List<MalevolentMob> mobsToAdd = new ArrayList<MalevolentMob>();
+	private final MobTickScheduler scheduler = new MobTickScheduler();
+
+	private boolean hasPlayers = true;
+	private boolean isIdle = false;
+	private int ticksIdle = 0;
+
+	/* Initialization */
+	public MobWorld(World world)
+	{
+		worldId = world.getUID();
+		worldName = world.getName();
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Ticks the mobs in the world within the given budget, unless the world is idle. Mobs that are invalid are removed from the world and added to the given list */
+	public void onTick(List<MalevolentMob> removedMobs, long tickBudget)
+	{
+		// New mobs always get their first tick, such that they are set up properly even if nobody is around
+		isIdle = !hasPlayers && mobsToAdd.isEmpty();
+		if (isIdle)
+		{
+			ticksIdle++;
+			return;
+		}
+		for (int i = 0; i < mobsToAdd.size(); i++)
+			scheduler.add(mobsToAdd.get(i));
+		mobsToAdd.clear();
+
+		// Let the mobs know how long they have been left alone
+		if (ticksIdle > 0)
+		{
+			for (int i = 0; i < scheduler.size(); i++)
+				scheduler.get(i).addIdleTicks(ticksIdle);
+			ticksIdle = 0;
+		}
+
+		int firstRemoved = removedMobs.size();
+		scheduler.setTickBudget(tickBudget);
+		scheduler.onTick(removedMobs);
+		for (int i = firstRemoved; i < removedMobs.size(); i++)
+			registry.remove(removedMobs.get(i));
+	}
+
+	/** Adds the mob to the world; the mob will be ticked from the next tick and onwards */
+	public void add(MalevolentMob mob)
+	{
+		mobsToAdd.add(mob);
+		registry.add(mob);
+	}
+
+	/** Removes all mobs from the world */
+	public void clear()
+	{
+		registry.clear();
+		mobsToAdd.clear();
+		scheduler.clear();
+		ticksIdle = 0;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the id of the world */
+	public UUID getWorldId()
+	{
+		return worldId;
+	}
+
+	/** Returns the name of the world */
+	public String getWorldName()
+	{
+		return worldName;
+	}
+
+	/** Returns the malevolent mob associated with the given entity, or null if there is no such mob in this world */
+	public MalevolentMob get(Entity entity)
+	{
+		return registry.get(entity);
+	}
+
+	/** Adds all mobs in the world to the given list, including those that haven't been ticked yet */
+	public void collectMobs(List<MalevolentMob> mobs)
+	{
+		for (int i = 0; i < scheduler.size(); i++)
+			mobs.add(scheduler.get(i));
+		mobs.addAll(mobsToAdd);
+	}
+
+	/** Returns the number of mobs in the world, including those that haven't been ticked yet */
+	public int size()
+	{
+		return scheduler.size() + mobsToAdd.size();
+	}
+
+	/** Returns the scheduler that ticks the mobs in the world */
+	public MobTickScheduler getScheduler()
+	{
+		return scheduler;
+	}
+
+	/** Sets whether there are any players in the world; worlds without players go idle */
+	public void setHasPlayers(boolean hasPlayers)
+	{
+		this.hasPlayers = hasPlayers;
+	}
+
+	/** Returns true if nothing was ticked in the world during the previous tick */
+	public boolean isIdle()
+	{
+		return isIdle;
+	}
+}
@@ -0,0 +1,318 @@
+package com.hepolite.mmob.mobs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.bukkit.ChatColor;
+import org.bukkit.inventory.EntityEquipment;
+import org.bukkit.inventory.ItemStack;
+
+import com.hepolite.mmob.ConfigGeneration;
+import com.hepolite.mmob.GeneralSettings;
+import com.hepolite.mmob.Log;
+import com.hepolite.mmob.abilities.Ability;
+import com.hepolite.mmob.abilities.AbilityParameters;
+import com.hepolite.mmob.handlers.AbilityHandler;
+import com.hepolite.mmob.handlers.AbilityHandler.Factory;
+import com.hepolite.mmob.settings.ScaledValue;
+import com.hepolite.mmob.settings.Settings;
+import com.hepolite.mmob.utility.Common;
+
+/**
+ * The role template is a compiled copy of the config file of a role, with the config files of all its parent roles merged into it. Whenever a property is found in more than one file, the one closest
+ * to the role itself is used. Everything that doesn't depend on the level or on chance is worked out when the template is created, such that a mob only has to copy the values over when it spawns. The
+ * template never changes after it is created; a new one is made whenever the config is reloaded, possibly away from the main thread
+ */
+public final class RoleTemplate
+{
+	private final static String[] EQUIPMENT_SLOTS = new String[] { "weapon", "weaponSide", "helmet", "chestplate", "leggings", "boots" };
+	private final static int MAX_PARENT_DEPTH = 16;
+
+	/** The settings of one ability the role may have */
+	public static final class AbilitySpec
+	{
+		public final String name;
+		public final boolean isPassive;
+		public final AbilityParameters parameters;
+		public final boolean isDebugged;
+		private final Factory<? extends Ability> factory;	// Null if the ability doesn't exist or is disabled
+		private final ScaledValue chance, maxChance;
+
+		/* Initialization */
+		private AbilitySpec(ConfigGeneration generation, Settings roleSettings, String group, String key, boolean isPassive)
+		{
+			this.name = key.contains("-") ? key.split("-")[0] : key;
+			this.isPassive = isPassive;
+			Settings alternative = isPassive ? generation.getPassiveConfig(name) : generation.getActiveConfig(name);
+			if (alternative == null)
+				Log.log("Couldn't find config for " + (isPassive ? "passive" : "active") + " ability '" + name + "'!", Level.WARNING);
+			this.parameters = new AbilityParameters(roleSettings.getView(group + "." + key, alternative));
+			this.isDebugged = roleSettings.getBoolean("General.debugmode");
+			this.factory = isPassive ? AbilityHandler.getPassiveFactory(generation, name) : AbilityHandler.getActiveFactory(generation, name);
+			this.chance = parameters.getScaledValueHandle("Chance", 1.0f);
+			this.maxChance = parameters.getScaledValueHandle("MaxChance", 1.0f);
+		}
+
+		/** Returns the chance that a mob of the given level gets the ability */
+		public float getChance(float level)
+		{
+			return Math.min(maxChance.evaluate(level), chance.evaluate(level));
+		}
+
+		/** Returns a new instance of the ability for the given mob, or null if the ability doesn't exist or is disabled */
+		public Ability create(MalevolentMob mob, float level)
+		{
+			if (factory == null)
+				return null;
+			Ability ability = factory.create(mob, level);
+			ability.loadFromConfig(parameters);
+			return ability;
+		}
+	}
+
+	// Control variables
+	public final String name;
+	public final boolean isEnabled;
+
+	public final String levelType;			// Null if the level isn't changed by the role
+	public final String customName;			// Null if the mob should keep its own name
+	public final String displayName;		// The custom name with color codes translated
+	public final boolean hideInfo, hideBossBar;
+	public final boolean isAIControlled, isOnPlayerSide;
+
+	public final boolean hasHealth;
+	public final ScaledValue health;		// Already multiplied by the health scale
+
+	public final ScaledValue vanillaExperience;
+	public final ScaledValue skillAPIExperience;
+	public final boolean hasLootChance;
+	public final ScaledValue lootChance;
+	public final String lootDefinitionFile;
+
+	public final float baseMeleeArmor, scaleMeleeArmor;		// Already multiplied by the armor scale
+	public final float baseMagicArmor, scaleMagicArmor;
+	public final float baseArrowArmor, scaleArrowArmor;
+	public final float baseRangedArmor, scaleRangedArmor;
+	public final ScaledValue attackCooldown;
+
+	private final boolean hasEquipment;
+	private final Boolean allowPickup;
+	private final boolean[] hasItems = new boolean[EQUIPMENT_SLOTS.length];
+	private final ItemStack[] items = new ItemStack[EQUIPMENT_SLOTS.length];	// The items are copied before they are handed out
+	private final float[] dropChances = new float[EQUIPMENT_SLOTS.length];	// NaN if the drop chance isn't changed
+
+	public final List<AbilitySpec> abilities;	// Parent abilities come first
+
+	/* Initialization */
+	public RoleTemplate(ConfigGeneration generation, String name, Settings settings, GeneralSettings pluginSettings)
+	{
+		this.name = name;
+
+		// Gather up the role and all its parents, from the role itself and up
+		List<Settings> layers = new ArrayList<Settings>();
+		layers.add(settings);
+		while (layers.get(layers.size() - 1).hasProperty("General.parentRole"))
+		{
+			String parentRole = layers.get(layers.size() - 1).getString("General.parentRole");
+			Settings parent = generation.getRoleConfig(parentRole);
+			if (parent == null || layers.contains(parent) || layers.size() > MAX_PARENT_DEPTH)
+			{
+				Log.log("Role '" + name + "' has an invalid parent role '" + parentRole + "'; the parent is ignored", Level.WARNING);
+				break;
+			}
+			layers.add(parent);
+		}
+
+		// Header data; the AI and side of the mob have never been inherited from parent roles
+		isEnabled = settings.getBoolean("enable");
+		Settings layer = find(layers, "General.level");
+		levelType = layer == null ? null : layer.getString("General.level");
+		layer = find(layers, "General.customName");
+		customName = layer == null ? null : layer.getString("General.customName");
+		displayName = customName == null ? null : ChatColor.translateAlternateColorCodes('&', customName);
+		layer = find(layers, "General.hideInfo");
+		hideInfo = layer != null && layer.getBoolean("General.hideInfo");
+		layer = find(layers, "General.hideBossBar");
+		hideBossBar = layer != null && layer.getBoolean("General.hideBossBar");
+		isAIControlled = settings.hasProperty("General.ai") ? settings.getBoolean("General.ai") : true;
+		isOnPlayerSide = settings.hasProperty("General.playerSide") ? settings.getBoolean("General.playerSide") : false;
+
+		// Health
+		layer = find(layers, "General.baseHealth");
+		hasHealth = layer != null;
+		health = hasHealth ? layer.getScaledValueHandle("General.", "Health").multiply(pluginSettings.healthScale) : ScaledValue.ZERO;
+
+		// Experience and loot
+		layer = find(layers, "Loot.baseVanillaExperience");
+		vanillaExperience = layer == null ? ScaledValue.ZERO : layer.getScaledValueHandle("Loot.", "VanillaExperience");
+		layer = find(layers, "Loot.baseSkillAPIExperience");
+		skillAPIExperience = layer == null ? ScaledValue.ZERO : layer.getScaledValueHandle("Loot.", "SkillAPIExperience");
+		layer = find(layers, "Loot.baseChance");
+		hasLootChance = layer != null;
+		lootChance = hasLootChance ? layer.getScaledValueHandle("Loot.", "Chance") : ScaledValue.ZERO;
+		layer = find(layers, "Loot.definitionFile");
+		lootDefinitionFile = layer == null ? "" : layer.getString("Loot.definitionFile");
+
+		// Equipment
+		hasEquipment = find(layers, "Equipment") != null;
+		layer = find(layers, "Equipment.allowPickup");
+		allowPickup = layer == null ? null : layer.getBoolean("Equipment.allowPickup");
+		for (int i = 0; i < EQUIPMENT_SLOTS.length; i++)
+		{
+			String item = "";
+			for (Settings candidate : layers)
+			{
+				item = candidate.getString("Equipment." + EQUIPMENT_SLOTS[i] + "Item");
+				if (!item.equals(""))
+					break;
+			}
+			hasItems[i] = !item.equals("");
+			items[i] = (!hasItems[i] || item.equals("none")) ? null : Common.getItemStack(item);
+
+			layer = find(layers, "Equipment." + EQUIPMENT_SLOTS[i] + "DropChance");
+			dropChances[i] = layer == null ? Float.NaN : layer.getFloat("Equipment." + EQUIPMENT_SLOTS[i] + "DropChance");
+		}
+
+		// Stats
+		float armorScale = pluginSettings.armorScale;
+		baseMeleeArmor = armorScale * getFloat(layers, "Stats.baseMeleeArmor");
+		scaleMeleeArmor = armorScale * getFloat(layers, "Stats.scaleMeleeArmor");
+		baseMagicArmor = armorScale * getFloat(layers, "Stats.baseMagicArmor");
+		scaleMagicArmor = armorScale * getFloat(layers, "Stats.scaleMagicArmor");
+		baseArrowArmor = armorScale * getFloat(layers, "Stats.baseArrowArmor");
+		scaleArrowArmor = armorScale * getFloat(layers, "Stats.scaleArrowArmor");
+		baseRangedArmor = armorScale * getFloat(layers, "Stats.baseRangedArmor");
+		scaleRangedArmor = armorScale * getFloat(layers, "Stats.scaleRangedArmor");
+
+		layer = null;
+		for (Settings candidate : layers)
+		{
+			if (candidate.hasProperty("Stats.baseAttackCooldown") || candidate.hasProperty("Stats.scaleAttackCooldown"))
+			{
+				layer = candidate;
+				break;
+			}
+		}
+		attackCooldown = layer == null ? ScaledValue.ZERO : layer.getScaledValueHandle("General.", "AttackCooldown");
+
+		// Abilities; every role in the chain adds its own, starting with the topmost parent
+		List<AbilitySpec> abilities = new ArrayList<AbilitySpec>();
+		for (int i = layers.size() - 1; i >= 0; i--)
+		{
+			addAbilities(generation, abilities, layers.get(i), "Passives", true);
+			addAbilities(generation, abilities, layers.get(i), "Actives", false);
+		}
+		this.abilities = Collections.unmodifiableList(abilities);
+	}
+
+	/** Returns the role closest to the role itself that has the given property, or null if none of them has it */
+	private static Settings find(List<Settings> layers, String property)
+	{
+		for (Settings layer : layers)
+		{
+			if (layer.hasProperty(property))
+				return layer;
+		}
+		return null;
+	}
+
+	/** Returns the given property from the role closest to the role itself that has it, or 0 if none of them has it */
+	private static float getFloat(List<Settings> layers, String property)
+	{
+		Settings layer = find(layers, property);
+		return layer == null ? 0.0f : layer.getFloat(property);
+	}
+
+	/** Adds all abilities in the given group of the given role to the list */
+	private static void addAbilities(ConfigGeneration generation, List<AbilitySpec> abilities, Settings settings, String group, boolean isPassive)
+	{
+		Set<String> keys = settings.getKeys(group);
+		for (String key : keys)
+			abilities.add(new AbilitySpec(generation, settings, group, key, isPassive));
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns true if the role changes the equipment of the mob */
+	public boolean hasEquipment()
+	{
+		return hasEquipment;
+	}
+
+	/** Hands out copies of the equipment of the role, and sets the drop chances */
+	public void applyEquipment(EntityEquipment equipment)
+	{
+		for (int i = 0; i < EQUIPMENT_SLOTS.length; i++)
+		{
+			if (hasItems[i])
+				setItem(equipment, i, items[i] == null ? null : items[i].clone());
+			if (!Float.isNaN(dropChances[i]))
+				setDropChance(equipment, i, dropChances[i]);
+		}
+	}
+
+	/** Returns whether the mob may pick up items, or null if the role doesn't say */
+	public Boolean getAllowPickup()
+	{
+		return allowPickup;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Puts the item in the given slot */
+	private static void setItem(EntityEquipment equipment, int slot, ItemStack item)
+	{
+		switch (slot)
+		{
+		case 0:
+			equipment.setItemInMainHand(item);
+			break;
+		case 1:
+			equipment.setItemInOffHand(item);
+			break;
+		case 2:
+			equipment.setHelmet(item);
+			break;
+		case 3:
+			equipment.setChestplate(item);
+			break;
+		case 4:
+			equipment.setLeggings(item);
+			break;
+		default:
+			equipment.setBoots(item);
+			break;
+		}
+	}
+
+	/** Sets the drop chance of the given slot */
+	private static void setDropChance(EntityEquipment equipment, int slot, float chance)
+	{
+		switch (slot)
+		{
+		case 0:
+			equipment.setItemInMainHandDropChance(chance);
+			break;
+		case 1:
+			equipment.setItemInOffHandDropChance(chance);
+			break;
+		case 2:
+			equipment.setHelmetDropChance(chance);
+			break;
+		case 3:
+			equipment.setChestplateDropChance(chance);
+			break;
+		case 4:
+			equipment.setLeggingsDropChance(chance);
+			break;
+		default:
+			equipment.setBootsDropChance(chance);
+			break;
+		}
+	}
+}
@@ -0,0 +1,338 @@
+package com.hepolite.mmob.mobs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+
+import com.hepolite.mmob.Log;
+import com.hepolite.mmob.mobs.TargetSnapshot.Entry;
+import com.hepolite.mmob.mobs.TargetSnapshot.Group;
+import com.hepolite.mmob.mobs.TargetSnapshot.MobEntry;
+import com.hepolite.mmob.utility.SpatialGrid;
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
+
+/**
+ * The target planner figures out which entities each malevolent mob is targeting, and how far away each target is. Every tick, a snapshot of the positions of all mobs and potential targets is taken on
+ * the main thread and handed over to a pool of worker threads. The results are applied to the mobs on the main thread once they are ready, which is usually the following tick. The actives use the
+ * planned distances when deciding what to cast on whom, while the casting itself stays on the main thread. Without any worker threads, the planning is done on the main thread right away.
+ * <p>
+ * The main thread never waits for the workers, but plans are not allowed to grow old either. If the workers haven't finished a plan within a few ticks, the plan is thrown away once it is done, and the
+ * planning is done on the main thread until the workers have caught up. The snapshots, and every buffer the planning needs, are reused from one plan to the next.
+ * <p>
+ * New targets are looked up in the grids of the snapshot. The mobs that look for new targets are grouped by the grid cell they are in, and the candidates near a group are collected with a single
+ * query that covers every mob in the group; each mob then only picks its targets from those candidates. The mobs look for new targets more often when candidates are close to the edge of their reach
+ * or moving quickly, but never less often than they used to
+ */
+public class TargetPlanner
+{
+	private final static int MIN_REFRESH_INTERVAL = 5;
+	private final static int MAX_REFRESH_INTERVAL = 20;	// The fixed interval the mobs used to have
+	private final static int MAX_PLAN_AGE = 5;			// Ticks; plans that take longer than this are thrown away
+	private final static double MIN_SPEED = 0.05;		// Blocks per tick; keeps entities that stand still from being ignored for too long
+
+	// Control variables
+	private ExecutorService executor = null;
+	private PlanBatch[] workerBatches = new PlanBatch[0];
+	private final PlanBatch mainBatch = new PlanBatch();
+
+	private final List<TargetSnapshot> freeSnapshots = new ArrayList<TargetSnapshot>();
+	private final List<TargetSnapshot> abandonedSnapshots = new ArrayList<TargetSnapshot>();	// Still being planned by the workers, but too old to be used
+	private TargetSnapshot pendingSnapshot = null;		// Being planned by the workers
+	private TargetSnapshot previousSnapshot = null;		// Used to measure how fast entities are moving
+	private int tick = 0;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Applies the plans that are done, and starts planning for the given mobs if the previous planning has been completed. Must be called on the main thread */
+	public void onTick(List<MalevolentMob> mobs, float targetAquireDistance, float targetLoseDistance)
+	{
+		tick++;
+
+		// Snapshots that were given up on can be reused once the workers are done with them
+		for (int i = abandonedSnapshots.size() - 1; i >= 0; i--)
+		{
+			if (abandonedSnapshots.get(i).pendingBatches.get() == 0)
+				release(abandonedSnapshots.remove(i));
+		}
+
+		// Wait for the workers to finish before starting on a new plan; the main thread is never blocked, but plans that grow too old are given up on
+		if (pendingSnapshot != null)
+		{
+			if (pendingSnapshot.pendingBatches.get() == 0)
+			{
+				TargetSnapshot snapshot = pendingSnapshot;
+				pendingSnapshot = null;
+				applyPlans(snapshot);
+				release(snapshot);
+			}
+			else if (tick - pendingSnapshot.getTick() <= MAX_PLAN_AGE)
+				return;
+			else
+			{
+				abandonedSnapshots.add(pendingSnapshot);
+				pendingSnapshot = null;
+			}
+		}
+
+		// Start planning for the next tick
+		TargetSnapshot snapshot = freeSnapshots.isEmpty() ? new TargetSnapshot() : freeSnapshots.remove(freeSnapshots.size() - 1);
+		snapshot.take(mobs, targetAquireDistance, targetLoseDistance, previousSnapshot, tick);
+		TargetSnapshot oldSnapshot = previousSnapshot;
+		previousSnapshot = snapshot;
+		if (oldSnapshot != null)
+			release(oldSnapshot);
+
+		// The work is split up by groups of mobs looking for new targets, and by mobs that keep their targets. The workers only get the snapshot if they aren't still busy with one that was given up on
+		int workCount = snapshot.getGroupCount() + snapshot.getKeptMobCount();
+		if (workerBatches.length == 0 || !abandonedSnapshots.isEmpty() || workCount == 0)
+		{
+			snapshot.pendingBatches.set(1);
+			mainBatch.begin(snapshot, 0, workCount);
+			mainBatch.run();
+			applyPlans(snapshot);
+			return;
+		}
+
+		int batchSize = (workCount + workerBatches.length - 1) / workerBatches.length;
+		int batchCount = (workCount + batchSize - 1) / batchSize;
+		snapshot.pendingBatches.set(batchCount);
+		pendingSnapshot = snapshot;
+		for (int i = 0; i < batchCount; i++)
+		{
+			workerBatches[i].begin(snapshot, i * batchSize, Math.min(workCount, (i + 1) * batchSize));
+			executor.execute(workerBatches[i]);
+		}
+	}
+
+	/** Sets the number of worker threads used for planning. With 0 threads, all planning is done on the main thread */
+	public void setThreadCount(int count)
+	{
+		count = Math.max(0, count);
+		if (count == workerBatches.length)
+			return;
+
+		shutdown();
+		workerBatches = new PlanBatch[count];
+		for (int i = 0; i < count; i++)
+			workerBatches[i] = new PlanBatch();
+		if (count > 0)
+		{
+			executor = Executors.newFixedThreadPool(count, new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable runnable)
+				{
+					Thread thread = new Thread(runnable, "MalevolentMobs target planner");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/** Throws away all plans that haven't been applied yet */
+	public void clear()
+	{
+		if (pendingSnapshot != null)
+			abandonedSnapshots.add(pendingSnapshot);
+		pendingSnapshot = null;
+		TargetSnapshot oldSnapshot = previousSnapshot;
+		previousSnapshot = null;
+		if (oldSnapshot != null)
+			release(oldSnapshot);
+	}
+
+	/** Stops all worker threads */
+	public void shutdown()
+	{
+		clear();
+		if (executor != null)
+			executor.shutdownNow();
+		executor = null;
+		workerBatches = new PlanBatch[0];
+
+		// Workers that were stopped never finish their snapshots, so those can't be reused
+		abandonedSnapshots.clear();
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the snapshot to the pool, unless it is still in use */
+	private void release(TargetSnapshot snapshot)
+	{
+		if (snapshot == previousSnapshot || snapshot == pendingSnapshot || abandonedSnapshots.contains(snapshot))
+			return;
+		snapshot.reset();
+		freeSnapshots.add(snapshot);
+	}
+
+	/** Applies the plans in the given snapshot to their respective mobs */
+	private static void applyPlans(TargetSnapshot snapshot)
+	{
+		RuntimeException failure = snapshot.planningFailure;
+		if (failure != null)
+		{
+			Log.log("Failed to plan the targets of malevolent mobs: " + failure, Level.WARNING);
+			return;
+		}
+
+		for (int i = 0; i < snapshot.getMobCount(); i++)
+		{
+			MobEntry entry = snapshot.getMob(i);
+			if (entry.mob.getEntity().isValid() && entry.mob.getRole() != null)
+				entry.mob.applyTargetPlan(entry.plannedTargets, entry.plannedDistances, entry.plannedTargetCount, entry.refreshInterval);
+		}
+	}
+
+	/**
+	 * Plans the targets of a range of the work in a snapshot; the groups of mobs looking for new targets come first, followed by the mobs that keep their targets. The batch keeps the buffers it needs
+	 * between runs. Must not touch anything but the snapshot, as it may run on any thread
+	 */
+	private static final class PlanBatch implements Runnable, Visitor<Entry>
+	{
+		private final List<Entry> targets = new ArrayList<Entry>();
+		private final List<Entry> candidates = new ArrayList<Entry>();
+		private int[] marks = new int[64];	// The last mob each entry was added to, such that no mob gets the same target twice
+		private int mark = 0;
+
+		private TargetSnapshot snapshot = null;
+		private int start = 0, end = 0;
+
+		/** Prepares the batch for planning the given range of the work */
+		private void begin(TargetSnapshot snapshot, int start, int end)
+		{
+			this.snapshot = snapshot;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public void run()
+		{
+			TargetSnapshot snapshot = this.snapshot;
+			try
+			{
+				plan(snapshot);
+			}
+			catch (RuntimeException exception)
+			{
+				snapshot.planningFailure = exception;
+			}
+			finally
+			{
+				this.snapshot = null;
+				targets.clear();
+				candidates.clear();
+				snapshot.pendingBatches.decrementAndGet();
+			}
+		}
+
+		@Override
+		public void visit(Entry candidate, double distanceSquared)
+		{
+			candidates.add(candidate);
+		}
+
+		/** Plans the targets of the mobs in the range */
+		private void plan(TargetSnapshot snapshot)
+		{
+			if (marks.length < snapshot.getEntryCount())
+			{
+				marks = new int[Math.max(snapshot.getEntryCount(), 2 * marks.length)];
+				mark = 0;
+			}
+
+			for (int i = start; i < end; i++)
+			{
+				if (i < snapshot.getGroupCount())
+					planGroup(snapshot, snapshot.getGroup(i));
+				else
+				{
+					MobEntry mob = snapshot.getKeptMob(i - snapshot.getGroupCount());
+					for (int j = mob.targetStart; j < mob.targetEnd; j++)
+					{
+						Entry target = snapshot.getMobTarget(j);
+						mob.addPlannedTarget(target.entity, (float) Math.sqrt(mob.self.distanceSquared(target)));
+					}
+				}
+			}
+		}
+
+		/** Collects the candidates near the group once, and then picks the targets of each mob in the group from them */
+		private void planGroup(TargetSnapshot snapshot, Group group)
+		{
+			double aquireDistance = snapshot.getTargetAquireDistance();
+			double aquireDistanceSquared = aquireDistance * aquireDistance;
+			double loseDistance = snapshot.getTargetLoseDistance();
+			double loseDistanceSquared = loseDistance * loseDistance;
+
+			candidates.clear();
+			SpatialGrid<Entry> grid = group.huntsMonsters ? snapshot.getMonsterGrid(group.world) : snapshot.getPlayerGrid(group.world);
+			if (grid != null)
+				grid.forEachInRange(group.x, group.y, group.z, group.radius + loseDistance, this);
+
+			for (int i = 0; i < group.getMemberCount(); i++)
+			{
+				MobEntry mob = group.getMember(snapshot, i);
+				targets.clear();
+
+				// Marks from earlier mobs are all lower than the current one; start over if the marks run out
+				if (++mark == Integer.MAX_VALUE)
+				{
+					Arrays.fill(marks, 0);
+					mark = 1;
+				}
+
+				// Remove targets that are beyond the reach of the mob
+				for (int j = mob.targetStart; j < mob.targetEnd; j++)
+				{
+					Entry target = snapshot.getMobTarget(j);
+					if (marks[target.index] != mark && mob.self.distanceSquared(target) < loseDistanceSquared)
+					{
+						marks[target.index] = mark;
+						targets.add(target);
+					}
+				}
+
+				// Add the mob target and all nearby candidates, and figure out how soon the next one may show up. Candidates beyond the search range may move quickly; assume they could cover a
+				// block each tick
+				if (mob.creatureTarget != null && marks[mob.creatureTarget.index] != mark)
+				{
+					marks[mob.creatureTarget.index] = mark;
+					targets.add(0, mob.creatureTarget);
+				}
+				double ticksUntilArrival = Math.max(0.0, loseDistance - aquireDistance);
+				for (int j = 0; j < candidates.size(); j++)
+				{
+					Entry candidate = candidates.get(j);
+					if (candidate.entity == mob.self.entity)
+						continue;
+					double distanceSquared = mob.self.distanceSquared(candidate);
+					if (distanceSquared >= loseDistanceSquared)
+						continue;
+					if (distanceSquared < aquireDistanceSquared)
+					{
+						if (marks[candidate.index] != mark)
+						{
+							marks[candidate.index] = mark;
+							targets.add(candidate);
+						}
+					}
+					else
+						ticksUntilArrival = Math.min(ticksUntilArrival, (Math.sqrt(distanceSquared) - aquireDistance) / Math.max(MIN_SPEED, candidate.speed));
+				}
+				mob.refreshInterval = Math.max(MIN_REFRESH_INTERVAL, Math.min(MAX_REFRESH_INTERVAL, (int) ticksUntilArrival));
+
+				// Measure the distance to every target; targets in other worlds are infinitely far away
+				for (int j = 0; j < targets.size(); j++)
+					mob.addPlannedTarget(targets.get(j).entity, (float) Math.sqrt(mob.self.distanceSquared(targets.get(j))));
+			}
+		}
+	}
+}
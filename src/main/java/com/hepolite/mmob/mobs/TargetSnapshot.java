@@ -0,0 +1,556 @@
+package com.hepolite.mmob.mobs;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Creature;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import com.hepolite.mmob.utility.EntityFilter;
+import com.hepolite.mmob.utility.EntityIndex;
+import com.hepolite.mmob.utility.LongHashMap;
+import com.hepolite.mmob.utility.SpatialGrid;
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
+
+/**
+ * A target snapshot holds the positions of the malevolent mobs, their targets and all potential targets at the moment it was taken. A snapshot is only written to on the main thread while it is being
+ * taken, after which it is handed over to other threads that only read it. The entities are only stored such that the results can be associated with them later; they must never be touched outside of
+ * the main thread.
+ * <p>
+ * Snapshots are reused once the plans made from them have been applied. Every entry, grid and buffer is kept around and filled in again the next time, such that taking a snapshot doesn't create any
+ * new objects once the snapshot has warmed up.
+ * <p>
+ * Every entity has a single entry in the snapshot, no matter how many mobs know about it, and the potential targets are sorted into a grid for each world. Potential targets are only looked up in the
+ * worlds where some mob is looking for new targets. The mobs that are looking for new targets are put into groups by the grid cell they are in, such that the candidates near a group can be collected
+ * once for every mob in it. Monsters are only looked up around the groups of mobs on the player side, through the entity index, rather than by going through every entity in the world. Each entry
+ * also knows roughly how fast the entity has been moving, as measured against the previous snapshot
+ */
+public final class TargetSnapshot
+{
+	private final static int CELL_SHIFT = 5;			// Cells are 32 blocks across
+	private final static double DEFAULT_SPEED = 0.3;	// Blocks per tick; roughly the speed of a sprinting player
+	private final static double SPEED_DECAY = 0.9;		// How much of the speed measured previously is kept, if the entity has slowed down
+
+	// Control variables
+	private final IdentityHashMap<LivingEntity, Entry> entriesByEntity = new IdentityHashMap<LivingEntity, Entry>();	// Used by the next snapshot to measure how far the entities have moved
+	private final List<Entry> entries = new ArrayList<Entry>();
+	private int entryCount = 0;
+	private final List<MobEntry> mobs = new ArrayList<MobEntry>();
+	private int mobCount = 0;
+	private Entry[] mobTargets = new Entry[64];		// The targets of every mob; each mob knows which part of the array is its own
+	private int mobTargetCount = 0;
+	private final List<WorldEntry> worlds = new ArrayList<WorldEntry>();
+	private int worldCount = 0;
+	private final List<Group> groups = new ArrayList<Group>();
+	private int groupCount = 0;
+	private int[] keptMobs = new int[64];			// The mobs that keep their current targets
+	private int keptMobCount = 0;
+
+	private final Location scratchLocation = new Location(null, 0.0, 0.0, 0.0);
+	private final MonsterCollector monsterCollector = new MonsterCollector();
+	private int tick = 0;
+	private float targetAquireDistance = 0.0f;
+	private float targetLoseDistance = 0.0f;
+
+	final AtomicInteger pendingBatches = new AtomicInteger();	// The number of batches of mobs the workers haven't planned yet
+	volatile RuntimeException planningFailure = null;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Takes a snapshot of the given mobs and everything they may want to target, measuring speeds against the previous snapshot if there is one. Whatever was in the snapshot before is thrown away.
+	 * Must be called on the main thread, and never while another thread is reading the snapshot
+	 */
+	public void take(List<MalevolentMob> mobList, float targetAquireDistance, float targetLoseDistance, TargetSnapshot previous, int tick)
+	{
+		reset();
+		this.tick = tick;
+		this.targetAquireDistance = targetAquireDistance;
+		this.targetLoseDistance = targetLoseDistance;
+
+		// Take a snapshot of every mob, and figure out which worlds the mobs are looking for new targets in
+		for (int i = 0; i < mobList.size(); i++)
+		{
+			MalevolentMob mob = mobList.get(i);
+			LivingEntity entity = mob.getEntity();
+			if (mob.isDormant() || !entity.isValid() || mob.getRole() == null)
+				continue;
+
+			// Targets that are no longer valid are only forgotten about when the targets are refreshed
+			MobEntry mobEntry = nextMob();
+			mobEntry.mob = mob;
+			mobEntry.self = getEntry(entity, previous);
+			mobEntry.refreshTargets = mob.takeTargetRefreshRequest();
+			mobEntry.isOnPlayerSide = mob.isOnPlayerSide();
+			mobEntry.targetStart = mobTargetCount;
+			List<LivingEntity> targets = mob.getTargets();
+			for (int j = 0; j < targets.size(); j++)
+			{
+				if (!mobEntry.refreshTargets || targets.get(j).isValid())
+					addMobTarget(getEntry(targets.get(j), previous));
+			}
+			mobEntry.targetEnd = mobTargetCount;
+
+			mobEntry.creatureTarget = null;
+			if (mobEntry.refreshTargets)
+			{
+				if (entity instanceof Creature && ((Creature) entity).getTarget() != null)
+					mobEntry.creatureTarget = getEntry(((Creature) entity).getTarget(), previous);
+				WorldEntry world = getWorld(mobEntry.self.world);
+				if (mobEntry.isOnPlayerSide)
+					world.needsMonsters = true;
+				else
+					world.needsPlayers = true;
+				getGroup(world, mobEntry).add(mobCount - 1, mobEntry.self);
+			}
+			else
+				addKeptMob(mobCount - 1);
+		}
+		for (int i = 0; i < groupCount; i++)
+			groups.get(i).finish(this);
+
+		// Take a snapshot of all potential targets in the worlds where they are needed
+		boolean needsPlayers = false;
+		for (int i = 0; i < worldCount; i++)
+			needsPlayers |= worlds.get(i).needsPlayers;
+		if (needsPlayers)
+		{
+			for (Player player : Bukkit.getOnlinePlayers())
+			{
+				WorldEntry world = findWorld(player.getWorld());
+				if (world != null && world.needsPlayers)
+				{
+					Entry entry = getEntry(player, previous);
+					world.players.add(entry, entry.x, entry.y, entry.z);
+				}
+			}
+		}
+		for (int i = 0; i < groupCount; i++)
+		{
+			Group group = groups.get(i);
+			if (!group.huntsMonsters)
+				continue;
+			monsterCollector.begin(findWorld(group.world), previous);
+			EntityIndex.forEachInRange(group.world, group.x, group.y, group.z, group.radius + targetLoseDistance, EntityFilter.MONSTERS, monsterCollector);
+			monsterCollector.end();
+		}
+	}
+
+	/** Throws away everything in the snapshot, keeping the entries, grids and buffers around for reuse */
+	public void reset()
+	{
+		entriesByEntity.clear();
+		for (int i = 0; i < entryCount; i++)
+			entries.get(i).entity = null;
+		entryCount = 0;
+		for (int i = 0; i < mobCount; i++)
+			mobs.get(i).clear();
+		mobCount = 0;
+		for (int i = 0; i < mobTargetCount; i++)
+			mobTargets[i] = null;
+		mobTargetCount = 0;
+		for (int i = 0; i < worldCount; i++)
+			worlds.get(i).clear();
+		worldCount = 0;
+		for (int i = 0; i < groupCount; i++)
+			groups.get(i).clear();
+		groupCount = 0;
+		keptMobCount = 0;
+		planningFailure = null;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the entry of the given entity, filling in a new one if it doesn't have one yet */
+	private Entry getEntry(LivingEntity entity, TargetSnapshot previous)
+	{
+		Entry entry = entriesByEntity.get(entity);
+		if (entry != null)
+			return entry;
+
+		if (entryCount == entries.size())
+			entries.add(new Entry());
+		entry = entries.get(entryCount);
+		Entry previousEntry = previous == null ? null : previous.entriesByEntity.get(entity);
+		entry.set(entity, entryCount, entity.getLocation(scratchLocation), previousEntry, previous == null ? 0 : tick - previous.tick);
+		entriesByEntity.put(entity, entry);
+		entryCount++;
+		return entry;
+	}
+
+	/** Returns the next unused mob entry */
+	private MobEntry nextMob()
+	{
+		if (mobCount == mobs.size())
+			mobs.add(new MobEntry());
+		return mobs.get(mobCount++);
+	}
+
+	/** Adds the given entry to the targets of the mob that is being taken a snapshot of */
+	private void addMobTarget(Entry entry)
+	{
+		if (mobTargetCount == mobTargets.length)
+		{
+			Entry[] newTargets = new Entry[2 * mobTargets.length];
+			System.arraycopy(mobTargets, 0, newTargets, 0, mobTargetCount);
+			mobTargets = newTargets;
+		}
+		mobTargets[mobTargetCount++] = entry;
+	}
+
+	/** Adds the mob with the given index to the mobs that keep their current targets */
+	private void addKeptMob(int index)
+	{
+		if (keptMobCount == keptMobs.length)
+		{
+			int[] newKeptMobs = new int[2 * keptMobs.length];
+			System.arraycopy(keptMobs, 0, newKeptMobs, 0, keptMobCount);
+			keptMobs = newKeptMobs;
+		}
+		keptMobs[keptMobCount++] = index;
+	}
+
+	/** Returns the group of the grid cell the given mob is in, filling in a new one if there isn't one yet. Mobs on the player side are kept apart from the others, as they look for other targets */
+	private Group getGroup(WorldEntry world, MobEntry mob)
+	{
+		LongHashMap<Group> worldGroups = mob.isOnPlayerSide ? world.monsterHunters : world.playerHunters;
+		long key = ((long) (((int) Math.floor(mob.self.x) >> CELL_SHIFT) & 0x3FFFFFF) << 38) | ((long) (((int) Math.floor(mob.self.z) >> CELL_SHIFT) & 0x3FFFFFF) << 12) | (((int) Math.floor(mob.self.y) >> CELL_SHIFT) & 0xFFF);
+		Group group = worldGroups.get(key);
+		if (group == null)
+		{
+			if (groupCount == groups.size())
+				groups.add(new Group());
+			group = groups.get(groupCount++);
+			group.world = world.world;
+			group.huntsMonsters = mob.isOnPlayerSide;
+			worldGroups.put(key, group);
+		}
+		return group;
+	}
+
+	/** Adds the monsters found around a group of mobs on the player side to the monster grid of the world; monsters that several groups can reach are only added once */
+	private final class MonsterCollector implements Visitor<LivingEntity>
+	{
+		private WorldEntry world = null;
+		private TargetSnapshot previous = null;
+
+		/** Prepares the collector for a group in the given world */
+		private void begin(WorldEntry world, TargetSnapshot previous)
+		{
+			this.world = world;
+			this.previous = previous;
+		}
+
+		/** Releases the world and the previous snapshot */
+		private void end()
+		{
+			world = null;
+			previous = null;
+		}
+
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			Entry entry = getEntry(entity, previous);
+			if (entry.isInMonsterGrid)
+				return;
+			entry.isInMonsterGrid = true;
+			world.monsters.add(entry, entry.x, entry.y, entry.z);
+		}
+	}
+
+	/** Returns the world entry of the given world, or null if no mob in the snapshot is in that world */
+	private WorldEntry findWorld(World world)
+	{
+		for (int i = 0; i < worldCount; i++)
+		{
+			if (worlds.get(i).world == world)
+				return worlds.get(i);
+		}
+		return null;
+	}
+
+	/** Returns the world entry of the given world, filling in a new one if there isn't one yet */
+	private WorldEntry getWorld(World world)
+	{
+		WorldEntry entry = findWorld(world);
+		if (entry != null)
+			return entry;
+
+		if (worldCount == worlds.size())
+			worlds.add(new WorldEntry());
+		entry = worlds.get(worldCount++);
+		entry.world = world;
+		return entry;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the tick the snapshot was taken in */
+	public int getTick()
+	{
+		return tick;
+	}
+
+	/** Returns the number of mobs in the snapshot */
+	public int getMobCount()
+	{
+		return mobCount;
+	}
+
+	/** Returns the mob at the given index */
+	public MobEntry getMob(int index)
+	{
+		return mobs.get(index);
+	}
+
+	/** Returns the number of groups of mobs that are looking for new targets */
+	public int getGroupCount()
+	{
+		return groupCount;
+	}
+
+	/** Returns the group at the given index */
+	public Group getGroup(int index)
+	{
+		return groups.get(index);
+	}
+
+	/** Returns the number of mobs that keep their current targets */
+	public int getKeptMobCount()
+	{
+		return keptMobCount;
+	}
+
+	/** Returns the mob that keeps its current targets at the given index */
+	public MobEntry getKeptMob(int index)
+	{
+		return mobs.get(keptMobs[index]);
+	}
+
+	/** Returns the target of a mob at the given index; the mob knows which indices belong to it */
+	public Entry getMobTarget(int index)
+	{
+		return mobTargets[index];
+	}
+
+	/** Returns the grid of players in the given world, or null if no mob in that world was looking for players */
+	public SpatialGrid<Entry> getPlayerGrid(World world)
+	{
+		WorldEntry entry = findWorld(world);
+		return entry == null || !entry.needsPlayers ? null : entry.players;
+	}
+
+	/** Returns the grid of monsters in the given world, or null if no mob in that world was looking for monsters */
+	public SpatialGrid<Entry> getMonsterGrid(World world)
+	{
+		WorldEntry entry = findWorld(world);
+		return entry == null || !entry.needsMonsters ? null : entry.monsters;
+	}
+
+	/** Returns the number of entries in the snapshot; every entry has an index below this number */
+	public int getEntryCount()
+	{
+		return entryCount;
+	}
+
+	/** Returns the distance at which new targets are picked up */
+	public float getTargetAquireDistance()
+	{
+		return targetAquireDistance;
+	}
+
+	/** Returns the distance at which targets are forgotten about */
+	public float getTargetLoseDistance()
+	{
+		return targetLoseDistance;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// ENTRIES // ENTRIES // ENTRIES // ENTRIES // ENTRIES // ENTRIES // ENTRIES // ENTRIES //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** The position and speed of a single entity */
+	public static final class Entry
+	{
+		LivingEntity entity;
+		int index;		// Unique within the snapshot
+		World world;	// Only ever compared, never touched
+		double x, y, z;
+		double speed;	// Blocks per tick
+		private boolean isInMonsterGrid;
+
+		/** Fills in the entry from the current position of the entity */
+		private void set(LivingEntity entity, int index, Location location, Entry previous, int ticksSincePrevious)
+		{
+			this.entity = entity;
+			this.index = index;
+			this.world = location.getWorld();
+			this.x = location.getX();
+			this.y = location.getY();
+			this.z = location.getZ();
+			this.isInMonsterGrid = false;
+
+			if (previous == null || previous.world != world)
+				speed = DEFAULT_SPEED;
+			else
+				speed = Math.max(Math.sqrt(distanceSquared(previous)) / Math.max(1, ticksSincePrevious), SPEED_DECAY * previous.speed);
+		}
+
+		/** Returns the squared distance to the other entry, or infinity if they are in different worlds */
+		public double distanceSquared(Entry other)
+		{
+			if (world != other.world)
+				return Double.POSITIVE_INFINITY;
+			double dx = x - other.x;
+			double dy = y - other.y;
+			double dz = z - other.z;
+			return dx * dx + dy * dy + dz * dz;
+		}
+	}
+
+	/** The state of a single malevolent mob, along with the plan made for it */
+	public static final class MobEntry
+	{
+		MalevolentMob mob;
+		Entry self;
+		Entry creatureTarget;	// The entity the vanilla AI is targeting, only present when the targets are refreshed
+		int targetStart, targetEnd;
+		boolean refreshTargets;
+		boolean isOnPlayerSide;
+
+		// The plan; only written by the worker that plans the mob, and only read once the plan is done
+		LivingEntity[] plannedTargets = new LivingEntity[8];
+		float[] plannedDistances = new float[8];
+		int plannedTargetCount = 0;
+		int refreshInterval = 0;	// Zero if the targets weren't refreshed
+
+		/** Adds a target to the plan */
+		void addPlannedTarget(LivingEntity target, float distance)
+		{
+			if (plannedTargetCount == plannedTargets.length)
+			{
+				LivingEntity[] newTargets = new LivingEntity[2 * plannedTargetCount];
+				float[] newDistances = new float[2 * plannedTargetCount];
+				System.arraycopy(plannedTargets, 0, newTargets, 0, plannedTargetCount);
+				System.arraycopy(plannedDistances, 0, newDistances, 0, plannedTargetCount);
+				plannedTargets = newTargets;
+				plannedDistances = newDistances;
+			}
+			plannedTargets[plannedTargetCount] = target;
+			plannedDistances[plannedTargetCount] = distance;
+			plannedTargetCount++;
+		}
+
+		/** Releases the mob and its targets */
+		private void clear()
+		{
+			mob = null;
+			self = null;
+			creatureTarget = null;
+			for (int i = 0; i < plannedTargetCount; i++)
+				plannedTargets[i] = null;
+			plannedTargetCount = 0;
+			refreshInterval = 0;
+		}
+	}
+
+	/** The mobs within a single grid cell that are looking for new targets, along with the smallest sphere around the cell that holds all of them */
+	public static final class Group
+	{
+		World world;
+		boolean huntsMonsters;		// True for mobs on the player side
+		double x, y, z;
+		double radius;
+
+		private int[] members = new int[8];
+		private int memberCount = 0;
+		private double sumX, sumY, sumZ;
+
+		/** Adds the mob with the given index to the group */
+		private void add(int index, Entry self)
+		{
+			if (memberCount == members.length)
+			{
+				int[] newMembers = new int[2 * memberCount];
+				System.arraycopy(members, 0, newMembers, 0, memberCount);
+				members = newMembers;
+			}
+			members[memberCount++] = index;
+			sumX += self.x;
+			sumY += self.y;
+			sumZ += self.z;
+		}
+
+		/** Works out the centre and the radius of the group once every mob has been added */
+		private void finish(TargetSnapshot snapshot)
+		{
+			x = sumX / memberCount;
+			y = sumY / memberCount;
+			z = sumZ / memberCount;
+			radius = 0.0;
+			for (int i = 0; i < memberCount; i++)
+			{
+				Entry self = snapshot.mobs.get(members[i]).self;
+				double dx = self.x - x;
+				double dy = self.y - y;
+				double dz = self.z - z;
+				radius = Math.max(radius, Math.sqrt(dx * dx + dy * dy + dz * dz));
+			}
+		}
+
+		/** Returns the number of mobs in the group */
+		public int getMemberCount()
+		{
+			return memberCount;
+		}
+
+		/** Returns the mob at the given index within the group */
+		public MobEntry getMember(TargetSnapshot snapshot, int index)
+		{
+			return snapshot.mobs.get(members[index]);
+		}
+
+		/** Releases the group */
+		private void clear()
+		{
+			world = null;
+			memberCount = 0;
+			sumX = sumY = sumZ = 0.0;
+		}
+	}
+
+	/** The potential targets within a single world, along with the groups of mobs that are looking for them */
+	private static final class WorldEntry
+	{
+		private World world = null;
+		private boolean needsPlayers = false;
+		private boolean needsMonsters = false;
+		private final SpatialGrid<Entry> players = new SpatialGrid<Entry>(CELL_SHIFT);
+		private final SpatialGrid<Entry> monsters = new SpatialGrid<Entry>(CELL_SHIFT);
+		private final LongHashMap<Group> playerHunters = new LongHashMap<Group>();
+		private final LongHashMap<Group> monsterHunters = new LongHashMap<Group>();
+
+		/** Releases the world and everything in it */
+		private void clear()
+		{
+			world = null;
+			needsPlayers = false;
+			needsMonsters = false;
+			players.clear();
+			monsters.clear();
+			playerHunters.clear();
+			monsterHunters.clear();
+		}
+	}
+}
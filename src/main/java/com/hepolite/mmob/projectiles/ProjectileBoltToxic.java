@@ -1,17 +1,16 @@
 package com.hepolite.mmob.projectiles;
 
-import java.util.List;
-
 import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
 
 public class ProjectileBoltToxic extends ProjectileBolt
 {
@@ -20,6 +19,16 @@ public class ProjectileBoltToxic extends ProjectileBolt
 
 	private PotionEffect effect = null;
 
+	private final Visitor<LivingEntity> effectVisitor = new Visitor<LivingEntity>()
+	{
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			if (entity != caster)
+				entity.addPotionEffect(effect);
+		}
+	};
+
 	private int soundTimer = 0;
 
 	public ProjectileBoltToxic(LivingEntity caster, LivingEntity target, float speed, int strength, int duration, float range, float inaccuracy, boolean affectPlayersOnly)
@@ -45,15 +54,7 @@ public class ProjectileBoltToxic extends ProjectileBolt
 		location.getWorld().playSound(location, Sound.ENTITY_SPIDER_STEP, 1.0f, -0.5f);
 
 		// Apply wither to all entities within the range
-		List<LivingEntity> entities = Common.getEntitiesInRange(location, range);
-		for (LivingEntity entity : entities)
-		{
-			if (entity == caster)
-				continue;
-
-			if (!affectPlayersOnly || entity instanceof Player)
-				entity.addPotionEffect(effect);
-		}
+		Common.forEachLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), range, EntityFilter.of(affectPlayersOnly), effectVisitor);
 	}
 
 	@Override
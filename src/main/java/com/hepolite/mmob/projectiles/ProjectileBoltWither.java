@@ -1,17 +1,16 @@
 package com.hepolite.mmob.projectiles;
 
-import java.util.List;
-
 import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
 
 /**
  * The withering bolt will apply a withering effect to all targets it hits; the bolt won't be affected by gravity
@@ -23,6 +22,16 @@ public class ProjectileBoltWither extends ProjectileBolt
 
 	private PotionEffect effect = null;
 
+	private final Visitor<LivingEntity> effectVisitor = new Visitor<LivingEntity>()
+	{
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			if (entity != caster)
+				entity.addPotionEffect(effect);
+		}
+	};
+
 	private int soundTimer = 0;
 
 	public ProjectileBoltWither(LivingEntity caster, LivingEntity target, float speed, int strength, int duration, float range, boolean affectPlayersOnly)
@@ -48,15 +57,7 @@ public class ProjectileBoltWither extends ProjectileBolt
 		location.getWorld().playSound(location, Sound.ENTITY_ENDERDRAGON_HURT, 1.0f, 0.0f);
 
 		// Apply wither to all entities within the range
-		List<LivingEntity> entities = Common.getEntitiesInRange(location, range);
-		for (LivingEntity entity : entities)
-		{
-			if (entity == caster)
-				continue;
-
-			if (!affectPlayersOnly || entity instanceof Player)
-				entity.addPotionEffect(effect);
-		}
+		Common.forEachLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), range, EntityFilter.of(affectPlayersOnly), effectVisitor);
 	}
 
 	@Override
@@ -1,14 +1,15 @@
 package com.hepolite.mmob.projectiles;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 
 import com.hepolite.mmob.utility.Common;
+import com.hepolite.mmob.utility.EntityFilter;
 import com.hepolite.mmob.utility.ParticleEffect;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
 
@@ -20,6 +21,8 @@ public class ProjectileThaumicBolt extends ProjectileBolt
 	private float damageIncrease;
 	private boolean affectPlayersOnly = true;
 
+	private final List<LivingEntity> entities = new ArrayList<LivingEntity>();	// Reused every time the bolt hits something
+
 	public ProjectileThaumicBolt(LivingEntity caster, boolean factorInGravity, float strength, float damageIncrease, boolean affectPlayersOnly)
 	{
 		super(caster, factorInGravity);
@@ -39,16 +42,15 @@ public class ProjectileThaumicBolt extends ProjectileBolt
 	@Override
 	protected void applyEffects(Location location)
 	{
-		List<LivingEntity> entities = Common.getEntitiesInRange(location, 1.0f);
+		entities.clear();
+		Common.collectLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), 1.0, EntityFilter.of(affectPlayersOnly), entities);
 		while (!entities.isEmpty())
 		{
 			LivingEntity entity = entities.remove(random.nextInt(entities.size()));
-			if (!affectPlayersOnly || entity instanceof Player)
-			{
-				if (Common.doDamage(strength, entity, caster, DamageCause.MAGIC))
-					break;
-			}
+			if (Common.doDamage(strength, entity, caster, DamageCause.MAGIC))
+				break;
 		}
+		entities.clear();
 		ParticleEffect.play(ParticleType.SPELL_WITCH, location, 0.07f, 18, 1.5f);
 		location.getWorld().playSound(location, Sound.ENTITY_ENDERDRAGON_HURT, 0.5f, 0.5f);
 	}
@@ -0,0 +1,33 @@
+package com.hepolite.mmob.settings;
+
+/**
+ * A value that grows with the level of a mob, following the standard name convention (value = baseField + level * scaleField). The base and the scale are read from the config once, such that working
+ * out the value for a mob is plain arithmetic. Handles can be kept around for as long as the config they were read from is in use
+ */
+public final class ScaledValue
+{
+	public final static ScaledValue ZERO = new ScaledValue(0.0f, 0.0f);
+
+	// Control variables
+	public final float base;
+	public final float scale;
+
+	/* Initialization */
+	public ScaledValue(float base, float scale)
+	{
+		this.base = base;
+		this.scale = scale;
+	}
+
+	/** Returns the value for the given level */
+	public float evaluate(float level)
+	{
+		return base + level * scale;
+	}
+
+	/** Returns a copy of the value where both the base and the scale are multiplied by the given factor */
+	public ScaledValue multiply(float factor)
+	{
+		return new ScaledValue(factor * base, factor * scale);
+	}
+}
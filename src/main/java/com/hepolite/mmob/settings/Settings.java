@@ -2,9 +2,11 @@ package com.hepolite.mmob.settings;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 
@@ -25,11 +27,8 @@ public class Settings
 
 	private boolean wasCreated = false;
 
-	/** Initialize the settings */
-	private Settings()
-	{
-		config = new YamlConfiguration();
-	}
+	// Every value in the config by its full path, such that a lookup doesn't have to walk down the sections of the config. Thrown away when the config changes, and rebuilt when next needed
+	private volatile HashMap<String, Object> values = null;
 
 	/** Initialize the settings */
 	public Settings(String name)
@@ -85,6 +84,7 @@ public class Settings
 	public final void set(String field, Object value)
 	{
 		config.set(field, value);
+		values = null;
 	}
 
 	/** Assigns one default value to the calling configuration class */
@@ -96,31 +96,49 @@ public class Settings
 		if (value == null)
 			config.set(propertyName, "...");
 		config.set(propertyName, value);
+		values = null;
+	}
+
+	/** Builds the flattened copy of the config ahead of time, such that the settings can be read from other threads without building it */
+	public final void prepare()
+	{
+		getValue("");
+	}
+
+	/** Returns the value at the given path, or null if there is no such value */
+	private Object getValue(String propertyName)
+	{
+		HashMap<String, Object> values = this.values;
+		if (values == null)
+		{
+			values = new HashMap<String, Object>();
+			for (Map.Entry<String, Object> entry : config.getValues(true).entrySet())
+				values.put(entry.getKey().intern(), entry.getValue());
+			this.values = values;
+		}
+		return values.get(propertyName);
 	}
 
 	// ///////////////////////////////////////////////////////////////////////////////////////////////
 	// GET DATA // GET DATA // GET DATA // GET DATA // GET DATA // GET DATA // GET DATA // GET DATA //
 	// ///////////////////////////////////////////////////////////////////////////////////////////////
 
-	/** Returns the configuration base file for the given key */
-	public Settings getBaseConfig(String propertyPath)
+	/** Returns a read-only view of the given section, which falls back to the given settings for properties the section doesn't have. The alternative may be null */
+	public SettingsView getView(String propertyPath, Settings alternative)
 	{
-		Settings settings = new Settings();
-		Set<String> fields = getKeys(propertyPath);
-		for (String field : fields)
-			settings.set(field, config.get(propertyPath + "." + field));
-		return settings;
+		return new SettingsView(config.getConfigurationSection(propertyPath), alternative == null ? null : alternative.config);
 	}
 
 	/** Checks if the given property exists within the config */
 	public boolean hasProperty(String propertyName)
 	{
-		return config.contains(propertyName);
+		return getValue(propertyName) != null;
 	}
 
 	public boolean getBoolean(String propertyName)
 	{
-		return config.getBoolean(propertyName);
+		Object value = getValue(propertyName);
+		return value instanceof Boolean ? (Boolean) value : false;
 	}
 
 	public boolean getBoolean(Settings alternative, String propertyName)
@@ -134,7 +152,8 @@ public class Settings
 
 	public int getInteger(String propertyName)
 	{
-		return config.getInt(propertyName);
+		Object value = getValue(propertyName);
+		return value instanceof Number ? ((Number) value).intValue() : 0;
 	}
 
 	public int getInteger(String propertyName, int defaultValue)
@@ -160,22 +179,23 @@ public class Settings
 
 	public long getLong(String propertyName)
 	{
-		return config.getLong(propertyName);
+		Object value = getValue(propertyName);
+		return value instanceof Number ? ((Number) value).longValue() : 0L;
 	}
 
 	public short getShort(String propertyName)
 	{
-		return (short) config.getInt(propertyName);
+		return (short) getInteger(propertyName);
 	}
 
 	public byte getByte(String propertyName)
 	{
-		return (byte) config.getInt(propertyName);
+		return (byte) getInteger(propertyName);
 	}
 
 	public float getFloat(String propertyName)
 	{
-		return (float) config.getDouble(propertyName);
+		return (float) getDouble(propertyName);
 	}
 
 	public float getFloat(Settings alternative, String propertyName)
@@ -194,13 +214,14 @@ public class Settings
 
 	public double getDouble(String propertyName)
 	{
-		return config.getDouble(propertyName);
+		Object value = getValue(propertyName);
+		return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
 	}
 
 	public String getString(String propertyName)
 	{
-		String string = config.getString(propertyName);
-		return (string == null ? "" : string);
+		Object value = getValue(propertyName);
+		return (value == null ? "" : value.toString());
 	}
 
 	public String getString(Settings alternative, String propertyName)
@@ -252,6 +273,18 @@ public class Settings
 		return getFloat(alternative, "base" + propertyName, defaultValue) + scale * getFloat(alternative, "scale" + propertyName);
 	}
 
+	/** Returns a handle to a scaled value, follows standard name convention (value = baseField + scale * scaleField). The handle doesn't change if the config changes */
+	public ScaledValue getScaledValueHandle(String propertyPath, String propertyName)
+	{
+		return new ScaledValue(getFloat(propertyPath + "base" + propertyName), getFloat(propertyPath + "scale" + propertyName));
+	}
+
+	/** Returns a handle to a scaled value, follows standard name convention (value = baseField + scale * scaleField). The handle doesn't change if the config changes */
+	public ScaledValue getScaledValueHandle(Settings alternative, String propertyName, float defaultValue)
+	{
+		return new ScaledValue(getFloat(alternative, "base" + propertyName, defaultValue), getFloat(alternative, "scale" + propertyName));
+	}
+
 	/** Writes a NBT Tag to the configuration */
 	public void setTagCompound(String field, NBTTag tag)
 	{
@@ -1,53 +1,28 @@
 package com.hepolite.mmob.settings;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.logging.Level;
 
+import com.hepolite.mmob.ConfigGeneration;
 import com.hepolite.mmob.Log;
 import com.hepolite.mmob.MMobPlugin;
 
 public class SettingsAbilities
 {
-	// Control variables
-	private final static HashMap<String, Settings> passives = new HashMap<String, Settings>();
-	private final static HashMap<String, Settings> actives = new HashMap<String, Settings>();
-
-	/** Initialize all the ability settings; called from MMobSettings */
-	public static void initialize()
+	/** Writes the default ability files, if they are missing; called when the configuration is loaded */
+	public static void addDefaults()
 	{
-		// Clear old data
-		actives.clear();
-		passives.clear();
-
 		// Every first run, all default abilities must be defined. Subsequent runs must define new abilities
 		File directory = new File(MMobPlugin.getInstance().getDataFolder() + "/Abilities");
 		if (!directory.exists())
 			directory.mkdir();
 		addDefaultAbilities();
-
-		// Discover all abilities in the ability directory
-		File[] files = directory.listFiles();
-		for (File file : files)
-		{
-			String[] parts = file.getName().split(" ");
-			if (parts.length != 2)
-				Log.log("The file '" + file.getName() + "' is invalid!", Level.WARNING);
-			else
-			{
-				if (parts[0].equalsIgnoreCase("Passive"))
-					passives.put(parts[1], new Settings("Abilities", file.getName()));
-				else if (parts[0].equalsIgnoreCase("Active"))
-					actives.put(parts[1], new Settings("Abilities", file.getName()));
-			}
-		}
 	}
 
 	/** Returns the configuration for the given passive ability */
 	public static Settings getPassiveConfig(String ability)
 	{
-		ability += ".yml";
-		Settings setting = passives.get(ability);
+		Settings setting = ConfigGeneration.getCurrent().getPassiveConfig(ability);
 		if (setting == null)
 		{
 			Log.log("Couldn't find config for passive ability '" + ability + "'!", Level.WARNING);
@@ -59,8 +34,7 @@ public class SettingsAbilities
 	/** Returns the configuration for the given active ability */
 	public static Settings getActiveConfig(String ability)
 	{
-		ability += ".yml";
-		Settings setting = actives.get(ability);
+		Settings setting = ConfigGeneration.getCurrent().getActiveConfig(ability);
 		if (setting == null)
 		{
 			Log.log("Couldn't find config for active ability '" + ability + "'!", Level.WARNING);
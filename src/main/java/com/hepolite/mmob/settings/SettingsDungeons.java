@@ -2,6 +2,7 @@ package com.hepolite.mmob.settings;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import com.hepolite.mmob.MMobPlugin;
@@ -11,18 +12,20 @@ public class SettingsDungeons
 	// Control variables
 	private final static HashMap<String, Settings> dungeons = new HashMap<String, Settings>();
 
-	/** Initialize all the roles settings; called from MMobSettings */
-	public static void initialize()
+	/** Creates the dungeon folder, if it is missing; called when the configuration is loaded */
+	public static void addDefaults()
 	{
 		// Every first run, create the dungeon folder
 		File directory = new File(MMobPlugin.getInstance().getDataFolder() + "/Dungeons");
 		if (!directory.exists())
 			directory.mkdir();
+	}
 
-		// Load up all dungeons in the dungeon directory
-		File[] files = directory.listFiles();
-		for (File file : files)
-			dungeons.put(file.getName().split("\\.")[0], new Settings("Dungeons", file.getName()));
+	/** Replaces the known dungeons with the ones that were loaded from the dungeon directory; called on the main thread when a new configuration is put to use */
+	public static void install(Map<String, Settings> loadedDungeons)
+	{
+		dungeons.clear();
+		dungeons.putAll(loadedDungeons);
 	}
 
 	/** Returns the configuration for the given dungeon */
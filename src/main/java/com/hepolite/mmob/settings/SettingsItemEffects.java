@@ -1,39 +1,28 @@
 package com.hepolite.mmob.settings;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.logging.Level;
 
+import com.hepolite.mmob.ConfigGeneration;
 import com.hepolite.mmob.Log;
 import com.hepolite.mmob.MMobPlugin;
 
 public class SettingsItemEffects
 {
-	// Control variables
-	private final static HashMap<String, Settings> effects = new HashMap<String, Settings>();
-
-	/** Initialize all the effects settings; called from MMobSettings */
-	public static void initialize()
+	/** Writes the default item effect files, if they are missing; called when the configuration is loaded */
+	public static void addDefaults()
 	{
-		// Clear old data
-		effects.clear();
-
 		// Every first run, all default item effects must be defined. Subsequent runs must define new effects
 		File directory = new File(MMobPlugin.getInstance().getDataFolder() + "/Item Effects");
 		if (!directory.exists())
 			directory.mkdir();
 		addDefaultItemEffects();
-
-		// Discover all abilities in the itemEffect directory
-		File[] files = directory.listFiles();
-		for (File file : files)
-			effects.put(file.getName().split("\\.")[0], new Settings("Item Effects", file.getName()));
 	}
 
 	/** Returns the configuration for the given item effect */
 	public static Settings getConfig(String itemEffect)
 	{
-		Settings setting = effects.get(itemEffect);
+		Settings setting = ConfigGeneration.getCurrent().getItemEffectConfig(itemEffect);
 		if (setting == null)
 		{
 			Log.log("Couldn't find config for item effect '" + itemEffect + "'!", Level.WARNING);
@@ -1,7 +1,6 @@
 package com.hepolite.mmob.settings;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
@@ -11,6 +10,7 @@ import java.util.logging.Level;
 import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
 
+import com.hepolite.mmob.ConfigGeneration;
 import com.hepolite.mmob.Log;
 import com.hepolite.mmob.MMobPlugin;
 import com.hepolite.mmob.utility.NBTAPI.NBTTag;
@@ -18,16 +18,11 @@ import com.hepolite.mmob.utility.NBTAPI.NBTTag;
 public class SettingsLoot
 {
 	// Control variables
-	private final static HashMap<String, Settings> categories = new HashMap<String, Settings>();
-
 	private final static Random random = new Random();
 
-	/** Initialize all the effects settings; called from MMobSettings */
-	public static void initialize()
+	/** Writes the default loot files, if the loot folder is missing; called when the configuration is loaded */
+	public static void addDefaults()
 	{
-		// Clear old data
-		categories.clear();
-
 		// Every first run, all default item effects must be defined. Subsequent runs must define new effects
 		File directory = new File(MMobPlugin.getInstance().getDataFolder() + "/Loot");
 		if (!directory.exists())
@@ -35,17 +30,12 @@ public class SettingsLoot
 			directory.mkdir();
 			addDefaultSettings();
 		}
-
-		// Discover all abilities in the ability directory
-		File[] files = directory.listFiles();
-		for (File file : files)
-			categories.put(file.getName().split("\\.")[0], new Settings("Loot", file.getName()));
 	}
 
 	/** Returns the configuration for the given category */
 	public static Settings getConfig(String category)
 	{
-		Settings setting = categories.get(category);
+		Settings setting = ConfigGeneration.getCurrent().getLootConfig(category);
 		if (setting == null)
 		{
 			Log.log("Couldn't find config for loot category '" + category + "'!", Level.WARNING);
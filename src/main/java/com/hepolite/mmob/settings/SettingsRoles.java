@@ -1,52 +1,35 @@
 package com.hepolite.mmob.settings;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.Set;
 import java.util.logging.Level;
 
+import com.hepolite.mmob.ConfigGeneration;
 import com.hepolite.mmob.Log;
 import com.hepolite.mmob.MMobPlugin;
-import com.hepolite.mmob.MMobSettings;
 
 public class SettingsRoles
 {
-	// Control variables
-	private final static HashMap<String, Settings> roles = new HashMap<String, Settings>();
-
-	/** Initialize all the roles settings; called from MMobSettings */
-	public static void initialize()
+	/** Writes the default role files, if they are missing; called when the configuration is loaded */
+	public static void addDefaults()
 	{
-		// Clear old data
-		roles.clear();
-
 		// Every first run, all default mobs must be defined
 		File directory = new File(MMobPlugin.getInstance().getDataFolder() + "/Roles");
 		if (!directory.exists())
 			directory.mkdir();
 		addDefaultRoles();
-
-		// Discover all abilities in the ability directory
-		File[] files = directory.listFiles();
-		for (File file : files)
-		{
-			roles.put(file.getName().split("\\.")[0], new Settings("Roles", file.getName()));
-
-			if (MMobSettings.isDebugmode)
-				Log.log("Discovered role '" + file.getName() + "'!");
-		}
 	}
 
 	/** Returns a collection that contains all the roles loaded up by the system */
 	public static Set<String> getRoles()
 	{
-		return roles.keySet();
+		return ConfigGeneration.getCurrent().getRoleNames();
 	}
 
 	/** Returns the configuration for the given role */
 	public static Settings getConfig(String role)
 	{
-		Settings setting = roles.get(role);
+		Settings setting = ConfigGeneration.getCurrent().getRoleConfig(role);
 		if (setting == null)
 		{
 			Log.log("Couldn't find config for role '" + role + "'!", Level.WARNING);
@@ -0,0 +1,117 @@
+package com.hepolite.mmob.settings;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * A read-only view of one section of a config file, backed by another config file for the properties the section doesn't have. Nothing is copied; the view only remembers which of the two holds each
+ * property in the section, such that a lookup doesn't have to check both. The view follows the config it points into, and should not be kept around after the config is reloaded
+ */
+public final class SettingsView
+{
+	// Control variables
+	private final ConfigurationSection section;			// Null if the section doesn't exist
+	private final ConfigurationSection alternative;		// Null if there is nothing to fall back to
+	private final HashMap<String, ConfigurationSection> sources = new HashMap<String, ConfigurationSection>();
+
+	/* Initialization */
+	SettingsView(ConfigurationSection section, ConfigurationSection alternative)
+	{
+		this.section = section;
+		this.alternative = alternative;
+
+		if (alternative != null)
+		{
+			for (String key : alternative.getKeys(false))
+				sources.put(key, alternative);
+		}
+		if (section != null)
+		{
+			for (String key : section.getKeys(false))
+				sources.put(key, section);
+		}
+	}
+
+	/** Returns the config that holds the given property, or null if neither does */
+	private ConfigurationSection getSource(String propertyName)
+	{
+		ConfigurationSection source = sources.get(propertyName);
+		if (source != null || propertyName.indexOf('.') == -1)
+			return source;
+
+		// Properties further down in the section were not looked up ahead of time
+		if (section != null && section.contains(propertyName))
+			return section;
+		if (alternative != null && alternative.contains(propertyName))
+			return alternative;
+		return null;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////////////
+	// GET DATA // GET DATA // GET DATA // GET DATA // GET DATA // GET DATA // GET DATA // GET DATA //
+	// ///////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the names of all properties at the top of the view, including those that are only found in the alternative */
+	public Set<String> getKeys()
+	{
+		return Collections.unmodifiableSet(sources.keySet());
+	}
+
+	/** Checks if the given property exists within the view */
+	public boolean hasProperty(String propertyName)
+	{
+		return getSource(propertyName) != null;
+	}
+
+	public boolean getBoolean(String propertyName)
+	{
+		ConfigurationSection source = getSource(propertyName);
+		return source == null ? false : source.getBoolean(propertyName);
+	}
+
+	public int getInteger(String propertyName)
+	{
+		return getInteger(propertyName, 0);
+	}
+
+	public int getInteger(String propertyName, int defaultValue)
+	{
+		ConfigurationSection source = getSource(propertyName);
+		return source == null ? defaultValue : source.getInt(propertyName);
+	}
+
+	public float getFloat(String propertyName)
+	{
+		return getFloat(propertyName, 0.0f);
+	}
+
+	public float getFloat(String propertyName, float defaultValue)
+	{
+		ConfigurationSection source = getSource(propertyName);
+		return source == null ? defaultValue : (float) source.getDouble(propertyName);
+	}
+
+	public String getString(String propertyName)
+	{
+		ConfigurationSection source = getSource(propertyName);
+		String string = source == null ? null : source.getString(propertyName);
+		return (string == null ? "" : string);
+	}
+
+	public List<String> getStringList(String propertyName)
+	{
+		ConfigurationSection source = getSource(propertyName);
+		return source == null ? new LinkedList<String>() : source.getStringList(propertyName);
+	}
+
+	/** Returns a value that is scaled, follows standard name convention (value = baseField + scale * scaleField) */
+	public float getScaledValue(String propertyName, float scale, float defaultValue)
+	{
+		return getFloat("base" + propertyName, defaultValue) + scale * getFloat("scale" + propertyName);
+	}
+}
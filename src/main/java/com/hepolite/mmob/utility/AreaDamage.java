@@ -0,0 +1,113 @@
+package com.hepolite.mmob.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bukkit.World;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+
+import com.hepolite.mmob.GeneralSettings;
+import com.hepolite.mmob.MMobPlugin;
+import com.hepolite.mmob.handlers.MobHandler;
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
+
+/**
+ * The area damage damages every entity within an area in one go. The victims are found with a single range query, the damage to each of them is worked out with the settings read only once, and only
+ * then is the damage applied and announced to the rest of the server. Damaging an entity may cause more area damage, such as when a mob explodes as it dies, so each level of nesting has a batch of its
+ * own
+ */
+public class AreaDamage
+{
+	// Control variables
+	private final static List<Batch> batches = new ArrayList<Batch>();	// One batch for each level of nested area damage
+	private static int depth = 0;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Damages every entity that passes the filter and is within the radius of the given position. With falloff, the damage drops from full strength at the centre to nothing at the edge. Entities
+	 * that take damage are set on fire for the given number of ticks. Returns the number of entities that took damage
+	 */
+	public static int damageArea(World world, double x, double y, double z, double radius, EntityFilter filter, LivingEntity attacker, DamageCause cause, double strength, boolean falloff, int fireTicks)
+	{
+		if (depth == batches.size())
+			batches.add(new Batch());
+		Batch batch = batches.get(depth++);
+		try
+		{
+			return batch.run(world, x, y, z, radius, filter, attacker, cause, strength, falloff, fireTicks);
+		}
+		finally
+		{
+			batch.clear();
+			depth--;
+		}
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** The victims of a single area of damage, along with how much damage each of them takes */
+	private static final class Batch implements Visitor<LivingEntity>
+	{
+		private LivingEntity[] victims = new LivingEntity[16];
+		private double[] damages = new double[16];
+		private int count = 0;
+
+		private double radius;
+		private double strength;
+		private boolean falloff;
+
+		/** Finds the victims, works out the damage and applies it */
+		private int run(World world, double x, double y, double z, double radius, EntityFilter filter, LivingEntity attacker, DamageCause cause, double strength, boolean falloff, int fireTicks)
+		{
+			this.radius = radius;
+			this.strength = strength;
+			this.falloff = falloff;
+			EntityIndex.forEachInRange(world, x, y, z, radius, filter, this);
+			if (count == 0)
+				return 0;
+
+			// Work out the damage to every victim before anything is applied
+			GeneralSettings settings = MMobPlugin.getSettings().getGeneral();
+			double scale = MobHandler.isMobMalevolent(attacker) ? settings.damageScale : 1.0;
+			for (int i = 0; i < count; i++)
+				damages[i] = Common.getReducedDamage(scale * damages[i], victims[i], cause, settings);
+
+			// Apply the damage
+			int victimsHit = 0;
+			for (int i = 0; i < count; i++)
+			{
+				if (damages[i] < 0.0 || !Common.applyDamage(damages[i], victims[i], attacker, cause))
+					continue;
+				if (fireTicks > 0)
+					victims[i].setFireTicks(fireTicks);
+				victimsHit++;
+			}
+			return victimsHit;
+		}
+
+		/** Releases the victims once the damage has been applied */
+		private void clear()
+		{
+			Arrays.fill(victims, 0, count, null);
+			count = 0;
+		}
+
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			if (count == victims.length)
+			{
+				victims = Arrays.copyOf(victims, 2 * count);
+				damages = Arrays.copyOf(damages, 2 * count);
+			}
+			victims[count] = entity;
+			damages[count] = falloff ? strength * Math.cos(Math.sqrt(distanceSquared) / radius * Math.PI / 2.0) : strength;
+			count++;
+		}
+	}
+}
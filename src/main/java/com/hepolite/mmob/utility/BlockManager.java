@@ -89,6 +89,7 @@ public class BlockManager
 				oldMetaData = block.getData();
 				block.setType(newMaterial);
 				block.setData(metaData);
+				SolidBlockCache.invalidate(world, x, y, z);
 				didSomething = true;
 			}
 		}
@@ -103,6 +104,7 @@ public class BlockManager
 			{
 				block.setType(oldMaterial);
 				block.setData(oldMetaData);
+				SolidBlockCache.invalidate(world, x, y, z);
 			}
 		}
 	}
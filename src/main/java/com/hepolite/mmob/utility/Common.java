@@ -2,7 +2,6 @@ package com.hepolite.mmob.utility;
 
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
 import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
@@ -11,7 +10,6 @@ import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Arrow;
 import org.bukkit.entity.Creeper;
@@ -33,14 +31,14 @@ import org.bukkit.inventory.EntityEquipment;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
-import org.bukkit.util.BlockIterator;
 
+import com.hepolite.mmob.GeneralSettings;
 import com.hepolite.mmob.Log;
 import com.hepolite.mmob.MMobPlugin;
 import com.hepolite.mmob.MMobSettings;
 import com.hepolite.mmob.handlers.MobHandler;
-import com.hepolite.mmob.utility.MathHelper.Vector3D;
 import com.hepolite.mmob.utility.ParticleEffect.ParticleType;
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
 import com.sucy.skill.SkillAPI;
 import com.sucy.skill.api.enums.ExpSource;
 import com.sucy.skill.api.player.PlayerClass;
@@ -48,6 +46,12 @@ import com.sucy.skill.api.player.PlayerData;
 
 public class Common
 {
+	// Control variables
+	private final static Location scratchLocation = new Location(null, 0.0, 0.0, 0.0);
+	private final static EntityCollector entityCollector = new EntityCollector();
+	private final static EntityCounter entityCounter = new EntityCounter();
+	private final static TallestEntityFinder tallestEntityFinder = new TallestEntityFinder();
+
 	// ///////////////////////////////////////////////////////////////////////////////////////
 	// GENERIC // GENERIC // GENERIC // GENERIC // GENERIC // GENERIC // GENERIC // GENERIC //
 	// ///////////////////////////////////////////////////////////////////////////////////////
@@ -62,40 +66,61 @@ public class Common
 	// ENTITIES // ENTITIES // ENTITIES // ENTITIES // ENTITIES // ENTITIES // ENTITIES //
 	// ///////////////////////////////////////////////////////////////////////////////////
 
+	/** Passes every living entity within range of the given position that passes the filter to the visitor, along with the squared distance to it. Nothing is allocated, and the visitor may run queries of its own */
+	public static void forEachLivingInRange(World world, double x, double y, double z, double range, EntityFilter filter, Visitor<? super LivingEntity> visitor)
+	{
+		EntityIndex.forEachInRange(world, x, y, z, range, filter, visitor);
+	}
+
+	/** Adds every living entity within range of the given position that passes the filter to the given buffer. The buffer is not cleared first, such that the same buffer can be reused for every query */
+	public static void collectLivingInRange(World world, double x, double y, double z, double range, EntityFilter filter, List<? super LivingEntity> buffer)
+	{
+		// The collector never runs queries of its own, so the same collector can be used for every query
+		entityCollector.buffer = buffer;
+		try
+		{
+			EntityIndex.forEachInRange(world, x, y, z, range, filter, entityCollector);
+		}
+		finally
+		{
+			entityCollector.buffer = null;
+		}
+	}
+
+	/** Returns the number of living entities within range of the given position that pass the filter */
+	public static int countLivingInRange(World world, double x, double y, double z, double range, EntityFilter filter)
+	{
+		entityCounter.count = 0;
+		EntityIndex.forEachInRange(world, x, y, z, range, filter, entityCounter);
+		return entityCounter.count;
+	}
+
 	/** Returns a list of entities within range */
 	public static List<LivingEntity> getEntitiesInRange(Location location, float range)
 	{
 		// Find all nearby living entities and return them
-		List<Entity> entitiesInWorld = location.getWorld().getEntities();
 		List<LivingEntity> nearbyEntities = new LinkedList<LivingEntity>();
-		for (Entity entity : entitiesInWorld)
-		{
-			if (entity instanceof LivingEntity)
-			{
-				if (location.distanceSquared(entity.getLocation()) < range * range)
-					nearbyEntities.add((LivingEntity) entity);
-			}
-		}
+		collectLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), range, EntityFilter.ALL, nearbyEntities);
 		return nearbyEntities;
 	}
 
 	/** Returns a list of entities at the given location. Assumes a boundingbox 1m*1m*2m for all entities */
-	public static List<LivingEntity> getEntitiesInLocation(Location location)
+	public static List<LivingEntity> getEntitiesInLocation(final Location location)
 	{
-		// Find all nearby players and return them
-		List<Entity> entitiesInWorld = location.getWorld().getEntities();
-		List<LivingEntity> entities = new LinkedList<LivingEntity>();
-		for (Entity entity : entitiesInWorld)
+		// Find all nearby players and return them; nothing further away than the corners of the bounding box can be at the location
+		final List<LivingEntity> entities = new LinkedList<LivingEntity>();
+		forEachLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), 2.1, EntityFilter.ALL, new Visitor<LivingEntity>()
 		{
-			if (entity instanceof LivingEntity)
+			@Override
+			public void visit(LivingEntity entity, double distanceSquared)
 			{
-				Location position = entity.getLocation();
+				Location position = entity.getLocation(scratchLocation);
 				if (location.getX() >= position.getX() - 0.5 && location.getX() <= position.getX() + 0.5)
 					if (location.getZ() >= position.getZ() - 0.5 && location.getZ() <= position.getZ() + 0.5)
 						if (location.getY() >= position.getY() - 0.1 && location.getY() <= position.getY() + 1.9)
-							entities.add((LivingEntity) entity);
+							entities.add(entity);
 			}
-		}
+		});
 		return entities;
 	}
 
@@ -103,16 +128,15 @@ public class Common
 	public static List<Monster> getMonstersInRange(Location location, float range)
 	{
 		// Find all nearby monsters and return them
-		List<Entity> entitiesInWorld = location.getWorld().getEntities();
-		List<Monster> nearbyEntities = new LinkedList<Monster>();
-		for (Entity entity : entitiesInWorld)
+		final List<Monster> nearbyEntities = new LinkedList<Monster>();
+		forEachLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), range, EntityFilter.MONSTERS, new Visitor<LivingEntity>()
 		{
-			if (entity instanceof Monster)
+			@Override
+			public void visit(LivingEntity entity, double distanceSquared)
 			{
-				if (location.distanceSquared(entity.getLocation()) < range * range)
-					nearbyEntities.add((Monster) entity);
+				nearbyEntities.add((Monster) entity);
 			}
-		}
+		});
 		return nearbyEntities;
 	}
 
@@ -132,17 +156,59 @@ public class Common
 	/** Returns a list of nearby malevolent mobs */
 	public static List<LivingEntity> getMalevolentMobsInRange(Location location, float range)
 	{
-		List<Entity> entitiesInWorld = location.getWorld().getEntities();
 		List<LivingEntity> nearbyMalevolentMobs = new LinkedList<LivingEntity>();
-		for (Entity entity : entitiesInWorld)
+		collectLivingInRange(location.getWorld(), location.getX(), location.getY(), location.getZ(), range, EntityFilter.MALEVOLENT, nearbyMalevolentMobs);
+		return nearbyMalevolentMobs;
+	}
+
+	/** Adds the entities it is handed to a buffer */
+	private static final class EntityCollector implements Visitor<LivingEntity>
+	{
+		private List<? super LivingEntity> buffer = null;
+
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			buffer.add(entity);
+		}
+	}
+
+	/** Counts the entities it is handed */
+	private static final class EntityCounter implements Visitor<LivingEntity>
+	{
+		private int count = 0;
+
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
 		{
-			if (entity instanceof LivingEntity)
+			count++;
+		}
+	}
+
+	/** Finds the position of the entity that is highest up, as long as it is higher than the starting position */
+	private static final class TallestEntityFinder implements Visitor<LivingEntity>
+	{
+		private double x, y, z;
+
+		/** Starts a new search from the given position */
+		private void begin(double x, double y, double z)
+		{
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			Location location = entity.getLocation(scratchLocation);
+			if (location.getY() > y)
 			{
-				if (MobHandler.isMobMalevolent((LivingEntity) entity) && location.distanceSquared(entity.getLocation()) < range * range)
-					nearbyMalevolentMobs.add((LivingEntity) entity);
+				x = location.getX();
+				y = location.getY();
+				z = location.getZ();
 			}
 		}
-		return nearbyMalevolentMobs;
 	}
 
 	// ///////////////////////////////////////////////////////////////////////////////////////
@@ -182,21 +248,33 @@ public class Common
 	}
 
 	/** Applies some damage. Returns true if the damage was NOT cancelled */
-	@SuppressWarnings("deprecation")
 	public static boolean doDamage(double damage, LivingEntity target, LivingEntity attacker, DamageCause cause)
 	{
-		if (target == null || target.getHealth() <= 0.0)
+		if (target == null)
 			return false;
 
 		// Scale damage, if relevant
+		GeneralSettings settings = MMobPlugin.getSettings().getGeneral();
 		if (MobHandler.isMobMalevolent(attacker))
-			damage *= MMobPlugin.getSettings().getFloat("General.Mobs.damageScale");
+			damage *= settings.damageScale;
+
+		damage = getReducedDamage(damage, target, cause, settings);
+		if (damage < 0.0)
+			return false;
+		return applyDamage(damage, target, attacker, cause);
+	}
+
+	/** Returns the damage that remains after the armor and potion effects of the target have been taken into account, or -1 if the target can't be damaged at all */
+	static double getReducedDamage(double damage, LivingEntity target, DamageCause cause, GeneralSettings settings)
+	{
+		if (target.getHealth() <= 0.0)
+			return -1.0;
 
 		// Ignore players in creative mode
 		if (target instanceof Player)
 		{
 			if (((Player) target).getGameMode() == GameMode.CREATIVE)
-				return false;
+				return -1.0;
 		}
 
 		// Apply damage reductions
@@ -241,23 +319,35 @@ public class Common
 		case FIRE_TICK:
 		case LAVA:
 			if (target.hasPotionEffect(PotionEffectType.FIRE_RESISTANCE))
-				armorValue += MMobPlugin.getSettings().getFloat("General.Defence.firePotionEnchantLevelEquivalent");
+				armorValue += settings.firePotionEnchantLevelEquivalent;
 			break;
 		case ENTITY_ATTACK:
 		case THORNS:
 			if (target.hasPotionEffect(PotionEffectType.DAMAGE_RESISTANCE))
-				armorValue += getPotionEffectLevel(target, PotionEffectType.DAMAGE_RESISTANCE) * MMobPlugin.getSettings().getFloat("General.Defence.resistancePotionEnchantLevelEquivalent");
+				armorValue += getPotionEffectLevel(target, PotionEffectType.DAMAGE_RESISTANCE) * settings.resistancePotionEnchantLevelEquivalent;
 			break;
 		default:
 			;
 		}
 
 		// Reduce the damage
-		armorValue = Math.max(-50.0f, armorValue * MMobPlugin.getSettings().getFloat("General.Defence.armorEfficiency"));
+		armorValue = Math.max(-50.0f, armorValue * settings.armorEfficiency);
 		damage *= 1.0f - armorValue / (armorValue + 100.0f);
 
 		if (MMobSettings.isDebugmode && target instanceof Player)
 			Log.log("Registered attack on player '" + ((Player) target).getName() + "', dealing '" + damage / (1.0f - armorValue / (armorValue + 100.0f)) + "'->'" + damage + "' damage due to '" + armorValue + "' armor (" + armorValue / (100.0f + armorValue) + "%).");
+		return damage;
+	}
+
+	/**
+	 * Lets the rest of the server know about the damage, and applies it unless something cancelled it. Returns true if the damage was applied. Targets that died or were removed since the damage was
+	 * worked out are left alone, such that they don't die twice
+	 */
+	@SuppressWarnings("deprecation")
+	static boolean applyDamage(double damage, LivingEntity target, LivingEntity attacker, DamageCause cause)
+	{
+		if (target.getHealth() <= 0.0 || !target.isValid())
+			return false;
 
 		// Get a event and pass it to the event handler
 		EntityDamageEvent event = null;
@@ -299,12 +389,12 @@ public class Common
 	{
 		if (event.getCause() == DamageCause.MAGIC)
 			return true;
-		if (MMobPlugin.getSettings().getBoolean("General.Attacks.treatSkillsAsMagic") && event.getCause() == DamageCause.ENTITY_ATTACK && event instanceof EntityDamageByEntityEvent)
+		if (MMobPlugin.getSettings().getGeneral().treatSkillsAsMagic && event.getCause() == DamageCause.ENTITY_ATTACK && event instanceof EntityDamageByEntityEvent)
 		{
 			Entity attacker = getAttacker((EntityDamageByEntityEvent) event);
 			if (attacker == null)
 				return false;
-			float range = MMobPlugin.getSettings().getFloat("General.Attacks.treatAttackAsMagicDistance");
+			float range = MMobPlugin.getSettings().getGeneral().treatAttackAsMagicDistance;
 			return attacker.getLocation().distanceSquared(event.getEntity().getLocation()) >= range * range;
 		}
 		return false;
@@ -325,7 +415,7 @@ public class Common
 		if (attacker == null)
 			return true;
 
-		float range = MMobPlugin.getSettings().getFloat("General.Attacks.treatAttackAsRangedDistance");
+		float range = MMobPlugin.getSettings().getGeneral().treatAttackAsRangedDistance;
 		return attacker.getLocation().distanceSquared(event.getEntity().getLocation()) >= range * range;
 	}
 
@@ -380,18 +470,8 @@ public class Common
 	/** Creates an explosion at the given location. The attacker may be null */
 	public static void createExplosion(Location location, float strength, float radius, boolean affectPlayersOnly, LivingEntity attacker)
 	{
-		// Find all nearby entities and damage them if applicable
-		List<LivingEntity> entities = getEntitiesInRange(location, radius);
-		for (LivingEntity entity : entities)
-		{
-			if (!affectPlayersOnly || entity instanceof Player)
-			{
-				// Damage the entity based on distance from the explosion
-				double distanceFactor = entity.getLocation().distance(location) / radius;
-				double damage = strength * Math.cos(distanceFactor * Math.PI / 2.0);
-				doDamage(damage, entity, attacker, DamageCause.ENTITY_EXPLOSION);
-			}
-		}
+		// Damage all nearby entities based on their distance from the explosion
+		AreaDamage.damageArea(location.getWorld(), location.getX(), location.getY(), location.getZ(), radius, EntityFilter.of(affectPlayersOnly), attacker, DamageCause.ENTITY_EXPLOSION, strength, true, 0);
 	}
 
 	/** Creates a lightning strike at the given location */
@@ -404,42 +484,17 @@ public class Common
 	public static void createLightningStrike(Location location, LivingEntity attacker, float strength, float radius, boolean affectPlayersOnly)
 	{
 		// Locate the highest point and strike the lightning there
-		double posX = location.getX();
-		double posZ = location.getZ();
-		double posY = location.getWorld().getHighestBlockYAt((int) (posX + 0.5), (int) (posZ + 0.5));
-
-		List<LivingEntity> entitiesInWorld = location.getWorld().getLivingEntities();
-		for (LivingEntity entity : entitiesInWorld)
-		{
-			double deltaX = entity.getLocation().getX() - location.getX();
-			double deltaZ = entity.getLocation().getZ() - location.getZ();
-			if (deltaX * deltaX + deltaZ * deltaZ < radius * radius)
-			{
-				// Only interested in the entity with the greatest altitude that's within range
-				if (entity.getLocation().getY() > posY)
-				{
-					posX = entity.getLocation().getX();
-					posY = entity.getLocation().getY();
-					posZ = entity.getLocation().getZ();
-				}
-			}
-		}
-		location.setX(posX);
-		location.setY(posY);
-		location.setZ(posZ);
+		World world = location.getWorld();
+		tallestEntityFinder.begin(location.getX(), SurfaceCache.getSurfaceHeight(world, location.getBlockX(), location.getBlockZ()), location.getZ());
+		EntityIndex.forEachInColumn(world, location.getX(), location.getZ(), radius, EntityFilter.ALL, tallestEntityFinder);
+		location.setX(tallestEntityFinder.x);
+		location.setY(tallestEntityFinder.y);
+		location.setZ(tallestEntityFinder.z);
 
 		effectLightningStrike(location);
 
-		// Find all nearby entities and damage them if applicable
-		List<LivingEntity> entities = getEntitiesInRange(location, radius);
-		for (LivingEntity entity : entities)
-		{
-			if (!affectPlayersOnly || entity instanceof Player)
-			{
-				if (doDamage(strength, entity, attacker, DamageCause.LIGHTNING))
-					entity.setFireTicks((int) (15.0f * strength));
-			}
-		}
+		// Damage all nearby entities and set them on fire
+		AreaDamage.damageArea(world, location.getX(), location.getY(), location.getZ(), radius, EntityFilter.of(affectPlayersOnly), attacker, DamageCause.LIGHTNING, strength, false, (int) (15.0f * strength));
 	}
 
 	// ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -491,76 +546,22 @@ public class Common
 	/** Returns a safe location near the given location */
 	public static Location getSafeLocation(Location location)
 	{
-		World world = location.getWorld();
-		int x = location.getBlockX();
-		int y = location.getBlockY();
-		int z = location.getBlockZ();
-		int currentY = y;
-
-		int recursionsLeft = 20;
-		while (recursionsLeft > 0)
-		{
-			currentY = y;
-
-			// Get some blocks in the vicinity that gives a lot of information
-			Block currentBlock = world.getBlockAt(x, y, z);
-			Block upperBlock = world.getBlockAt(x, y + 1, z);
-
-			// Locate solid ground
-			while ((!currentBlock.getType().isSolid() || upperBlock.getType() != Material.AIR) && currentY > location.getBlockY() - 20)
-			{
-				upperBlock = currentBlock;
-				currentBlock = world.getBlockAt(x, --currentY, z);
-			}
-			// Locate open ground
-			upperBlock = world.getBlockAt(x, currentY + 1, z);
-			Block lowerBlock = world.getBlockAt(x, currentY - 1, z);
-			while ((!lowerBlock.getType().isSolid() || currentBlock.getType() != Material.AIR || upperBlock.getType() != Material.AIR) && currentY < location.getBlockY() + 20)
-			{
-				lowerBlock = currentBlock;
-				currentBlock = upperBlock;
-				upperBlock = world.getBlockAt(x, ++currentY, z);
-			}
-			// If no safe place was found, pick a new position that is nearby and try again
-			if (Math.abs(currentY - location.getBlockY()) >= 20)
-			{
-				recursionsLeft--;
-				Random random = new Random();
-				x += -16 + random.nextInt(31);
-				z += -16 + random.nextInt(31);
-			}
-			else
-				break;
-		}
-		return new Location(world, (double) x + 0.5, (double) currentY, (double) z + 0.5);
+		Location safeLocation = SurfaceCache.getSafeLocation(location.getWorld(), location.getX(), location.getY(), location.getZ());
+		if (safeLocation == null)
+			safeLocation = new Location(location.getWorld(), (double) location.getBlockX() + 0.5, (double) location.getBlockY(), (double) location.getBlockZ() + 0.5);
+		return safeLocation;
 	}
 
 	/** Checks if there is some solid blocks in the path between the two locations, or an entity blocks the path. Returns the location of the obstruction, if any was found; returns null otherwise */
 	public static Location getObstruction(Location start, Location end, LivingEntity entityToIgnore)
 	{
 		// Check for entity collisions
-		LivingEntity entity = MathHelper.getEntityInLine(start.getWorld(), new Vector3D(start), new Vector3D(end), entityToIgnore);
+		LivingEntity entity = MathHelper.getEntityInLine(start.getWorld(), start.getX(), start.getY(), start.getZ(), end.getX(), end.getY(), end.getZ(), entityToIgnore);
 		if (entity != null)
 			return entity.getLocation();
 
 		// Check for block collisions
-		Location origin = start.clone();
-		origin.setDirection(end.clone().subtract(start).toVector());
-
-		try
-		{
-			BlockIterator iterator = new BlockIterator(origin, 0.0, (int) Math.ceil(start.distance(end)));
-			while (iterator.hasNext())
-			{
-				Block block = iterator.next();
-				if (block.getType().isSolid())
-					return block.getLocation();
-			}
-		}
-		catch (Exception e)
-		{
-		}
-		return null;
+		return SolidBlockCache.getFirstSolidBlock(start.getWorld(), start.getX(), start.getY(), start.getZ(), end.getX(), end.getY(), end.getZ());
 	}
 
 	/** Returns an itemstack from the string, or null if the string was invalid. String is on the format itemName-itemMeta=itemCount */
@@ -0,0 +1,122 @@
+package com.hepolite.mmob.utility;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+
+import com.hepolite.mmob.GeneralSettings;
+import com.hepolite.mmob.MMobPlugin;
+import com.hepolite.mmob.handlers.MobHandler;
+
+/**
+ * The damage queue gathers up damage that doesn't have to be dealt right away, and deals it at the end of the tick. All damage dealt to the same target by the same attacker for the same reason during a
+ * tick is added together, such that a target caught in several auras and a splash of one mob only gets one damage event and one hurt sound for each kind of damage. Damage from different attackers is
+ * kept apart, so every event names the attacker that actually dealt the damage. Damage that must be dealt right away, or where the caller needs to know whether it was cancelled, should still go through
+ * Common.doDamage
+ */
+public class DamageQueue
+{
+	// Control variables
+	private final static IdentityHashMap<LivingEntity, Entry> entriesByTarget = new IdentityHashMap<LivingEntity, Entry>();
+	private final static List<Entry> entries = new ArrayList<Entry>();	// In the order the damage was first queued; the objects are reused every tick
+	private static int entryCount = 0;
+	private static boolean isFlushing = false;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Deals all damage queued during the tick */
+	public static void onTick()
+	{
+		if (entryCount == 0)
+			return;
+
+		GeneralSettings settings = MMobPlugin.getSettings().getGeneral();
+		isFlushing = true;
+		try
+		{
+			for (int i = 0; i < entryCount; i++)
+			{
+				Entry entry = entries.get(i);
+				double damage = Common.getReducedDamage(entry.damage, entry.target, entry.cause, settings);
+				if (damage >= 0.0)
+					Common.applyDamage(damage, entry.target, entry.attacker, entry.cause);
+			}
+		}
+		finally
+		{
+			isFlushing = false;
+			clear();
+		}
+	}
+
+	/** Queues up some damage to be dealt at the end of the tick. The attacker may be null. Damage queued while the queue is being emptied is dealt right away */
+	public static void doDamage(double damage, LivingEntity target, LivingEntity attacker, DamageCause cause)
+	{
+		if (target == null || damage <= 0.0)
+			return;
+		if (isFlushing)
+		{
+			Common.doDamage(damage, target, attacker, cause);
+			return;
+		}
+
+		// The damage is scaled when it is queued, as the attacker may no longer be a malevolent mob by the end of the tick
+		if (MobHandler.isMobMalevolent(attacker))
+			damage *= MMobPlugin.getSettings().getGeneral().damageScale;
+
+		// Add the damage to the damage already queued for the target, if the attacker and the cause are the same
+		Entry first = entriesByTarget.get(target);
+		for (Entry entry = first; entry != null; entry = entry.next)
+		{
+			if (entry.attacker == attacker && entry.cause == cause)
+			{
+				entry.damage += damage;
+				return;
+			}
+		}
+
+		if (entryCount == entries.size())
+			entries.add(new Entry());
+		Entry entry = entries.get(entryCount++);
+		entry.target = target;
+		entry.attacker = attacker;
+		entry.cause = cause;
+		entry.damage = damage;
+		entry.next = first;
+		entriesByTarget.put(target, entry);
+	}
+
+	/** Throws away all queued damage */
+	public static void clear()
+	{
+		for (int i = 0; i < entryCount; i++)
+			entries.get(i).clear();
+		entryCount = 0;
+		entriesByTarget.clear();
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** The damage dealt to one target by one attacker for one reason */
+	private static final class Entry
+	{
+		private LivingEntity target = null;
+		private LivingEntity attacker = null;
+		private DamageCause cause = null;
+		private double damage = 0.0;
+		private Entry next = null;	// The next entry for the same target
+
+		/** Releases the entities once the damage has been dealt */
+		private void clear()
+		{
+			target = null;
+			attacker = null;
+			next = null;
+		}
+	}
+}
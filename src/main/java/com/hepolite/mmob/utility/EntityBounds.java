@@ -0,0 +1,117 @@
+package com.hepolite.mmob.utility;
+
+import java.util.Arrays;
+
+import org.bukkit.entity.Ageable;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Slime;
+import org.bukkit.entity.Zombie;
+
+/**
+ * The entity bounds know the size of the bounding box of every kind of living entity. The server API doesn't expose the bounding boxes, so the sizes are the ones used by vanilla Minecraft. Entities of
+ * unknown types are treated as one meter wide and two meters tall
+ */
+public class EntityBounds
+{
+	private final static float DEFAULT_WIDTH = 1.0f;
+	private final static float DEFAULT_HEIGHT = 2.0f;
+
+	// Control variables
+	private final static float[] widths = new float[EntityType.values().length];
+	private final static float[] heights = new float[EntityType.values().length];
+
+	/* Initialization */
+	static
+	{
+		Arrays.fill(widths, DEFAULT_WIDTH);
+		Arrays.fill(heights, DEFAULT_HEIGHT);
+
+		set(EntityType.PLAYER, 0.6f, 1.8f);
+		set(EntityType.ARMOR_STAND, 0.5f, 1.975f);
+
+		set(EntityType.BLAZE, 0.6f, 1.8f);
+		set(EntityType.CAVE_SPIDER, 0.7f, 0.5f);
+		set(EntityType.CREEPER, 0.6f, 1.7f);
+		set(EntityType.ELDER_GUARDIAN, 1.9975f, 1.9975f);
+		set(EntityType.ENDER_DRAGON, 16.0f, 8.0f);
+		set(EntityType.ENDERMAN, 0.6f, 2.9f);
+		set(EntityType.ENDERMITE, 0.4f, 0.3f);
+		set(EntityType.EVOKER, 0.6f, 1.95f);
+		set(EntityType.GHAST, 4.0f, 4.0f);
+		set(EntityType.GIANT, 3.6f, 11.7f);
+		set(EntityType.GUARDIAN, 0.85f, 0.85f);
+		set(EntityType.HUSK, 0.6f, 1.95f);
+		set(EntityType.PIG_ZOMBIE, 0.6f, 1.95f);
+		set(EntityType.SHULKER, 1.0f, 1.0f);
+		set(EntityType.SILVERFISH, 0.4f, 0.3f);
+		set(EntityType.SKELETON, 0.6f, 1.99f);
+		set(EntityType.SPIDER, 1.4f, 0.9f);
+		set(EntityType.STRAY, 0.6f, 1.99f);
+		set(EntityType.VEX, 0.4f, 0.8f);
+		set(EntityType.VINDICATOR, 0.6f, 1.95f);
+		set(EntityType.WITCH, 0.6f, 1.95f);
+		set(EntityType.WITHER, 0.9f, 3.5f);
+		set(EntityType.WITHER_SKELETON, 0.7f, 2.4f);
+		set(EntityType.ZOMBIE, 0.6f, 1.95f);
+		set(EntityType.ZOMBIE_VILLAGER, 0.6f, 1.95f);
+
+		set(EntityType.BAT, 0.5f, 0.9f);
+		set(EntityType.CHICKEN, 0.4f, 0.7f);
+		set(EntityType.COW, 0.9f, 1.4f);
+		set(EntityType.DONKEY, 1.3964844f, 1.6f);
+		set(EntityType.HORSE, 1.3964844f, 1.6f);
+		set(EntityType.IRON_GOLEM, 1.4f, 2.7f);
+		set(EntityType.LLAMA, 0.9f, 1.87f);
+		set(EntityType.MULE, 1.3964844f, 1.6f);
+		set(EntityType.MUSHROOM_COW, 0.9f, 1.4f);
+		set(EntityType.OCELOT, 0.6f, 0.7f);
+		set(EntityType.PIG, 0.9f, 0.9f);
+		set(EntityType.POLAR_BEAR, 1.3f, 1.4f);
+		set(EntityType.RABBIT, 0.4f, 0.5f);
+		set(EntityType.SHEEP, 0.9f, 1.3f);
+		set(EntityType.SKELETON_HORSE, 1.3964844f, 1.6f);
+		set(EntityType.SNOWMAN, 0.7f, 1.9f);
+		set(EntityType.SQUID, 0.8f, 0.8f);
+		set(EntityType.VILLAGER, 0.6f, 1.95f);
+		set(EntityType.WOLF, 0.6f, 0.85f);
+		set(EntityType.ZOMBIE_HORSE, 1.3964844f, 1.6f);
+	}
+
+	/** Sets the size of the given type of entity */
+	private static void set(EntityType type, float width, float height)
+	{
+		widths[type.ordinal()] = width;
+		heights[type.ordinal()] = height;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the width of the bounding box of the given entity */
+	public static float getWidth(LivingEntity entity)
+	{
+		if (entity instanceof Slime)
+			return 0.51f * ((Slime) entity).getSize();
+		return getScale(entity) * widths[entity.getType().ordinal()];
+	}
+
+	/** Returns the height of the bounding box of the given entity */
+	public static float getHeight(LivingEntity entity)
+	{
+		if (entity instanceof Slime)
+			return 0.51f * ((Slime) entity).getSize();
+		return getScale(entity) * heights[entity.getType().ordinal()];
+	}
+
+	/** Returns how large the given entity is compared to a fully grown entity of the same type */
+	private static float getScale(LivingEntity entity)
+	{
+		if (entity instanceof Ageable && !((Ageable) entity).isAdult())
+			return 0.5f;
+		if (entity instanceof Zombie && ((Zombie) entity).isBaby())
+			return 0.5f;
+		return 1.0f;
+	}
+}
@@ -0,0 +1,37 @@
+package com.hepolite.mmob.utility;
+
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Monster;
+import org.bukkit.entity.Player;
+
+import com.hepolite.mmob.handlers.MobHandler;
+
+/**
+ * The entity filter decides which kinds of living entities a range query should find
+ */
+public enum EntityFilter
+{
+	ALL, PLAYERS, MONSTERS, MALEVOLENT;
+
+	/** Returns true if the given entity is of the kind the filter is looking for */
+	public boolean accepts(LivingEntity entity)
+	{
+		switch (this)
+		{
+		case PLAYERS:
+			return entity instanceof Player;
+		case MONSTERS:
+			return entity instanceof Monster;
+		case MALEVOLENT:
+			return MobHandler.isMobMalevolent(entity);
+		default:
+			return true;
+		}
+	}
+
+	/** Returns the filter that finds either players only or every living entity */
+	public static EntityFilter of(boolean playersOnly)
+	{
+		return playersOnly ? PLAYERS : ALL;
+	}
+}
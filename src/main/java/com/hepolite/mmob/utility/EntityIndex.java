@@ -0,0 +1,233 @@
+package com.hepolite.mmob.utility;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.LivingEntity;
+
+import com.hepolite.mmob.utility.SpatialGrid.Visitor;
+
+/**
+ * The entity index sorts the living entities of each world into a spatial grid, such that range queries only have to look at the entities near the query rather than every entity in the world. The grid
+ * of a world is rebuilt the first time it is needed after it has grown a few ticks old, and creatures that spawn in the meantime are added to it as they spawn. Entities move after the grid has been
+ * built, so every query looks further than asked for, by as far as an entity could have moved since then, and then checks the current position of each entity it found. Entities that move faster than
+ * that may be missed near the edge of a query.
+ * <p>
+ * Teleports are too far for the margin to cover, so the grids of the worlds involved are rebuilt the next time they are needed. Bukkit doesn't announce every teleport of an entity that isn't a
+ * player, so code that teleports entities itself must let the index know
+ */
+public class EntityIndex
+{
+	private final static int CELL_SHIFT = 4;		// Cells are 16 blocks across
+	private final static int REBUILD_INTERVAL = 4;	// Ticks
+	private final static double MARGIN = 2.0;		// How far entities may move within the tick the grid was built in and still be found
+	private final static double MAX_SPEED = 1.0;	// Blocks per tick; how fast entities are expected to move at most between rebuilds
+	private final static double COLUMN_MARGIN = 64.0;	// How far below the bottom and above the top of the world column queries look
+
+	// Control variables
+	private final static HashMap<UUID, WorldIndex> worlds = new HashMap<UUID, WorldIndex>();
+	private final static List<LiveFilter> filters = new ArrayList<LiveFilter>();	// One filter for each level of nested queries
+	private static int queryDepth = 0;
+	private static int currentTick = 0;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Moves time forward; grids that have grown too old will be rebuilt the next time they are needed */
+	public static void onTick()
+	{
+		currentTick++;
+	}
+
+	/** Adds the given entity to the grid of the world it is in, if the grid is up to date */
+	public static void onEntitySpawn(LivingEntity entity, Location location)
+	{
+		WorldIndex index = worlds.get(location.getWorld().getUID());
+		if (index != null && index.isUpToDate())
+			index.grid.add(entity, location.getX(), location.getY(), location.getZ());
+	}
+
+	/** Marks the grids of the worlds an entity is teleported between as out of date, such that the entity is found at its new position */
+	public static void onEntityTeleport(Location from, Location to)
+	{
+		if (from != null && from.getWorld() != null)
+			invalidate(from.getWorld());
+		if (to != null && to.getWorld() != null)
+			invalidate(to.getWorld());
+	}
+
+	/** Marks the grid of the given world as out of date */
+	public static void invalidate(World world)
+	{
+		WorldIndex index = worlds.get(world.getUID());
+		if (index != null)
+			index.isInvalidated = true;
+	}
+
+	/** Forgets about the grid of the given world */
+	public static void onWorldUnload(World world)
+	{
+		worlds.remove(world.getUID());
+	}
+
+	/** Forgets about all grids */
+	public static void clear()
+	{
+		worlds.clear();
+	}
+
+	/** Passes every valid living entity that passes the filter and is within the given range of the given position to the visitor, along with the squared distance to it */
+	public static void forEachInRange(World world, double x, double y, double z, double range, EntityFilter entityFilter, Visitor<? super LivingEntity> visitor)
+	{
+		WorldIndex index = getIndex(world);
+		if (index.grid.size() == 0)
+			return;
+
+		// Queries may be nested if the visitor performs a query of its own, so each level needs a filter of its own
+		if (queryDepth == filters.size())
+			filters.add(new LiveFilter());
+		LiveFilter filter = filters.get(queryDepth++);
+		try
+		{
+			filter.begin(world, x, y, z, range, false, entityFilter, visitor);
+			index.grid.forEachInRange(x, y, z, range + index.getMargin(), filter);
+		}
+		finally
+		{
+			filter.end();
+			queryDepth--;
+		}
+	}
+
+	/** Passes every valid living entity that passes the filter and is within the given horizontal range of the given position to the visitor, along with the squared horizontal distance to it */
+	public static void forEachInColumn(World world, double x, double z, double range, EntityFilter entityFilter, Visitor<? super LivingEntity> visitor)
+	{
+		WorldIndex index = getIndex(world);
+		if (index.grid.size() == 0)
+			return;
+
+		if (queryDepth == filters.size())
+			filters.add(new LiveFilter());
+		LiveFilter filter = filters.get(queryDepth++);
+		try
+		{
+			filter.begin(world, x, 0.0, z, range, true, entityFilter, visitor);
+			index.grid.forEachInColumn(x, z, range + index.getMargin(), -COLUMN_MARGIN, world.getMaxHeight() + COLUMN_MARGIN, filter);
+		}
+		finally
+		{
+			filter.end();
+			queryDepth--;
+		}
+	}
+
+	/**
+	 * Passes every living entity near the given line segment to the visitor, along with the squared distance from the start of the segment to where the entity was when the grid was built. The entities
+	 * are not checked in any way; the visitor must look at the current position and validity of each entity itself
+	 */
+	public static void forEachAlongSegment(World world, double x1, double y1, double z1, double x2, double y2, double z2, Visitor<? super LivingEntity> visitor)
+	{
+		// One cell of padding covers both the tallest entities and how far they may have moved since the grid was built
+		getIndex(world).grid.forEachAlongSegment(x1, y1, z1, x2, y2, z2, 1, visitor);
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the index of the given world, rebuilding its grid if it is out of date */
+	private static WorldIndex getIndex(World world)
+	{
+		WorldIndex index = worlds.get(world.getUID());
+		if (index == null)
+		{
+			index = new WorldIndex();
+			worlds.put(world.getUID(), index);
+		}
+		if (!index.isUpToDate())
+		{
+			index.tick = currentTick;
+			index.isInvalidated = false;
+			index.grid.clear();
+			for (LivingEntity entity : world.getLivingEntities())
+			{
+				Location location = entity.getLocation(index.scratchLocation);
+				index.grid.add(entity, location.getX(), location.getY(), location.getZ());
+			}
+		}
+		return index;
+	}
+
+	/** The grid of a single world, along with the tick it was built in */
+	private static final class WorldIndex
+	{
+		private final SpatialGrid<LivingEntity> grid = new SpatialGrid<LivingEntity>(CELL_SHIFT);
+		private final Location scratchLocation = new Location(null, 0.0, 0.0, 0.0);
+		private int tick = 0;
+		private boolean isInvalidated = true;
+
+		/** Returns true if the grid can still be used */
+		private boolean isUpToDate()
+		{
+			return !isInvalidated && currentTick - tick < REBUILD_INTERVAL;
+		}
+
+		/** Returns how much further than asked for queries have to look, to find entities that have moved since the grid was built */
+		private double getMargin()
+		{
+			return MARGIN + MAX_SPEED * (currentTick - tick);
+		}
+	}
+
+	/** Checks the current position of the entities found in the grid, and passes on those that are still in range */
+	private static final class LiveFilter implements Visitor<LivingEntity>
+	{
+		private final Location scratchLocation = new Location(null, 0.0, 0.0, 0.0);
+		private Visitor<? super LivingEntity> visitor = null;
+		private EntityFilter entityFilter = EntityFilter.ALL;
+		private World world = null;
+		private double x, y, z;
+		private double rangeSquared;
+		private boolean ignoreHeight = false;
+
+		/** Prepares the filter for a new query */
+		private void begin(World world, double x, double y, double z, double range, boolean ignoreHeight, EntityFilter entityFilter, Visitor<? super LivingEntity> visitor)
+		{
+			this.ignoreHeight = ignoreHeight;
+			this.visitor = visitor;
+			this.entityFilter = entityFilter;
+			this.world = world;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			rangeSquared = range * range;
+		}
+
+		/** Releases the visitor once the query is done */
+		private void end()
+		{
+			visitor = null;
+			world = null;
+		}
+
+		@Override
+		public void visit(LivingEntity entity, double distanceSquared)
+		{
+			if (!entityFilter.accepts(entity) || !entity.isValid())
+				return;
+
+			Location location = entity.getLocation(scratchLocation);
+			if (location.getWorld() != world)
+				return;
+			double dx = location.getX() - x;
+			double dy = ignoreHeight ? 0.0 : location.getY() - y;
+			double dz = location.getZ() - z;
+			distanceSquared = dx * dx + dy * dy + dz * dz;
+			if (distanceSquared < rangeSquared)
+				visitor.visit(entity, distanceSquared);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.hepolite.mmob.utility;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive longs to objects, stored in an open-addressing table. Unlike a HashMap with Long keys, looking up values doesn't create any objects, and clearing the map keeps the table around
+ * for reuse
+ */
+public class LongHashMap<V>
+{
+	private final static int INITIAL_CAPACITY = 64;
+
+	// Control variables
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private Object[] values = new Object[INITIAL_CAPACITY];
+	private int mask = INITIAL_CAPACITY - 1;
+	private int size = 0;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Associates the given value with the given key. Null values are not allowed */
+	public void put(long key, V value)
+	{
+		if (value == null)
+			throw new IllegalArgumentException("Null values can't be stored in the map!");
+		if ((size + 1) * 2 > keys.length)
+			resize(2 * keys.length);
+
+		int slot = getSlot(key);
+		while (values[slot] != null)
+		{
+			if (keys[slot] == key)
+			{
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+	}
+
+	/** Returns the value associated with the given key, or null if there is no such value */
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		int slot = getSlot(key);
+		while (values[slot] != null)
+		{
+			if (keys[slot] == key)
+				return (V) values[slot];
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	/** Removes the value associated with the given key, and returns it. Returns null if there was no such value */
+	@SuppressWarnings("unchecked")
+	public V remove(long key)
+	{
+		int slot = getSlot(key);
+		while (values[slot] != null)
+		{
+			if (keys[slot] == key)
+			{
+				V value = (V) values[slot];
+				removeSlot(slot);
+				return value;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	/** Removes all values from the map, without releasing the memory used by the table */
+	public void clear()
+	{
+		if (size == 0)
+			return;
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/** Returns the number of values in the map */
+	public int size()
+	{
+		return size;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the preferred slot for the given key */
+	private int getSlot(long key)
+	{
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	/** Empties the given slot, shifting the following entries back such that no lookups are broken by the gap */
+	private void removeSlot(int slot)
+	{
+		values[slot] = null;
+		size--;
+
+		int current = slot;
+		while (true)
+		{
+			current = (current + 1) & mask;
+			if (values[current] == null)
+				return;
+
+			// Entries that would still be found from their preferred slot stay where they are
+			int preferred = getSlot(keys[current]);
+			if (slot <= current ? (slot < preferred && preferred <= current) : (slot < preferred || preferred <= current))
+				continue;
+
+			keys[slot] = keys[current];
+			values[slot] = values[current];
+			values[current] = null;
+			slot = current;
+		}
+	}
+
+	/** Moves all values over to a table of the given capacity */
+	private void resize(int capacity)
+	{
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldValues[i] == null)
+				continue;
+			int slot = getSlot(oldKeys[i]);
+			while (values[slot] != null)
+				slot = (slot + 1) & mask;
+			keys[slot] = oldKeys[i];
+			values[slot] = oldValues[i];
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.hepolite.mmob.utility;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs, stored in an open-addressing table. Unlike a HashSet of Longs, adding and looking up values doesn't create any objects, and clearing the set keeps the table around for reuse
+ */
+public class LongHashSet
+{
+	private final static int INITIAL_CAPACITY = 64;
+
+	// Control variables
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private boolean[] used = new boolean[INITIAL_CAPACITY];
+	private int mask = INITIAL_CAPACITY - 1;
+	private int size = 0;
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Adds the given value to the set. Returns true if the value wasn't in the set already */
+	public boolean add(long value)
+	{
+		if ((size + 1) * 2 > keys.length)
+			resize(2 * keys.length);
+
+		int slot = getSlot(value);
+		while (used[slot])
+		{
+			if (keys[slot] == value)
+				return false;
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = value;
+		used[slot] = true;
+		size++;
+		return true;
+	}
+
+	/** Returns true if the given value is in the set */
+	public boolean contains(long value)
+	{
+		int slot = getSlot(value);
+		while (used[slot])
+		{
+			if (keys[slot] == value)
+				return true;
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/** Removes all values from the set, without releasing the memory used by the table */
+	public void clear()
+	{
+		if (size == 0)
+			return;
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	/** Returns the number of values in the set */
+	public int size()
+	{
+		return size;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the preferred slot for the given value */
+	private int getSlot(long value)
+	{
+		long hash = value * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	/** Moves all values over to a table of the given capacity */
+	private void resize(int capacity)
+	{
+		long[] oldKeys = keys;
+		boolean[] oldUsed = used;
+
+		keys = new long[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (!oldUsed[i])
+				continue;
+			int slot = getSlot(oldKeys[i]);
+			while (used[slot])
+				slot = (slot + 1) & mask;
+			keys[slot] = oldKeys[i];
+			used[slot] = true;
+		}
+	}
+}
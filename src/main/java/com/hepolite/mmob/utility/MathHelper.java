@@ -1,10 +1,7 @@
 package com.hepolite.mmob.utility;
 
-import java.util.List;
-
 import org.bukkit.Location;
 import org.bukkit.World;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.util.Vector;
@@ -13,261 +10,154 @@ public class MathHelper
 {
 	public static Vector gravity = new Vector(0.0, -0.05, 0.0);
 
+	private final static LineHitFinder lineHitFinder = new LineHitFinder();
+
 	// ////////////////////////////////////////////////////////////////////////////////////////////
 
 	/** Returns the nearest living entity that's inside the given line. If no entity was found, null is returned */
 	public static LivingEntity getEntityInLine(Player player, float visionRange)
 	{
-		Location observerPos = player.getEyeLocation();
-		Vector3D observerDir = new Vector3D(observerPos.getDirection());
-		Vector3D observerStart = new Vector3D(observerPos);
-		Vector3D observerEnd = observerStart.add(observerDir.multiply(visionRange));
-
-		return getEntityInLine(player.getWorld(), observerStart, observerEnd, player);
+		return getEntityInLine(player.getEyeLocation(), visionRange, player);
 	}
 
 	/** Returns the nearest living entity that's inside the given line. If no entity was found, null is returned */
 	public static LivingEntity getEntityInLine(Location location, float visionRange, LivingEntity ignoredEntity)
 	{
-		Vector3D observerDir = new Vector3D(location.getDirection());
-		Vector3D observerStart = new Vector3D(location);
-		Vector3D observerEnd = observerStart.add(observerDir.multiply(visionRange));
-
-		return getEntityInLine(location.getWorld(), observerStart, observerEnd, ignoredEntity);
+		// Same direction as Location.getDirection, without creating a vector
+		double yaw = Math.toRadians(location.getYaw());
+		double pitch = Math.toRadians(location.getPitch());
+		double directionXZ = Math.cos(pitch);
+		double directionX = -directionXZ * Math.sin(yaw);
+		double directionY = -Math.sin(pitch);
+		double directionZ = directionXZ * Math.cos(yaw);
+
+		return getEntityInLine(location.getWorld(), location.getX(), location.getY(), location.getZ(), location.getX() + visionRange * directionX, location.getY() + visionRange * directionY, location.getZ() + visionRange * directionZ, ignoredEntity);
 	}
 
-	/** Returns the nearest living entity that's inside the given line. If no entity was found, null is returned */
-	public static LivingEntity getEntityInLine(World world, Vector3D start, Vector3D end, LivingEntity ignoredEntity)
+	/** Returns the living entity that the given line hits first, using the actual bounding box of each entity. If no entity was found, null is returned */
+	public static LivingEntity getEntityInLine(World world, double startX, double startY, double startZ, double endX, double endY, double endZ, LivingEntity ignoredEntity)
 	{
-		LivingEntity nearestEntity = null;
-		float nearestDistanceSquared = -1.0f;
-
-		List<Entity> entities = world.getEntities();
-		for (Entity entity : entities)
+		// Only the entities in the grid cells along the line are tested
+		lineHitFinder.begin(world, startX, startY, startZ, endX, endY, endZ, ignoredEntity);
+		try
 		{
-			if (entity instanceof LivingEntity)
-			{
-				// Get the entity bounding box, slightly expanded
-				Vector3D targetPos = new Vector3D(((LivingEntity) entity).getLocation());
-				Vector3D minimum = targetPos.add(-0.5, 0, -0.5);
-				Vector3D maximum = targetPos.add(0.5, 2.0, 0.5);	// Treat all mobs as two meters tall for now
-
-				if (entity != ignoredEntity && MathHelper.hasIntersection(start, end, minimum, maximum))
-				{
-					float distanceSquared = (float) ((LivingEntity) entity).getEyeLocation().toVector().distanceSquared(start.toVector());
-					if (distanceSquared < nearestDistanceSquared || nearestDistanceSquared == -1.0f)
-					{
-						nearestDistanceSquared = distanceSquared;
-						nearestEntity = (LivingEntity) entity;
-					}
-				}
-			}
+			EntityIndex.forEachAlongSegment(world, startX, startY, startZ, endX, endY, endZ, lineHitFinder);
+			return lineHitFinder.nearestEntity;
 		}
-		return nearestEntity;
-	}
-
-	/* Intersection code from https://gist.github.com/aadnk/5550498 */
-	/** Returns true if the line formed between the points p1 and p2 are intersecting the bounding box spanned out by the vector min and max */
-	public static boolean hasIntersection(Vector3D p1, Vector3D p2, Vector3D min, Vector3D max)
-	{
-		final double epsilon = 0.0001f;
-		Vector3D d = p2.subtract(p1).multiply(0.5);
-		Vector3D e = max.subtract(min).multiply(0.5);
-		Vector3D c = p1.add(d).subtract(min.add(max).multiply(0.5));
-		Vector3D ad = d.abs();
-		if (Math.abs(c.x) > e.x + ad.x)
-			return false;
-		if (Math.abs(c.y) > e.y + ad.y)
-			return false;
-		if (Math.abs(c.z) > e.z + ad.z)
-			return false;
-		if (Math.abs(d.y * c.z - d.z * c.y) > e.y * ad.z + e.z * ad.y + epsilon)
-			return false;
-		if (Math.abs(d.z * c.x - d.x * c.z) > e.z * ad.x + e.x * ad.z + epsilon)
-			return false;
-		if (Math.abs(d.x * c.y - d.y * c.x) > e.x * ad.y + e.y * ad.x + epsilon)
-			return false;
-		return true;
-	}
-
-	/* Vector code from https://gist.github.com/aadnk/5550498 */
-	/** A vector class to make vector math easier */
-	public static final class Vector3D
-	{
-		/**
-		 * Represents the null (0, 0, 0) origin.
-		 */
-		public static final Vector3D ORIGIN = new Vector3D(0, 0, 0);
-
-		// Use protected members, like Bukkit
-		public final double x;
-		public final double y;
-		public final double z;
-
-		/**
-		 * Construct an immutable 3D vector.
-		 */
-		public Vector3D(double x, double y, double z)
+		finally
 		{
-			this.x = x;
-			this.y = y;
-			this.z = z;
-		}
-
-		/**
-		 * Construct an immutable floating point 3D vector from a location object.
-		 * 
-		 * @param location
-		 *            - the location to copy.
-		 */
-		public Vector3D(Location location)
-		{
-			this(location.toVector());
+			lineHitFinder.end();
 		}
+	}
 
-		/**
-		 * Construct an immutable floating point 3D vector from a mutable Bukkit vector.
-		 * 
-		 * @param vector
-		 *            - the mutable real Bukkit vector to copy.
-		 */
-		public Vector3D(Vector vector)
-		{
-			if (vector == null)
-				throw new IllegalArgumentException("Vector cannot be NULL.");
-			this.x = vector.getX();
-			this.y = vector.getY();
-			this.z = vector.getZ();
-		}
+	/**
+	 * Returns how far along the line segment, as a fraction from 0 at the start to 1 at the end, the segment enters the given box. If the segment starts inside the box, 0 is returned. If the segment
+	 * misses the box entirely, -1 is returned
+	 */
+	public static double getSegmentBoxIntersection(double startX, double startY, double startZ, double deltaX, double deltaY, double deltaZ, double minX, double minY, double minZ, double maxX, double maxY, double maxZ)
+	{
+		// Clip the segment against the slab between the two planes of the box along each axis in turn
+		double tEnter = 0.0;
+		double tExit = 1.0;
 
-		/**
-		 * Convert this instance to an equivalent real 3D vector.
-		 * 
-		 * @return Real 3D vector.
-		 */
-		public Vector toVector()
+		if (deltaX == 0.0)
 		{
-			return new Vector(x, y, z);
+			if (startX < minX || startX > maxX)
+				return -1.0;
 		}
-
-		/**
-		 * Adds the current vector and a given position vector, producing a result vector.
-		 * 
-		 * @param other
-		 *            - the other vector.
-		 * @return The new result vector.
-		 */
-		public Vector3D add(Vector3D other)
+		else
 		{
-			if (other == null)
-				throw new IllegalArgumentException("other cannot be NULL");
-			return new Vector3D(x + other.x, y + other.y, z + other.z);
+			double t1 = (minX - startX) / deltaX;
+			double t2 = (maxX - startX) / deltaX;
+			tEnter = Math.max(tEnter, Math.min(t1, t2));
+			tExit = Math.min(tExit, Math.max(t1, t2));
+			if (tEnter > tExit)
+				return -1.0;
 		}
 
-		/**
-		 * Adds the current vector and a given vector together, producing a result vector.
-		 * 
-		 * @param other
-		 *            - the other vector.
-		 * @return The new result vector.
-		 */
-		public Vector3D add(double x, double y, double z)
+		if (deltaY == 0.0)
 		{
-			return new Vector3D(this.x + x, this.y + y, this.z + z);
+			if (startY < minY || startY > maxY)
+				return -1.0;
 		}
-
-		/**
-		 * Substracts the current vector and a given vector, producing a result position.
-		 * 
-		 * @param other
-		 *            - the other position.
-		 * @return The new result position.
-		 */
-		public Vector3D subtract(Vector3D other)
+		else
 		{
-			if (other == null)
-				throw new IllegalArgumentException("other cannot be NULL");
-			return new Vector3D(x - other.x, y - other.y, z - other.z);
+			double t1 = (minY - startY) / deltaY;
+			double t2 = (maxY - startY) / deltaY;
+			tEnter = Math.max(tEnter, Math.min(t1, t2));
+			tExit = Math.min(tExit, Math.max(t1, t2));
+			if (tEnter > tExit)
+				return -1.0;
 		}
 
-		/**
-		 * Substracts the current vector and a given vector together, producing a result vector.
-		 * 
-		 * @param other
-		 *            - the other vector.
-		 * @return The new result vector.
-		 */
-		public Vector3D subtract(double x, double y, double z)
+		if (deltaZ == 0.0)
 		{
-			return new Vector3D(this.x - x, this.y - y, this.z - z);
+			if (startZ < minZ || startZ > maxZ)
+				return -1.0;
 		}
-
-		/**
-		 * Multiply each dimension in the current vector by the given factor.
-		 * 
-		 * @param factor
-		 *            - multiplier.
-		 * @return The new result.
-		 */
-		public Vector3D multiply(int factor)
+		else
 		{
-			return new Vector3D(x * factor, y * factor, z * factor);
+			double t1 = (minZ - startZ) / deltaZ;
+			double t2 = (maxZ - startZ) / deltaZ;
+			tEnter = Math.max(tEnter, Math.min(t1, t2));
+			tExit = Math.min(tExit, Math.max(t1, t2));
+			if (tEnter > tExit)
+				return -1.0;
 		}
+		return tEnter;
+	}
 
-		/**
-		 * Multiply each dimension in the current vector by the given factor.
-		 * 
-		 * @param factor
-		 *            - multiplier.
-		 * @return The new result.
-		 */
-		public Vector3D multiply(double factor)
-		{
-			return new Vector3D(x * factor, y * factor, z * factor);
-		}
+	/** Finds the entity that a line segment hits first */
+	private static final class LineHitFinder implements SpatialGrid.Visitor<LivingEntity>
+	{
+		private final Location scratchLocation = new Location(null, 0.0, 0.0, 0.0);
+		private World world = null;
+		private double startX, startY, startZ;
+		private double deltaX, deltaY, deltaZ;
+		private LivingEntity ignoredEntity = null;
 
-		/**
-		 * Divide each dimension in the current vector by the given divisor.
-		 * 
-		 * @param divisor
-		 *            - the divisor.
-		 * @return The new result.
-		 */
-		public Vector3D divide(int divisor)
-		{
-			if (divisor == 0)
-				throw new IllegalArgumentException("Cannot divide by null.");
-			return new Vector3D(x / divisor, y / divisor, z / divisor);
-		}
+		private LivingEntity nearestEntity = null;
+		private double nearestFraction = 0.0;
 
-		/**
-		 * Divide each dimension in the current vector by the given divisor.
-		 * 
-		 * @param divisor
-		 *            - the divisor.
-		 * @return The new result.
-		 */
-		public Vector3D divide(double divisor)
+		/** Prepares the finder for a new line */
+		private void begin(World world, double startX, double startY, double startZ, double endX, double endY, double endZ, LivingEntity ignoredEntity)
 		{
-			if (divisor == 0)
-				throw new IllegalArgumentException("Cannot divide by null.");
-			return new Vector3D(x / divisor, y / divisor, z / divisor);
+			this.world = world;
+			this.startX = startX;
+			this.startY = startY;
+			this.startZ = startZ;
+			this.deltaX = endX - startX;
+			this.deltaY = endY - startY;
+			this.deltaZ = endZ - startZ;
+			this.ignoredEntity = ignoredEntity;
+			nearestEntity = null;
 		}
 
-		/**
-		 * Retrieve the absolute value of this vector.
-		 * 
-		 * @return The new result.
-		 */
-		public Vector3D abs()
+		/** Releases all entities once the line is done */
+		private void end()
 		{
-			return new Vector3D(Math.abs(x), Math.abs(y), Math.abs(z));
+			world = null;
+			ignoredEntity = null;
+			nearestEntity = null;
 		}
 
 		@Override
-		public String toString()
+		public void visit(LivingEntity entity, double distanceSquared)
 		{
-			return String.format("[x: %s, y: %s, z: %s]", x, y, z);
+			if (entity == ignoredEntity || !entity.isValid())
+				return;
+			Location location = entity.getLocation(scratchLocation);
+			if (location.getWorld() != world)
+				return;
+
+			double halfWidth = 0.5 * EntityBounds.getWidth(entity);
+			double height = EntityBounds.getHeight(entity);
+			double fraction = getSegmentBoxIntersection(startX, startY, startZ, deltaX, deltaY, deltaZ, location.getX() - halfWidth, location.getY(), location.getZ() - halfWidth, location.getX() + halfWidth, location.getY() + height, location.getZ() + halfWidth);
+			if (fraction >= 0.0 && (nearestEntity == null || fraction < nearestFraction))
+			{
+				nearestEntity = entity;
+				nearestFraction = fraction;
+			}
 		}
 	}
 
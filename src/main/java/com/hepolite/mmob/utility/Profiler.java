@@ -0,0 +1,290 @@
+package com.hepolite.mmob.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The profiler measures the time spent in various parts of the plugin. The phases of the tick are timed every tick, while the event hooks of abilities and item effects are only timed every now and
+ * then, as given by the sample rate. The most recent measurements of each section are kept, such that the percentiles reflect the current state of the server. Where the JVM supports it, the memory
+ * allocated during each phase of the tick is measured as well, which makes it easy to spot code that produces garbage every tick
+ */
+public class Profiler
+{
+	private final static int WINDOW_SIZE = 1024;
+
+	// Control variables
+	private static boolean isEnabled = false;
+	private static int sampleRate = 1;
+	private static int sampleCounter = 0;
+
+	private final static com.sun.management.ThreadMXBean threadBean = getThreadBean();
+	private static long allocationOverhead = 0;	// The memory allocated by the measurement itself
+	private static long allocationStart = 0;
+
+	private final static HashMap<String, Section> sections = new HashMap<String, Section>();
+	private final static HashMap<Class<?>, HashMap<String, Section>> classSections = new HashMap<Class<?>, HashMap<String, Section>>();
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Returns the start time of a measurement that is always taken, or 0 if the profiler is disabled. These measurements can't be nested */
+	public static long start()
+	{
+		if (!isEnabled)
+			return 0L;
+		allocationStart = getAllocatedBytes();
+		return System.nanoTime();
+	}
+
+	/** Finishes a measurement started with start(), recording it under the given name */
+	public static void stop(String name, long startTime)
+	{
+		if (startTime == 0L)
+			return;
+		long time = System.nanoTime() - startTime;
+		long allocated = getAllocatedBytes() - allocationStart - allocationOverhead;
+
+		Section section = sections.get(name);
+		if (section == null)
+		{
+			section = new Section(name);
+			sections.put(name, section);
+		}
+		section.record(time, 1);
+		if (threadBean != null)
+			section.recordAllocation(Math.max(0L, allocated));
+	}
+
+	/** Returns the start time of a measurement that is only taken once every sample rate calls, or 0 if this call should not be measured */
+	public static long startSample()
+	{
+		if (!isEnabled || ++sampleCounter < sampleRate)
+			return 0L;
+		sampleCounter = 0;
+		return System.nanoTime();
+	}
+
+	/** Finishes a measurement started with startSample(), recording it under the given class and hook */
+	public static void stopSample(Class<?> type, String hook, long startTime)
+	{
+		if (startTime == 0L)
+			return;
+
+		HashMap<String, Section> hooks = classSections.get(type);
+		if (hooks == null)
+		{
+			hooks = new HashMap<String, Section>();
+			classSections.put(type, hooks);
+		}
+		Section section = hooks.get(hook);
+		if (section == null)
+		{
+			section = new Section(type.getSimpleName() + "." + hook);
+			hooks.put(hook, section);
+		}
+		section.record(System.nanoTime() - startTime, sampleRate);
+	}
+
+	/** Forgets about all measurements */
+	public static void reset()
+	{
+		sections.clear();
+		classSections.clear();
+	}
+
+	/** Writes all measurements to a new CSV file in the given folder. Returns the file that was written */
+	public static File dumpToFile(File folder) throws IOException
+	{
+		File file = new File(folder, "profile-" + System.currentTimeMillis() + ".csv");
+		PrintWriter writer = new PrintWriter(file, "UTF-8");
+		try
+		{
+			writer.println("section,calls,total_ms,mean_us,p50_us,p99_us,max_us,allocated_bytes_per_call");
+			for (Section section : getSections())
+				writer.println(String.format("%s,%d,%.3f,%.2f,%.2f,%.2f,%.2f,%d", section.getName(), section.getCalls(), section.getTotalTime() / 1000000.0, section.getMean() / 1000.0, section.getPercentile(0.5) / 1000.0, section.getPercentile(0.99) / 1000.0, section.getMax() / 1000.0, section.getAllocationPerCall()));
+		}
+		finally
+		{
+			writer.close();
+		}
+		return file;
+	}
+
+	/** Returns the thread bean used to measure allocations, or null if the JVM can't measure allocations */
+	private static com.sun.management.ThreadMXBean getThreadBean()
+	{
+		try
+		{
+			if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)
+			{
+				com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+				if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+					return bean;
+			}
+		}
+		catch (LinkageError e)
+		{
+		}
+		return null;
+	}
+
+	/** Returns the number of bytes allocated by the current thread so far, or 0 if allocations can't be measured */
+	private static long getAllocatedBytes()
+	{
+		return threadBean == null ? 0L : threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA // DATA //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Enables or disables the profiler */
+	public static void setEnabled(boolean enabled)
+	{
+		isEnabled = enabled;
+
+		// Find out how much the measurement of the allocations allocates by itself
+		if (enabled && threadBean != null)
+		{
+			long first = getAllocatedBytes();
+			long second = getAllocatedBytes();
+			allocationOverhead = Math.max(0L, second - first);
+		}
+	}
+
+	/** Returns true if the profiler is taking measurements */
+	public static boolean isEnabled()
+	{
+		return isEnabled;
+	}
+
+	/** Sets how many calls there should be between each measurement of the event hooks */
+	public static void setSampleRate(int rate)
+	{
+		sampleRate = Math.max(1, rate);
+	}
+
+	/** Returns all the sections that have been measured, sorted by the estimated total time spent in them */
+	public static List<Section> getSections()
+	{
+		List<Section> list = new ArrayList<Section>(sections.values());
+		for (HashMap<String, Section> hooks : classSections.values())
+			list.addAll(hooks.values());
+
+		Collections.sort(list, new Comparator<Section>()
+		{
+			@Override
+			public int compare(Section a, Section b)
+			{
+				return Long.compare(b.getTotalTime(), a.getTotalTime());
+			}
+		});
+		return list;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////////////////
+	// SECTION // SECTION // SECTION // SECTION // SECTION // SECTION // SECTION // SECTION //
+	// /////////////////////////////////////////////////////////////////////////////////////
+
+	/** A section holds the most recent measurements of one part of the plugin, in nanoseconds */
+	public static class Section
+	{
+		// Control variables
+		private final String name;
+
+		private final long[] window = new long[WINDOW_SIZE];
+		private int windowPosition = 0;
+		private int windowSize = 0;
+
+		private long measurements = 0;
+		private long totalTime = 0;
+		private long estimatedCalls = 0;	// Each measurement counts for as many calls as the sample rate was when it was taken
+		private long estimatedTime = 0;
+
+		private long allocationMeasurements = 0;
+		private long totalAllocated = 0;
+
+		private Section(String name)
+		{
+			this.name = name;
+		}
+
+		/** Stores the given measurement, which stands for the given number of calls */
+		private void record(long time, int weight)
+		{
+			window[windowPosition] = time;
+			windowPosition = (windowPosition + 1) % WINDOW_SIZE;
+			windowSize = Math.min(WINDOW_SIZE, windowSize + 1);
+
+			measurements++;
+			totalTime += time;
+			estimatedCalls += weight;
+			estimatedTime += weight * time;
+		}
+
+		/** Stores the given number of allocated bytes */
+		private void recordAllocation(long bytes)
+		{
+			allocationMeasurements++;
+			totalAllocated += bytes;
+		}
+
+		/** Returns the name of the section */
+		public String getName()
+		{
+			return name;
+		}
+
+		/** Returns the estimated number of calls that has been made to the section */
+		public long getCalls()
+		{
+			return estimatedCalls;
+		}
+
+		/** Returns the estimated total time spent in the section */
+		public long getTotalTime()
+		{
+			return estimatedTime;
+		}
+
+		/** Returns the average time of each call */
+		public double getMean()
+		{
+			return measurements == 0 ? 0.0 : (double) totalTime / (double) measurements;
+		}
+
+		/** Returns the time that the given fraction of the recent calls were faster than */
+		public long getPercentile(double fraction)
+		{
+			if (windowSize == 0)
+				return 0L;
+			long[] sorted = Arrays.copyOf(window, windowSize);
+			Arrays.sort(sorted);
+			return sorted[Math.min(windowSize - 1, (int) (fraction * windowSize))];
+		}
+
+		/** Returns the average number of bytes allocated by each call, or 0 if allocations weren't measured */
+		public long getAllocationPerCall()
+		{
+			return allocationMeasurements == 0 ? 0L : totalAllocated / allocationMeasurements;
+		}
+
+		/** Returns the slowest of the recent calls */
+		public long getMax()
+		{
+			long max = 0L;
+			for (int i = 0; i < windowSize; i++)
+				max = Math.max(max, window[i]);
+			return max;
+		}
+	}
+}
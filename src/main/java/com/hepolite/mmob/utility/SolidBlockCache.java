@@ -0,0 +1,392 @@
+package com.hepolite.mmob.utility;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.UUID;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * The solid block cache remembers which blocks are solid and which are hazardous, as one bit per block for each 16x16x16 section of a chunk. The bits of a chunk are read from a snapshot of the chunk
+ * the first time they are needed, and a section is read again whenever a block in it has changed. Sections without any such blocks take up no memory at all. Line of sight checks walk through the
+ * blocks along the line and only have to look up a bit for each block.
+ * <p>
+ * The cache also remembers where a creature may stand in each column of a chunk, along with the height of the highest solid block in the column. These are worked out from the bits rather than from
+ * another snapshot, and a column is worked out again whenever a block in it has changed. A spot is safe to stand on if the block below is solid ground and the two blocks above it are open; liquids,
+ * fire, webs and portals are hazardous, and are never safe.
+ * <p>
+ * Changes are only noticed through the block events Bukkit fires. Other plugins, such as WorldEdit, may change blocks without firing any event; to keep such changes from going unnoticed for good, the
+ * whole chunk is read again once its bits have been in use for a while. Until then, the cache may be wrong about blocks that were changed that way
+ */
+public class SolidBlockCache
+{
+	private final static int SECTIONS = 16;
+	private final static int HEIGHT = 16 * SECTIONS;
+	private final static int COLUMNS = 256;
+	private final static int ALL_SECTIONS = (1 << SECTIONS) - 1;
+	private final static int MAX_AGE = 200;		// Ticks; how long the bits of a chunk are trusted before the chunk is read again
+
+	private final static byte KIND_OPEN = 0;		// Creatures may stand inside the block
+	private final static byte KIND_GROUND = 1;		// Creatures may stand on top of the block
+	private final static byte KIND_BLOCKED = 2;		// Creatures may neither stand inside nor on top of the block
+
+	private final static short[] NO_HEIGHTS = new short[0];
+
+	// Control variables
+	private final static boolean[] solidTypes = new boolean[4096];	// Indexed by block id
+	private final static boolean[] hazardTypes = new boolean[4096];	// Indexed by block id
+	private final static HashMap<UUID, LongHashMap<ChunkEntry>> worlds = new HashMap<UUID, LongHashMap<ChunkEntry>>();
+	private static int currentTick = 0;
+
+	// The block that was found by the previous line walk
+	private static int hitX, hitY, hitZ;
+
+	// Scratch space for working out the safe heights of a column
+	private final static byte[] columnKinds = new byte[HEIGHT];
+	private final static short[] heightBuffer = new short[HEIGHT];
+
+	/* Initialization */
+	static
+	{
+		for (Material material : Material.values())
+		{
+			@SuppressWarnings("deprecation")
+			int id = material.getId();
+			if (!material.isBlock() || id < 0 || id >= solidTypes.length)
+				continue;
+			solidTypes[id] = material.isSolid();
+			hazardTypes[id] = isHazard(material);
+		}
+	}
+
+	/** Returns true if creatures should never be placed in or on top of the given material */
+	private static boolean isHazard(Material material)
+	{
+		switch (material)
+		{
+		case WATER:
+		case STATIONARY_WATER:
+		case LAVA:
+		case STATIONARY_LAVA:
+		case FIRE:
+		case WEB:
+		case PORTAL:
+		case ENDER_PORTAL:
+		case END_GATEWAY:
+		case CACTUS:
+		case MAGMA:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Moves time forward; chunks that have been read too long ago are read again the next time they are needed */
+	public static void onTick()
+	{
+		currentTick++;
+	}
+
+	/** Returns true if the block at the given position is solid */
+	public static boolean isSolid(World world, int x, int y, int z)
+	{
+		if (y < 0 || y >= HEIGHT)
+			return false;
+
+		LongHashMap<ChunkEntry> chunks = getChunks(world);
+		return isSolid(world, chunks, x, y, z);
+	}
+
+	/** Returns the heights in the given column that are safe to stand at, sorted from the bottom and up. The array is shared and must not be changed */
+	public static short[] getStandingHeights(World world, int x, int z)
+	{
+		ChunkEntry entry = getColumns(world, getChunks(world), x >> 4, z >> 4);
+		return entry.standingHeights[((z & 15) << 4) | (x & 15)];
+	}
+
+	/** Returns the height right above the highest solid block in the given column, or 0 if there are no solid blocks in the column */
+	public static int getSurfaceHeight(World world, int x, int z)
+	{
+		ChunkEntry entry = getColumns(world, getChunks(world), x >> 4, z >> 4);
+		return entry.surfaceHeights[((z & 15) << 4) | (x & 15)] + 1;
+	}
+
+	/** Returns true if there is a solid block anywhere along the line between the two positions */
+	public static boolean isLineObstructed(World world, double x1, double y1, double z1, double x2, double y2, double z2)
+	{
+		return findSolidBlock(world, x1, y1, z1, x2, y2, z2);
+	}
+
+	/** Returns the location of the first solid block along the line between the two positions, or null if there is no such block */
+	public static Location getFirstSolidBlock(World world, double x1, double y1, double z1, double x2, double y2, double z2)
+	{
+		if (!findSolidBlock(world, x1, y1, z1, x2, y2, z2))
+			return null;
+		return new Location(world, hitX, hitY, hitZ);
+	}
+
+	/** Marks the section and the column the given block is in as changed, such that they are read again the next time they are needed */
+	public static void invalidate(World world, int x, int y, int z)
+	{
+		if (y < 0 || y >= HEIGHT)
+			return;
+
+		LongHashMap<ChunkEntry> chunks = worlds.get(world.getUID());
+		ChunkEntry entry = chunks == null ? null : chunks.get(getChunkKey(x >> 4, z >> 4));
+		if (entry != null)
+		{
+			int column = ((z & 15) << 4) | (x & 15);
+			entry.dirtySections |= 1 << (y >> 4);
+			entry.dirtyColumns[column >>> 6] |= 1L << column;
+			entry.hasDirtyColumns = true;
+		}
+	}
+
+	/** Forgets about the given chunk */
+	public static void invalidateChunk(World world, int chunkX, int chunkZ)
+	{
+		LongHashMap<ChunkEntry> chunks = worlds.get(world.getUID());
+		if (chunks != null)
+			chunks.remove(getChunkKey(chunkX, chunkZ));
+	}
+
+	/** Forgets about all chunks in the given world */
+	public static void invalidateWorld(World world)
+	{
+		worlds.remove(world.getUID());
+	}
+
+	/** Forgets about everything */
+	public static void clear()
+	{
+		worlds.clear();
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Walks through the blocks along the line, one block at a time. Returns true as soon as a solid block is found, and remembers where it was */
+	private static boolean findSolidBlock(World world, double x1, double y1, double z1, double x2, double y2, double z2)
+	{
+		LongHashMap<ChunkEntry> chunks = getChunks(world);
+
+		int x = (int) Math.floor(x1), y = (int) Math.floor(y1), z = (int) Math.floor(z1);
+		int endX = (int) Math.floor(x2), endY = (int) Math.floor(y2), endZ = (int) Math.floor(z2);
+		double deltaX = x2 - x1, deltaY = y2 - y1, deltaZ = z2 - z1;
+		int stepX = deltaX > 0.0 ? 1 : -1, stepY = deltaY > 0.0 ? 1 : -1, stepZ = deltaZ > 0.0 ? 1 : -1;
+
+		// How far along the line the next block boundary is along each axis, and how far apart the boundaries are
+		double tDeltaX = deltaX == 0.0 ? Double.POSITIVE_INFINITY : Math.abs(1.0 / deltaX);
+		double tDeltaY = deltaY == 0.0 ? Double.POSITIVE_INFINITY : Math.abs(1.0 / deltaY);
+		double tDeltaZ = deltaZ == 0.0 ? Double.POSITIVE_INFINITY : Math.abs(1.0 / deltaZ);
+		double tMaxX = deltaX == 0.0 ? Double.POSITIVE_INFINITY : (deltaX > 0.0 ? x + 1 - x1 : x1 - x) * tDeltaX;
+		double tMaxY = deltaY == 0.0 ? Double.POSITIVE_INFINITY : (deltaY > 0.0 ? y + 1 - y1 : y1 - y) * tDeltaY;
+		double tMaxZ = deltaZ == 0.0 ? Double.POSITIVE_INFINITY : (deltaZ > 0.0 ? z + 1 - z1 : z1 - z) * tDeltaZ;
+
+		int steps = Math.abs(endX - x) + Math.abs(endY - y) + Math.abs(endZ - z);
+		for (int i = 0;; i++)
+		{
+			if (y >= 0 && y < HEIGHT && isSolid(world, chunks, x, y, z))
+			{
+				hitX = x;
+				hitY = y;
+				hitZ = z;
+				return true;
+			}
+			if (i == steps)
+				return false;
+
+			if (tMaxX <= tMaxY && tMaxX <= tMaxZ)
+			{
+				x += stepX;
+				tMaxX += tDeltaX;
+			}
+			else if (tMaxY <= tMaxZ)
+			{
+				y += stepY;
+				tMaxY += tDeltaY;
+			}
+			else
+			{
+				z += stepZ;
+				tMaxZ += tDeltaZ;
+			}
+		}
+	}
+
+	/** Returns true if the block at the given position is solid. The height must be within the world */
+	private static boolean isSolid(World world, LongHashMap<ChunkEntry> chunks, int x, int y, int z)
+	{
+		int chunkX = x >> 4, chunkZ = z >> 4;
+		ChunkEntry entry = getEntry(chunks, chunkX, chunkZ);
+		if ((entry.dirtySections & (1 << (y >> 4))) != 0)
+			entry.rebuild(world, chunkX, chunkZ);
+
+		long[] bits = entry.sections[y >> 4];
+		if (bits == null)
+			return false;
+		int index = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/** Returns the given chunk, with the columns that have changed worked out again */
+	private static ChunkEntry getColumns(World world, LongHashMap<ChunkEntry> chunks, int chunkX, int chunkZ)
+	{
+		ChunkEntry entry = getEntry(chunks, chunkX, chunkZ);
+		if (entry.dirtySections != 0)
+			entry.rebuild(world, chunkX, chunkZ);
+		if (entry.hasDirtyColumns)
+			entry.rebuildColumns();
+		return entry;
+	}
+
+	/** Returns the given chunk, marking all of it as changed if it was read too long ago */
+	private static ChunkEntry getEntry(LongHashMap<ChunkEntry> chunks, int chunkX, int chunkZ)
+	{
+		long key = getChunkKey(chunkX, chunkZ);
+		ChunkEntry entry = chunks.get(key);
+		if (entry == null)
+		{
+			entry = new ChunkEntry();
+			chunks.put(key, entry);
+		}
+		if (currentTick - entry.readTick > MAX_AGE)
+		{
+			entry.dirtySections = ALL_SECTIONS;
+			Arrays.fill(entry.dirtyColumns, -1L);
+			entry.hasDirtyColumns = true;
+		}
+		return entry;
+	}
+
+	/** Returns the chunks of the given world */
+	private static LongHashMap<ChunkEntry> getChunks(World world)
+	{
+		LongHashMap<ChunkEntry> chunks = worlds.get(world.getUID());
+		if (chunks == null)
+		{
+			chunks = new LongHashMap<ChunkEntry>();
+			worlds.put(world.getUID(), chunks);
+		}
+		return chunks;
+	}
+
+	/** Packs the chunk coordinates into one number */
+	private static long getChunkKey(int chunkX, int chunkZ)
+	{
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	/** The solid and hazardous blocks and the safe heights of a single chunk, along with which sections and columns have to be read again */
+	private static final class ChunkEntry
+	{
+		private final long[][] sections = new long[SECTIONS][];
+		private final long[][] hazardSections = new long[SECTIONS][];
+		private int dirtySections = ALL_SECTIONS;
+		private int readTick = 0;	// When the whole chunk was last read
+
+		private final short[][] standingHeights = new short[COLUMNS][];
+		private final short[] surfaceHeights = new short[COLUMNS];
+		private final long[] dirtyColumns = new long[] { -1L, -1L, -1L, -1L };
+		private boolean hasDirtyColumns = true;
+
+		/** Reads all changed sections from a snapshot of the chunk */
+		@SuppressWarnings("deprecation")
+		private void rebuild(World world, int chunkX, int chunkZ)
+		{
+			if (dirtySections == ALL_SECTIONS)
+				readTick = currentTick;
+			ChunkSnapshot snapshot = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+			for (int section = 0; section < SECTIONS; section++)
+			{
+				if ((dirtySections & (1 << section)) == 0)
+					continue;
+				if (snapshot.isSectionEmpty(section))
+				{
+					sections[section] = null;
+					hazardSections[section] = null;
+					continue;
+				}
+
+				long[] bits = sections[section] == null ? new long[64] : sections[section];
+				long[] hazardBits = hazardSections[section] == null ? new long[64] : hazardSections[section];
+				Arrays.fill(bits, 0L);
+				Arrays.fill(hazardBits, 0L);
+				boolean hasSolidBlocks = false, hasHazards = false;
+				for (int y = 0; y < 16; y++)
+				{
+					for (int z = 0; z < 16; z++)
+					{
+						for (int x = 0; x < 16; x++)
+						{
+							int id = snapshot.getBlockTypeId(x, 16 * section + y, z);
+							int index = (y << 8) | (z << 4) | x;
+							if (solidTypes[id])
+							{
+								bits[index >>> 6] |= 1L << index;
+								hasSolidBlocks = true;
+							}
+							if (hazardTypes[id])
+							{
+								hazardBits[index >>> 6] |= 1L << index;
+								hasHazards = true;
+							}
+						}
+					}
+				}
+				sections[section] = hasSolidBlocks ? bits : null;
+				hazardSections[section] = hasHazards ? hazardBits : null;
+			}
+			dirtySections = 0;
+		}
+
+		/** Works out the safe heights and the surface height of all changed columns from the bits; the sections must be up to date */
+		private void rebuildColumns()
+		{
+			for (int column = 0; column < COLUMNS; column++)
+			{
+				if ((dirtyColumns[column >>> 6] & (1L << column)) == 0)
+					continue;
+
+				// Sort every block in the column into open, ground or blocked
+				int surfaceHeight = -1;
+				for (int y = 0; y < HEIGHT; y++)
+				{
+					columnKinds[y] = getKind(y >> 4, ((y & 15) << 8) | column);
+					if (columnKinds[y] == KIND_GROUND)
+						surfaceHeight = y;
+				}
+				surfaceHeights[column] = (short) surfaceHeight;
+
+				// A spot is safe if there is ground below and room for the feet and the head; the sky above the world counts as room
+				int count = 0;
+				for (int y = 1; y <= surfaceHeight + 1 && y < HEIGHT; y++)
+				{
+					if (columnKinds[y - 1] == KIND_GROUND && columnKinds[y] == KIND_OPEN && (y + 1 == HEIGHT || columnKinds[y + 1] == KIND_OPEN))
+						heightBuffer[count++] = (short) y;
+				}
+				standingHeights[column] = count == 0 ? NO_HEIGHTS : Arrays.copyOf(heightBuffer, count);
+			}
+			Arrays.fill(dirtyColumns, 0L);
+			hasDirtyColumns = false;
+		}
+
+		/** Returns what a creature may do with the block at the given index of the given section */
+		private byte getKind(int section, int index)
+		{
+			long[] hazardBits = hazardSections[section];
+			if (hazardBits != null && (hazardBits[index >>> 6] & (1L << index)) != 0)
+				return KIND_BLOCKED;
+			long[] bits = sections[section];
+			if (bits != null && (bits[index >>> 6] & (1L << index)) != 0)
+				return KIND_GROUND;
+			return KIND_OPEN;
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package com.hepolite.mmob.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The spatial grid sorts objects into cubic cells based on their position, such that everything near a point can be found by only looking at the cells around that point. The grid is meant to be
+ * rebuilt regularly; clearing it keeps all the cells around for reuse, such that rebuilding it doesn't create any new objects once the grid has warmed up
+ */
+public class SpatialGrid<T>
+{
+	/** The visitor is handed every object found by a query */
+	public static interface Visitor<T>
+	{
+		/** Called for each object within the query range, along with the squared distance to it */
+		public void visit(T object, double distanceSquared);
+	}
+
+	// Control variables
+	private final int cellShift;	// The size of each cell is 2^cellShift blocks
+
+	private final LongHashMap<Cell> cells = new LongHashMap<Cell>();
+	private final List<Cell> usedCells = new ArrayList<Cell>();
+	private final List<Cell> freeCells = new ArrayList<Cell>();
+	private final LongHashSet visitedCells = new LongHashSet();	// Used by segment queries, such that no cell is visited twice
+	private boolean isWalkingSegment = false;
+	private int size = 0;
+
+	/* Initialization */
+	public SpatialGrid(int cellShift)
+	{
+		this.cellShift = cellShift;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Adds the object to the grid at the given position */
+	public void add(T object, double x, double y, double z)
+	{
+		long key = getCellKey((int) Math.floor(x) >> cellShift, (int) Math.floor(y) >> cellShift, (int) Math.floor(z) >> cellShift);
+		Cell cell = cells.get(key);
+		if (cell == null)
+		{
+			cell = freeCells.isEmpty() ? new Cell() : freeCells.remove(freeCells.size() - 1);
+			cells.put(key, cell);
+			usedCells.add(cell);
+		}
+		cell.add(object, x, y, z);
+		size++;
+	}
+
+	/** Removes all objects from the grid */
+	public void clear()
+	{
+		for (int i = 0; i < usedCells.size(); i++)
+		{
+			Cell cell = usedCells.get(i);
+			cell.clear();
+			freeCells.add(cell);
+		}
+		usedCells.clear();
+		cells.clear();
+		size = 0;
+	}
+
+	/** Passes every object within the given range of the given position to the visitor */
+	@SuppressWarnings("unchecked")
+	public void forEachInRange(double x, double y, double z, double range, Visitor<? super T> visitor)
+	{
+		if (size == 0)
+			return;
+
+		double rangeSquared = range * range;
+		int minX = (int) Math.floor(x - range) >> cellShift, maxX = (int) Math.floor(x + range) >> cellShift;
+		int minY = (int) Math.floor(y - range) >> cellShift, maxY = (int) Math.floor(y + range) >> cellShift;
+		int minZ = (int) Math.floor(z - range) >> cellShift, maxZ = (int) Math.floor(z + range) >> cellShift;
+		for (int cellX = minX; cellX <= maxX; cellX++)
+		{
+			for (int cellZ = minZ; cellZ <= maxZ; cellZ++)
+			{
+				for (int cellY = minY; cellY <= maxY; cellY++)
+				{
+					Cell cell = cells.get(getCellKey(cellX, cellY, cellZ));
+					if (cell == null)
+						continue;
+
+					for (int i = 0; i < cell.size; i++)
+					{
+						double dx = cell.coordinates[3 * i] - x;
+						double dy = cell.coordinates[3 * i + 1] - y;
+						double dz = cell.coordinates[3 * i + 2] - z;
+						double distanceSquared = dx * dx + dy * dy + dz * dz;
+						if (distanceSquared < rangeSquared)
+							visitor.visit((T) cell.objects[i], distanceSquared);
+					}
+				}
+			}
+		}
+	}
+
+	/** Passes every object within the given horizontal range of the given position and between the two heights to the visitor, along with the squared horizontal distance to it */
+	@SuppressWarnings("unchecked")
+	public void forEachInColumn(double x, double z, double range, double minHeight, double maxHeight, Visitor<? super T> visitor)
+	{
+		if (size == 0)
+			return;
+
+		double rangeSquared = range * range;
+		int minX = (int) Math.floor(x - range) >> cellShift, maxX = (int) Math.floor(x + range) >> cellShift;
+		int minY = (int) Math.floor(minHeight) >> cellShift, maxY = (int) Math.floor(maxHeight) >> cellShift;
+		int minZ = (int) Math.floor(z - range) >> cellShift, maxZ = (int) Math.floor(z + range) >> cellShift;
+		for (int cellX = minX; cellX <= maxX; cellX++)
+		{
+			for (int cellZ = minZ; cellZ <= maxZ; cellZ++)
+			{
+				for (int cellY = minY; cellY <= maxY; cellY++)
+				{
+					Cell cell = cells.get(getCellKey(cellX, cellY, cellZ));
+					if (cell == null)
+						continue;
+
+					for (int i = 0; i < cell.size; i++)
+					{
+						double dx = cell.coordinates[3 * i] - x;
+						double dz = cell.coordinates[3 * i + 2] - z;
+						double distanceSquared = dx * dx + dz * dz;
+						if (distanceSquared < rangeSquared)
+							visitor.visit((T) cell.objects[i], distanceSquared);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Passes every object in the cells that the given line segment passes through to the visitor, along with the squared distance from the start of the segment to it. The cells are found by stepping
+	 * along the segment one cell at a time, such that the work done depends on the length of the segment rather than the number of objects in the grid. Cells up to the given number of cells away from
+	 * the segment are included as well, for objects that stick out of the cell they are in
+	 */
+	public void forEachAlongSegment(double x1, double y1, double z1, double x2, double y2, double z2, int padding, Visitor<? super T> visitor)
+	{
+		if (size == 0)
+			return;
+
+		// A visitor that walks along another segment of the same grid needs a set of cells of its own
+		LongHashSet visited = isWalkingSegment ? new LongHashSet() : visitedCells;
+		boolean wasWalkingSegment = isWalkingSegment;
+		isWalkingSegment = true;
+		visited.clear();
+		try
+		{
+			// Work in units of cells
+			double cellSize = 1 << cellShift;
+			double startX = x1 / cellSize, startY = y1 / cellSize, startZ = z1 / cellSize;
+			double deltaX = x2 / cellSize - startX, deltaY = y2 / cellSize - startY, deltaZ = z2 / cellSize - startZ;
+			int cellX = (int) Math.floor(startX), cellY = (int) Math.floor(startY), cellZ = (int) Math.floor(startZ);
+			int endX = (int) Math.floor(startX + deltaX), endY = (int) Math.floor(startY + deltaY), endZ = (int) Math.floor(startZ + deltaZ);
+			int stepX = deltaX > 0.0 ? 1 : -1, stepY = deltaY > 0.0 ? 1 : -1, stepZ = deltaZ > 0.0 ? 1 : -1;
+
+			// How far along the segment the next cell boundary is along each axis, and how far apart the boundaries are
+			double tDeltaX = deltaX == 0.0 ? Double.POSITIVE_INFINITY : Math.abs(1.0 / deltaX);
+			double tDeltaY = deltaY == 0.0 ? Double.POSITIVE_INFINITY : Math.abs(1.0 / deltaY);
+			double tDeltaZ = deltaZ == 0.0 ? Double.POSITIVE_INFINITY : Math.abs(1.0 / deltaZ);
+			double tMaxX = deltaX == 0.0 ? Double.POSITIVE_INFINITY : (deltaX > 0.0 ? cellX + 1 - startX : startX - cellX) * tDeltaX;
+			double tMaxY = deltaY == 0.0 ? Double.POSITIVE_INFINITY : (deltaY > 0.0 ? cellY + 1 - startY : startY - cellY) * tDeltaY;
+			double tMaxZ = deltaZ == 0.0 ? Double.POSITIVE_INFINITY : (deltaZ > 0.0 ? cellZ + 1 - startZ : startZ - cellZ) * tDeltaZ;
+
+			int steps = Math.abs(endX - cellX) + Math.abs(endY - cellY) + Math.abs(endZ - cellZ);
+			visitNeighbourhood(cellX, cellY, cellZ, padding, x1, y1, z1, visited, visitor);
+			for (int i = 0; i < steps; i++)
+			{
+				if (tMaxX <= tMaxY && tMaxX <= tMaxZ)
+				{
+					cellX += stepX;
+					tMaxX += tDeltaX;
+				}
+				else if (tMaxY <= tMaxZ)
+				{
+					cellY += stepY;
+					tMaxY += tDeltaY;
+				}
+				else
+				{
+					cellZ += stepZ;
+					tMaxZ += tDeltaZ;
+				}
+				visitNeighbourhood(cellX, cellY, cellZ, padding, x1, y1, z1, visited, visitor);
+			}
+		}
+		finally
+		{
+			isWalkingSegment = wasWalkingSegment;
+		}
+	}
+
+	/** Returns the number of objects in the grid */
+	public int size()
+	{
+		return size;
+	}
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/** Passes the objects in the cells around the given cell to the visitor, skipping the cells that have been visited already */
+	@SuppressWarnings("unchecked")
+	private void visitNeighbourhood(int centerX, int centerY, int centerZ, int padding, double x, double y, double z, LongHashSet visited, Visitor<? super T> visitor)
+	{
+		for (int cellX = centerX - padding; cellX <= centerX + padding; cellX++)
+		{
+			for (int cellZ = centerZ - padding; cellZ <= centerZ + padding; cellZ++)
+			{
+				for (int cellY = centerY - padding; cellY <= centerY + padding; cellY++)
+				{
+					long key = getCellKey(cellX, cellY, cellZ);
+					if (!visited.add(key))
+						continue;
+					Cell cell = cells.get(key);
+					if (cell == null)
+						continue;
+
+					for (int i = 0; i < cell.size; i++)
+					{
+						double dx = cell.coordinates[3 * i] - x;
+						double dy = cell.coordinates[3 * i + 1] - y;
+						double dz = cell.coordinates[3 * i + 2] - z;
+						visitor.visit((T) cell.objects[i], dx * dx + dy * dy + dz * dz);
+					}
+				}
+			}
+		}
+	}
+
+	/** Packs the cell coordinates into one number; 26 bits are used for the horizontal coordinates and 12 bits for the vertical one */
+	private static long getCellKey(int cellX, int cellY, int cellZ)
+	{
+		return ((long) (cellX & 0x3FFFFFF) << 38) | ((long) (cellZ & 0x3FFFFFF) << 12) | (cellY & 0xFFF);
+	}
+
+	/** A single cell, holding the objects and their positions in plain arrays */
+	private static final class Cell
+	{
+		private Object[] objects = new Object[8];
+		private double[] coordinates = new double[24];
+		private int size = 0;
+
+		/** Adds the object to the cell */
+		private void add(Object object, double x, double y, double z)
+		{
+			if (size == objects.length)
+			{
+				objects = Arrays.copyOf(objects, 2 * size);
+				coordinates = Arrays.copyOf(coordinates, 6 * size);
+			}
+			objects[size] = object;
+			coordinates[3 * size] = x;
+			coordinates[3 * size + 1] = y;
+			coordinates[3 * size + 2] = z;
+			size++;
+		}
+
+		/** Removes all objects from the cell */
+		private void clear()
+		{
+			Arrays.fill(objects, 0, size, null);
+			size = 0;
+		}
+	}
+}
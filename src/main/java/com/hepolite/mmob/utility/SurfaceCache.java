@@ -0,0 +1,119 @@
+package com.hepolite.mmob.utility;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * The surface cache answers questions about where creatures may stand. The safe heights and surface heights of every column are kept by the solid block cache, along with the blocks they are worked
+ * out from, and are kept up to date there; this class only searches through them
+ */
+public class SurfaceCache
+{
+	private final static int SEARCH_HEIGHT = 20;	// How far up or down a safe spot may be from the requested height
+	private final static int SEARCH_RADIUS = 16;	// How far to the side a safe spot may be from the requested position
+
+	// ///////////////////////////////////////////////////////////////////////////////////////
+	// CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY // CORE FUNCTIONALITY //
+	// ///////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the safe spot that is closest to the given position, looking at columns further and further away until one is found. Returns null if there is no safe spot within 16 blocks to the side
+	 * and 20 blocks up or down
+	 */
+	public static Location getSafeLocation(World world, double x, double y, double z)
+	{
+		int blockX = (int) Math.floor(x), blockY = (int) Math.floor(y), blockZ = (int) Math.floor(z);
+
+		for (int ring = 0; ring <= SEARCH_RADIUS; ring++)
+		{
+			// Only look at the columns on the edge of the ring; those inside have been checked already
+			int bestX = 0, bestY = -1, bestZ = 0, bestDistance = Integer.MAX_VALUE;
+			for (int dx = -ring; dx <= ring; dx++)
+			{
+				int step = (dx == -ring || dx == ring) ? 1 : 2 * ring;
+				for (int dz = -ring; dz <= ring; dz += step)
+				{
+					int height = getStandingHeight(world, blockX + dx, blockY, blockZ + dz, SEARCH_HEIGHT);
+					if (height != -1 && Math.abs(height - blockY) < bestDistance)
+					{
+						bestX = blockX + dx;
+						bestY = height;
+						bestZ = blockZ + dz;
+						bestDistance = Math.abs(height - blockY);
+					}
+				}
+			}
+			if (bestY != -1)
+				return new Location(world, (double) bestX + 0.5, (double) bestY, (double) bestZ + 0.5);
+		}
+		return null;
+	}
+
+	/** Returns the height closest to the given height in the given column that is safe to stand at, or -1 if there is no such height within the given distance */
+	public static int getStandingHeight(World world, int x, int y, int z, int maxDistance)
+	{
+		short[] heights = SolidBlockCache.getStandingHeights(world, x, z);
+
+		// The heights are sorted from the bottom and up, so the search can stop once the heights only get further away
+		int bestHeight = -1, bestDistance = maxDistance + 1;
+		for (int i = 0; i < heights.length; i++)
+		{
+			int distance = Math.abs(heights[i] - y);
+			if (distance < bestDistance)
+			{
+				bestHeight = heights[i];
+				bestDistance = distance;
+			}
+			else if (heights[i] > y)
+				break;
+		}
+		return bestHeight;
+	}
+
+	/** Returns the height right above the highest solid block in the given column, or 0 if there are no solid blocks in the column */
+	public static int getSurfaceHeight(World world, int x, int z)
+	{
+		return SolidBlockCache.getSurfaceHeight(world, x, z);
+	}
+
+	/**
+	 * Returns the height where something may be attached to the blocks around the given position. The ground within the given distance below the position is preferred, then the ceiling within the
+	 * given distance above it. If that spot is inside a solid block, the closest open block above or below it is used instead
+	 */
+	public static int getAttachmentHeight(World world, int x, int y, int z, int maxDistance)
+	{
+		// Find the ground, if possible
+		boolean foundGround = false;
+		for (int j = 0; j >= -maxDistance; j--)
+		{
+			if (SolidBlockCache.isSolid(world, x, y + j, z))
+			{
+				y += j + 1;
+				foundGround = true;
+				break;
+			}
+		}
+		// If the ground wasn't found, try to find the ceiling
+		if (!foundGround)
+		{
+			for (int j = 1; j <= maxDistance; j++)
+			{
+				if (SolidBlockCache.isSolid(world, x, y + j, z))
+				{
+					y += j - 1;
+					break;
+				}
+			}
+		}
+
+		// If inside something, find an open spot
+		for (int j = 0; j <= maxDistance; j++)
+		{
+			if (!SolidBlockCache.isSolid(world, x, y + j, z))
+				return y + j;
+			if (!SolidBlockCache.isSolid(world, x, y - j, z))
+				return y - j;
+		}
+		return y;
+	}
+}